@@ -17,9 +17,11 @@
 package ro.nextreports.designer;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.FontMetrics;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.swing.UIManager;
@@ -40,18 +42,30 @@ import ro.nextreports.engine.band.Padding;
 class AutoFitGridHandler implements GridModelListener {
 
     private ReportGrid grid;
-    private Map<Integer, Map<Integer, Integer>> columnSizeCache;
-    private Map<Integer, Map<Integer, Integer>> rowSizeCache;
+    private static final int MAX_CACHED_FONTS = 32;
+    private static final int MAX_CACHED_TEXTS = 1024;
+
+    // sizes needed by the cells of every column (by row) and of every row (by column)
+    private SizeList columnSizes;
+    private SizeList rowSizes;
+
+    // text widths by font and text (least recently used are removed)
+    private Map<Font, Map<String, Integer>> textWidthCache;
 
     public AutoFitGridHandler(ReportGrid grid) {
         this.grid = grid;
-        columnSizeCache = new HashMap<Integer, Map<Integer, Integer>>();
-        rowSizeCache = new HashMap<Integer, Map<Integer, Integer>>();
+        columnSizes = new SizeList();
+        rowSizes = new SizeList();
+        textWidthCache = new LinkedHashMap<Font, Map<String, Integer>>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Font, Map<String, Integer>> eldest) {
+                return size() > MAX_CACHED_FONTS;
+            }
+        };
     }
 
     public void clearCache() {
-        columnSizeCache.clear();
-        rowSizeCache.clear();
+        columnSizes.clear();
+        rowSizes.clear();
     }
 
     public void gridChanged(GridModelEvent event) {
@@ -64,37 +78,71 @@ class AutoFitGridHandler implements GridModelListener {
             onRowsDeleted(event);
         } else if (eventType == GridModelEvent.ROWS_INSERTED) {
             onRowsInserted(event);
+        } else if (eventType == GridModelEvent.COLUMNS_INSERTED) {
+            onColumnsInserted(event);
         }
     }
 
+    // a bulk update (see AbstractGridModel.beginUpdate) notifies a range of cells : row and column sizes are
+    // computed for all cells and set only once for every changed row and column
     private void onCellsUpdated(GridModelEvent event) {
+        BitSet rows = new BitSet();
+        BitSet columns = new BitSet();
+        boolean elements = false;
+        for (int row = event.getFirstRow(); row <= event.getLastRow(); row++) {
+            for (int column = event.getFirstColumn(); column <= event.getLastColumn(); column++) {
+                elements |= onCellUpdated(row, column, rows, columns);
+            }
+        }
 
-        int column = event.getFirstColumn();
-        int row = event.getFirstRow();        
+        // handle column size
+        boolean useSize = LayoutHelper.getReportLayout().isUseSize();
+        for (int column = columns.nextSetBit(0); column >= 0; column = columns.nextSetBit(column + 1)) {
+            if (useSize) {
+                grid.getColumnHeaderModel().setSize(column, LayoutHelper.getReportLayout().getColumnsWidth().get(column));
+            } else {
+                grid.getColumnHeaderModel().setSize(column, columnSizes.getMax(column));
+            }
+        }
 
+        // handle row size
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            grid.getRowHeaderModel().setSize(row, rowSizes.getMax(row));
+        }
+
+        if (elements) {
+            notifyPropertyPanel();
+        }
+    }
+
+    /**
+     * Compute the sizes needed by a cell. The rows and columns whose size must be updated are added to the sets.
+     *
+     * @return true if cell has an element
+     */
+    private boolean onCellUpdated(int row, int column, BitSet rows, BitSet columns) {
         BandElement element = grid.getBandElement(row, column);
         //System.out.println("row="+row + "  column="+column + "  element="+element);
 
+        boolean useSize = LayoutHelper.getReportLayout().isUseSize();
         // handle column size
-        if (LayoutHelper.getReportLayout().isUseSize()) {
-            grid.getColumnHeaderModel().setSize(column, LayoutHelper.getReportLayout().getColumnsWidth().get(column));            
+        if (useSize) {
+            columns.set(column);
         }
 
         if (element == null) { // possible a clear cell !?
 
             // handle column size
-            if (!LayoutHelper.getReportLayout().isUseSize()) {              
-                Map<Integer, Integer> rowsMap = getRowsMap(column);
-                rowsMap.put(row, JGrid.DEFAULT_COLUMN_WIDTH);
-                grid.getColumnHeaderModel().setSize(column, Collections.max(rowsMap.values()));
+            if (!useSize) {
+                columnSizes.set(column, row, JGrid.DEFAULT_COLUMN_WIDTH);
+                columns.set(column);
             }
 
             // handle row size
-            Map<Integer, Integer> columnsMap = getColumnsMap(row);
-            columnsMap.put(column, JGrid.DEFAULT_ROW_HEIGHT);
-            grid.getRowHeaderModel().setSize(row, Collections.max(columnsMap.values()));
+            rowSizes.set(row, column, JGrid.DEFAULT_ROW_HEIGHT);
+            rows.set(row);
 
-            return;
+            return false;
         }
 
         // in case that property value is deleted from PropertyPanel (close button)
@@ -103,18 +151,18 @@ class AutoFitGridHandler implements GridModelListener {
 
         // retrieves a font metrics from the element font
         FontMetrics fontMetrics = grid.getFontMetrics(element.getFont());
+        int textWidth = getTextWidth(fontMetrics, element.getText());
 
         // if the cell is inside a span , divide the width to the number of cells in the span
         // and update all columns / rows
-        // todo on start span model is not initialized!!!
         CellSpan span = grid.getSpanModel().getSpanOver(row, column);
         //System.out.println("span="+span);
 
         // handle column size
         // TODO calculate insets (now it's 8)
-        if (!LayoutHelper.getReportLayout().isUseSize()) {
+        if (!useSize) {
             for (int i = column; i < span.getColumnCount() + column; i++) {
-                int columnSize = fontMetrics.stringWidth(element.getText()) / span.getColumnCount() + 8;
+                int columnSize = textWidth / span.getColumnCount() + 8;
                 BandElement elementC = grid.getBandElement(row, i);
                 if (elementC != null) {
                     Padding padding = elementC.getPadding();
@@ -125,10 +173,9 @@ class AutoFitGridHandler implements GridModelListener {
                 if (columnSize < JGrid.DEFAULT_COLUMN_WIDTH) {
                     columnSize = JGrid.DEFAULT_COLUMN_WIDTH;
                 }
-                Map<Integer, Integer> rowsMap = getRowsMap(i);
-                rowsMap.put(row, columnSize);
-                //System.out.println("i="+i + "  textSize=" + fontMetrics.stringWidth(element.getText()) +  " colSize="+columnSize);
-                grid.getColumnHeaderModel().setSize(i, Collections.max(rowsMap.values()));
+                columnSizes.set(i, row, columnSize);
+                //System.out.println("i="+i + "  textSize=" + textWidth +  " colSize="+columnSize);
+                columns.set(i);
             }
         }
 
@@ -146,45 +193,35 @@ class AutoFitGridHandler implements GridModelListener {
             if (rowSize < JGrid.DEFAULT_ROW_HEIGHT) {
                 rowSize = JGrid.DEFAULT_ROW_HEIGHT;
             }
-            Map<Integer, Integer> columnsMap = getColumnsMap(i);
-            columnsMap.put(column, rowSize);
-            grid.getRowHeaderModel().setSize(i, Collections.max(columnsMap.values()));
+            rowSizes.set(i, column, rowSize);
+            rows.set(i);
         }
 
-        notifyPropertyPanel();
+        return true;
     }
 
     private void onRowsInserted(GridModelEvent event) {
-        int firstRow = event.getFirstRow();
-        int lastRow = event.getLastRow();
-
-        for (int i = firstRow; i < grid.getRowCount(); i++) {
-            Map<Integer, Integer> columnsMap = rowSizeCache.remove(i);
-            rowSizeCache.put(i + lastRow - firstRow + 1, columnsMap);
-        }
+        int count = event.getLastRow() - event.getFirstRow() + 1;
+        rowSizes.insert(event.getFirstRow(), count);
+        columnSizes.insertInAll(event.getFirstRow(), count);
     }
 
     private void onRowsDeleted(GridModelEvent event) {
-        int firstRow = event.getFirstRow();
-        int lastRow = event.getLastRow();
-
-        for (int i = firstRow; i <= lastRow; i++) {
-            rowSizeCache.remove(i);
-        }
+        int count = event.getLastRow() - event.getFirstRow() + 1;
+        rowSizes.remove(event.getFirstRow(), count);
+        columnSizes.removeFromAll(event.getFirstRow(), count);
+    }
 
-        for (int i = lastRow + 1; i < grid.getRowCount(); i++) {
-            Map<Integer, Integer> columnsMap = rowSizeCache.remove(i);
-            rowSizeCache.put(i - lastRow + firstRow - 1, columnsMap);
-        }
+    private void onColumnsInserted(GridModelEvent event) {
+        int count = event.getLastColumn() - event.getFirstColumn() + 1;
+        columnSizes.insert(event.getFirstColumn(), count);
+        rowSizes.insertInAll(event.getFirstColumn(), count);
     }
 
     private void onColumnsDeleted(GridModelEvent event) {
-        int firstColumn = event.getFirstColumn();
-        int lastColumn = event.getLastColumn();
-
-        for (int i = lastColumn; i >= firstColumn; i--) {
-            columnSizeCache.remove(i);
-        }
+        int count = event.getLastColumn() - event.getFirstColumn() + 1;
+        columnSizes.remove(event.getFirstColumn(), count);
+        rowSizes.removeFromAll(event.getFirstColumn(), count);
     }
 
     private void setDefaultProperties(BandElement element) {
@@ -214,24 +251,167 @@ class AutoFitGridHandler implements GridModelListener {
         Globals.getReportDesignerPanel().getPropertiesPanel().selectionChanged(selectionEvent);
     }
 
-    private Map<Integer, Integer> getRowsMap(int column) {
-        Map<Integer, Integer> rowsMap = columnSizeCache.get(column);
-        if (rowsMap == null) {
-            rowsMap = new HashMap<Integer, Integer>();
-            columnSizeCache.put(column, rowsMap);
+    private int getTextWidth(FontMetrics fontMetrics, String text) {
+        if (text == null) {
+            return 0;
+        }
+        Font font = fontMetrics.getFont();
+        Map<String, Integer> widths = textWidthCache.get(font);
+        if (widths == null) {
+            widths = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > MAX_CACHED_TEXTS;
+                }
+            };
+            textWidthCache.put(font, widths);
+        }
+        Integer width = widths.get(text);
+        if (width == null) {
+            width = fontMetrics.stringWidth(text);
+            widths.put(text, width);
+        }
+        return width;
+    }
+
+    /**
+     * Sizes needed by cells, kept for every line (column or row) in primitive arrays indexed by the
+     * cross position (row or column). The maximum of every line is kept with the number of cells having it,
+     * so it is searched again only when the last such cell gets a smaller size.
+     */
+    static class SizeList {
+
+        private Line[] lines = new Line[0];
+
+        void clear() {
+            lines = new Line[0];
+        }
+
+        void set(int line, int position, int size) {
+            if (line >= lines.length) {
+                Line[] newLines = new Line[Math.max(line + 1, lines.length * 2)];
+                System.arraycopy(lines, 0, newLines, 0, lines.length);
+                lines = newLines;
+            }
+            if (lines[line] == null) {
+                lines[line] = new Line();
+            }
+            lines[line].set(position, size);
         }
 
-        return rowsMap;
+        int getMax(int line) {
+            if ((line >= lines.length) || (lines[line] == null)) {
+                return 0;
+            }
+            return lines[line].max;
+        }
+
+        // lines inserted or removed
+        void insert(int line, int count) {
+            if (line >= lines.length) {
+                return;
+            }
+            Line[] newLines = new Line[lines.length + count];
+            System.arraycopy(lines, 0, newLines, 0, line);
+            System.arraycopy(lines, line, newLines, line + count, lines.length - line);
+            lines = newLines;
+        }
+
+        void remove(int line, int count) {
+            if (line >= lines.length) {
+                return;
+            }
+            int end = Math.min(line + count, lines.length);
+            Line[] newLines = new Line[lines.length - (end - line)];
+            System.arraycopy(lines, 0, newLines, 0, line);
+            System.arraycopy(lines, end, newLines, line, lines.length - end);
+            lines = newLines;
+        }
+
+        // positions inserted or removed in every line
+        void insertInAll(int position, int count) {
+            for (Line line : lines) {
+                if (line != null) {
+                    line.insert(position, count);
+                }
+            }
+        }
+
+        void removeFromAll(int position, int count) {
+            for (Line line : lines) {
+                if (line != null) {
+                    line.remove(position, count);
+                }
+            }
+        }
     }
 
-    private Map<Integer, Integer> getColumnsMap(int row) {
-        Map<Integer, Integer> columnsMap = rowSizeCache.get(row);
-        if (columnsMap == null) {
-            columnsMap = new HashMap<Integer, Integer>();
-            rowSizeCache.put(row, columnsMap);
+    // 0 means no size
+    private static class Line {
+
+        private int[] sizes = new int[16];
+        private int max;
+        private int maxCount;
+
+        void set(int position, int size) {
+            if (position >= sizes.length) {
+                int[] newSizes = new int[Math.max(position + 1, sizes.length * 2)];
+                System.arraycopy(sizes, 0, newSizes, 0, sizes.length);
+                sizes = newSizes;
+            }
+            int old = sizes[position];
+            sizes[position] = size;
+            if (size > max) {
+                max = size;
+                maxCount = 1;
+            } else if (size == max) {
+                maxCount++;
+            }
+            if ((old == max) && (old > 0) && (--maxCount == 0)) {
+                computeMax();
+            }
+        }
+
+        void insert(int position, int count) {
+            if (position >= sizes.length) {
+                return;
+            }
+            int[] newSizes = new int[sizes.length + count];
+            System.arraycopy(sizes, 0, newSizes, 0, position);
+            System.arraycopy(sizes, position, newSizes, position + count, sizes.length - position);
+            sizes = newSizes;
+        }
+
+        void remove(int position, int count) {
+            if (position >= sizes.length) {
+                return;
+            }
+            int end = Math.min(position + count, sizes.length);
+            boolean removedMax = false;
+            for (int i = position; i < end; i++) {
+                if ((sizes[i] == max) && (max > 0)) {
+                    maxCount--;
+                    removedMax = true;
+                }
+            }
+            System.arraycopy(sizes, end, sizes, position, sizes.length - end);
+            Arrays.fill(sizes, sizes.length - (end - position), sizes.length, 0);
+            if (removedMax && (maxCount == 0)) {
+                computeMax();
+            }
         }
 
-        return columnsMap;
+        private void computeMax() {
+            max = 0;
+            maxCount = 0;
+            for (int size : sizes) {
+                if (size > max) {
+                    max = size;
+                    maxCount = 1;
+                } else if ((size == max) && (size > 0)) {
+                    maxCount++;
+                }
+            }
+        }
     }
 
 }
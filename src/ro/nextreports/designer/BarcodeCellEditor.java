@@ -36,12 +36,12 @@ import javax.swing.SwingUtilities;
 import org.jdesktop.swingx.JXPanel;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.band.BarcodeBandElement;
 
 /**
@@ -102,11 +102,11 @@ public class BarcodeCellEditor extends DefaultGridCellEditor  {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             bandElement.setBarcodeType(panel.getType());
             bandElement.setValue(panel.getValue());
             bandElement.setColumn(panel.isColumn());
-            registerUndoRedo(oldLayout, I18NSupport.getString("edit.barcode"), I18NSupport.getString("edit.barcode.insert"));            
+            registerUndoRedo(cellsEdit, I18NSupport.getString("edit.barcode"), I18NSupport.getString("edit.barcode.insert"));            
             return bandElement;
         }
 
@@ -1,29 +1,176 @@
 package ro.nextreports.designer;
 
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.engine.queryexec.QueryParameter;
 import ro.nextreports.engine.util.NameType;
-import ro.nextreports.server.api.client.Md5PasswordEncoder;
 
+/**
+ * Bounded LRU cache for the columns returned by a query.
+ *
+ * An entry is identified by data source name, normalized sql and parameters signature (name, type and selection
+ * for every parameter), so more reports and more data sources can be kept in cache at the same time.
+ */
 public class Cache {
-	
-	private static Map<String, List<NameType>> columnsCache = new HashMap<String, List<NameType>>();
-	
-	public static String getColumnsKey(String s) {
-    	Md5PasswordEncoder encoder = new Md5PasswordEncoder();
-    	return encoder.encode(s);
-    }
-		
-	public static List<NameType> getColumns(String key) {
-		return columnsCache.get(key);
-	}
-	
-	public static void setColumns(String key, List<NameType> columns) {
+
+	private static final Log LOG = LogFactory.getLog(Cache.class);
+
+	private static final int DEFAULT_COLUMNS_CACHE_SIZE = 50;
+
+	private static Map<ColumnsKey, List<NameType>> columnsCache = new LinkedHashMap<ColumnsKey, List<NameType>>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<ColumnsKey, List<NameType>> eldest) {
+			return size() > getColumnsCacheSize();
+		}
+
+	};
+
+	private static long hits;
+	private static long misses;
+
+	public static synchronized List<NameType> getColumns(DataSource dataSource, String sql, Map<String, QueryParameter> params) {
+		List<NameType> columns = columnsCache.get(new ColumnsKey(dataSource, sql, params));
+		if (columns == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(getStatistics());
+		}
+		return columns;
+	}
+
+	public static synchronized void setColumns(DataSource dataSource, String sql, Map<String, QueryParameter> params, List<NameType> columns) {
+		columnsCache.put(new ColumnsKey(dataSource, sql, params), columns);
+	}
+
+	/**
+	 * Remove all cached entries for a data source
+	 *
+	 * @param dataSourceName data source name
+	 */
+	public static synchronized void invalidateColumns(String dataSourceName) {
+		for (Iterator<ColumnsKey> it = columnsCache.keySet().iterator(); it.hasNext();) {
+			if (it.next().dataSourceName.equals(dataSourceName)) {
+				it.remove();
+			}
+		}
+	}
+
+	public static synchronized void clear() {
 		columnsCache.clear();
-		columnsCache.put(key, columns);
 	}
 
+	public static synchronized long getHits() {
+		return hits;
+	}
+
+	public static synchronized long getMisses() {
+		return misses;
+	}
+
+	public static synchronized String getStatistics() {
+		return "Columns cache : size=" + columnsCache.size() + " hits=" + hits + " misses=" + misses;
+	}
+
+	private static int getColumnsCacheSize() {
+		return Globals.getConfig().getInt("columns.cache.size", DEFAULT_COLUMNS_CACHE_SIZE);
+	}
+
+	// white spaces outside quotes and comments are not relevant for the result columns;
+	// comments are kept as they are (with the new line ending a line comment), so text
+	// commented out is never joined with the next line
+	static String normalize(String sql) {
+		if (sql == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(sql.length());
+		char quote = 0;
+		boolean space = false;
+		int i = 0;
+		int n = sql.length();
+		while (i < n) {
+			char c = sql.charAt(i);
+			if (quote != 0) {
+				sb.append(c);
+				if (c == quote) {
+					quote = 0;
+				}
+				i++;
+			} else if (Character.isWhitespace(c)) {
+				space = true;
+				i++;
+			} else {
+				if (space && (sb.length() > 0)) {
+					sb.append(' ');
+				}
+				space = false;
+				int end;
+				if (sql.startsWith("--", i)) {
+					end = sql.indexOf('\n', i);
+					end = (end < 0) ? n : end + 1;
+				} else if (sql.startsWith("/*", i)) {
+					end = sql.indexOf("*/", i + 2);
+					end = (end < 0) ? n : end + 2;
+				} else {
+					if ((c == '\'') || (c == '"')) {
+						quote = c;
+					}
+					end = i + 1;
+				}
+				sb.append(sql, i, end);
+				i = end;
+			}
+		}
+		return sb.toString();
+	}
+
+	private static class ColumnsKey {
+
+		private String dataSourceName;
+		private String sql;
+		private String paramsSignature;
+
+		public ColumnsKey(DataSource dataSource, String sql, Map<String, QueryParameter> params) {
+			this.dataSourceName = (dataSource == null) ? "" : dataSource.getName();
+			this.sql = normalize(sql);
+			StringBuilder sb = new StringBuilder();
+			if (params != null) {
+				for (QueryParameter param : new TreeMap<String, QueryParameter>(params).values()) {
+					sb.append(param.getName()).append(':').append(param.getValueClassName()).append(':').
+						append(param.getSelection()).append(';');
+				}
+			}
+			this.paramsSignature = sb.toString();
+		}
+
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			ColumnsKey that = (ColumnsKey) o;
+			return dataSourceName.equals(that.dataSourceName) && sql.equals(that.sql) &&
+					paramsSignature.equals(that.paramsSignature);
+		}
+
+		public int hashCode() {
+			int result = dataSourceName.hashCode();
+			result = 31 * result + sql.hashCode();
+			result = 31 * result + paramsSignature.hashCode();
+			return result;
+		}
+
+	}
 
 }
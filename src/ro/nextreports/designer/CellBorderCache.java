@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.BorderFactory;
+import javax.swing.border.CompoundBorder;
+
+import ro.nextreports.designer.property.CustomLineBorder;
+
+import ro.nextreports.engine.band.Border;
+import ro.nextreports.engine.band.Padding;
+
+/**
+ * Shared Swing borders and fonts used to render report cells. Borders are kept by the values of the
+ * engine border and padding (not by the engine objects, which are mutable), so cells with the same
+ * look use the same instances and rendering an unchanged cell does not allocate anything.
+ *
+ * Must be used only in the event dispatch thread.
+ */
+class CellBorderCache {
+
+	private static final int MAX_BORDERS = 256;
+	private static final int MAX_FONTS = 64;
+
+	private final Map<BorderKey, javax.swing.border.Border> borders =
+			new LinkedHashMap<BorderKey, javax.swing.border.Border>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<BorderKey, javax.swing.border.Border> eldest) {
+			return size() > MAX_BORDERS;
+		}
+	};
+
+	private final Map<Font, Font> fonts = new LinkedHashMap<Font, Font>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<Font, Font> eldest) {
+			return size() > MAX_FONTS;
+		}
+	};
+
+	// reused for lookups
+	private final BorderKey probe = new BorderKey();
+
+	/**
+	 * Get the swing border for an engine border and padding
+	 *
+	 * @param border engine border, may be null
+	 * @param padding padding, may be null
+	 * @return swing border or null if both border and padding are null
+	 */
+	public javax.swing.border.Border getBorder(Border border, Padding padding) {
+		if ((border == null) && (padding == null)) {
+			return null;
+		}
+		probe.set(border, padding);
+		javax.swing.border.Border result = borders.get(probe);
+		if (result == null) {
+			BorderKey key = probe.copy();
+			result = key.createBorder();
+			borders.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Get a shared font equal to the given font
+	 *
+	 * @param font font
+	 * @return shared font
+	 */
+	public Font getFont(Font font) {
+		if (font == null) {
+			return null;
+		}
+		Font result = fonts.get(font);
+		if (result == null) {
+			result = font;
+			fonts.put(font, font);
+		}
+		return result;
+	}
+
+	public int getBorderCount() {
+		return borders.size();
+	}
+
+	public void clear() {
+		borders.clear();
+		fonts.clear();
+	}
+
+	private static class BorderKey {
+
+		private boolean hasBorder;
+		private int left, right, top, bottom;
+		private Color leftColor, rightColor, topColor, bottomColor;
+		private boolean hasPadding;
+		private int paddingLeft, paddingRight, paddingTop, paddingBottom;
+
+		void set(Border border, Padding padding) {
+			hasBorder = (border != null);
+			if (hasBorder) {
+				left = border.getLeft();
+				right = border.getRight();
+				top = border.getTop();
+				bottom = border.getBottom();
+				leftColor = border.getLeftColor();
+				rightColor = border.getRightColor();
+				topColor = border.getTopColor();
+				bottomColor = border.getBottomColor();
+			} else {
+				left = right = top = bottom = 0;
+				leftColor = rightColor = topColor = bottomColor = null;
+			}
+			hasPadding = (padding != null);
+			if (hasPadding) {
+				paddingLeft = padding.getLeft();
+				paddingRight = padding.getRight();
+				paddingTop = padding.getTop();
+				paddingBottom = padding.getBottom();
+			} else {
+				paddingLeft = paddingRight = paddingTop = paddingBottom = 0;
+			}
+		}
+
+		BorderKey copy() {
+			BorderKey key = new BorderKey();
+			key.hasBorder = hasBorder;
+			key.left = left;
+			key.right = right;
+			key.top = top;
+			key.bottom = bottom;
+			key.leftColor = leftColor;
+			key.rightColor = rightColor;
+			key.topColor = topColor;
+			key.bottomColor = bottomColor;
+			key.hasPadding = hasPadding;
+			key.paddingLeft = paddingLeft;
+			key.paddingRight = paddingRight;
+			key.paddingTop = paddingTop;
+			key.paddingBottom = paddingBottom;
+			return key;
+		}
+
+		// same borders as ReportCellRenderer created for every cell
+		javax.swing.border.Border createBorder() {
+			javax.swing.border.Border inner = BorderFactory.createEmptyBorder(paddingTop, paddingLeft,
+					paddingBottom, paddingRight);
+			if (!hasBorder) {
+				return inner;
+			}
+			javax.swing.border.Border outer = new CustomLineBorder(left, right, top, bottom,
+					leftColor, rightColor, topColor, bottomColor);
+			return new CompoundBorder(outer, inner);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof BorderKey)) {
+				return false;
+			}
+			BorderKey key = (BorderKey) o;
+			return (hasBorder == key.hasBorder) && (left == key.left) && (right == key.right) &&
+					(top == key.top) && (bottom == key.bottom) &&
+					equals(leftColor, key.leftColor) && equals(rightColor, key.rightColor) &&
+					equals(topColor, key.topColor) && equals(bottomColor, key.bottomColor) &&
+					(hasPadding == key.hasPadding) && (paddingLeft == key.paddingLeft) &&
+					(paddingRight == key.paddingRight) && (paddingTop == key.paddingTop) &&
+					(paddingBottom == key.paddingBottom);
+		}
+
+		private static boolean equals(Color c1, Color c2) {
+			return (c1 == null) ? (c2 == null) : c1.equals(c2);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = hasBorder ? 1 : 0;
+			result = 31 * result + left;
+			result = 31 * result + right;
+			result = 31 * result + top;
+			result = 31 * result + bottom;
+			result = 31 * result + ((leftColor == null) ? 0 : leftColor.hashCode());
+			result = 31 * result + ((rightColor == null) ? 0 : rightColor.hashCode());
+			result = 31 * result + ((topColor == null) ? 0 : topColor.hashCode());
+			result = 31 * result + ((bottomColor == null) ? 0 : bottomColor.hashCode());
+			result = 31 * result + (hasPadding ? 1 : 0);
+			result = 31 * result + paddingLeft;
+			result = 31 * result + paddingRight;
+			result = 31 * result + paddingTop;
+			result = 31 * result + paddingBottom;
+			return result;
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.swing.*;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.chart.ChartUtil;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.querybuilder.BrowserDialog;
@@ -29,7 +30,6 @@ import ro.nextreports.designer.querybuilder.BrowserPanel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.band.ChartBandElement;
 import ro.nextreports.engine.chart.Chart;
 
@@ -95,11 +95,11 @@ public class ChartCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             String chartPath = browser.getSelectedFilePath();
     		Chart chart = ChartUtil.loadChart(chartPath);
     		bandElement.setChart(chart);             		
-            registerUndoRedo(oldLayout, I18NSupport.getString("edit.chart"), I18NSupport.getString("edit.chart.insert"));
+            registerUndoRedo(cellsEdit, I18NSupport.getString("edit.chart"), I18NSupport.getString("edit.chart.insert"));
             return bandElement;
         }
 
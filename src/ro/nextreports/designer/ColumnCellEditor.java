@@ -26,6 +26,7 @@ import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.grid.JGrid;
 import ro.nextreports.designer.property.CustomLineBorder;
@@ -34,7 +35,6 @@ import ro.nextreports.designer.util.Show;
 
 import ro.nextreports.engine.band.ColumnBandElement;
 import ro.nextreports.engine.band.Padding;
-import ro.nextreports.engine.ReportLayout;
 
 /**
  * @author Decebal Suiu
@@ -107,10 +107,10 @@ public class ColumnCellEditor extends DefaultGridCellEditor {
 			return super.getCellEditorValue();
 		}
 
-		ReportLayout oldLayout = getOldLayout();
+		CellsEdit cellsEdit = getCellsEdit();
         String text = (String) super.getCellEditorValue();
 		bandElement.setColumn(text);
-        registerUndoRedo(oldLayout,I18NSupport.getString("edit.column"), I18NSupport.getString("edit.column.insert"));
+        registerUndoRedo(cellsEdit, I18NSupport.getString("edit.column"), I18NSupport.getString("edit.column.insert"));
 
         return bandElement;
 	}
@@ -25,6 +25,7 @@ import ro.nextreports.engine.exporter.util.variable.Variable;
 import javax.swing.*;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
@@ -152,10 +153,10 @@ public class ExpressionCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             bandElement.setExpressionName(panel.getExpressionName());
             bandElement.setExpression(panel.getExpression());            
-            registerUndoRedo(oldLayout, I18NSupport.getString("expression.edit"), I18NSupport.getString("expression.add"));
+            registerUndoRedo(cellsEdit, I18NSupport.getString("expression.edit"), I18NSupport.getString("expression.add"));
             return bandElement;
         }
 
@@ -19,9 +19,6 @@ package ro.nextreports.designer;
 import java.io.*;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.text.Collator;
 
 import javax.swing.JFileChooser;
 
@@ -32,13 +29,13 @@ import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.datasource.DataSourceManager;
 import ro.nextreports.designer.datasource.DefaultDataSourceManager;
 import ro.nextreports.designer.persistence.FileReportPersistence;
-import ro.nextreports.designer.util.FileUtil;
+import ro.nextreports.designer.persistence.ReportCache;
+import ro.nextreports.designer.persistence.ReportStore;
+import ro.nextreports.designer.persistence.RepositoryIndex;
+import ro.nextreports.designer.persistence.XStreamPool;
 import ro.nextreports.designer.util.file.QueryFilter;
 
 import ro.nextreports.engine.Report;
-import ro.nextreports.engine.XStreamFactory;
-import ro.nextreports.engine.util.converter.ConverterUtil;
-import com.thoughtworks.xstream.XStream;
 
 /**
  * @author Decebal Suiu
@@ -76,33 +73,35 @@ public class FormLoader {
     public Report load(String path, boolean setPath) {
     	
     	// convert xml if needed before load
-        ConverterUtil.convertIfNeeded(path);
-    	
-        XStream xstream = XStreamFactory.createXStream();
-        FileInputStream fis = null;
-        InputStreamReader reader = null;
+        ReportCache.convertIfNeeded(path);
+
         try {
-            fis = new FileInputStream(path);
+            Report report = ReportCache.loadReport(path);
             if (setPath) {
                 Globals.setCurrentReportAbsolutePath(path);
             }
-            reader = new InputStreamReader(fis, "UTF-8");
-            return (Report) xstream.fromXML(reader);
+            return report;
         } catch (Exception e1) {
             e1.printStackTrace();
             LOG.error(e1.getMessage(), e1);
             return null;
-        } finally {
-            if (fis != null) {
-                try {
-                    fis.close();
-                } catch (IOException e1) {
-                    e1.printStackTrace();
-                }
-            }
         }
     }
 
+    /**
+     * Load report without layout, when only name, sql or parameters are needed
+     *
+     * @param path report path
+     * @return report without layout if a binary copy exists, otherwise entire report
+     */
+    public Report loadHeader(String path) {
+        Report report = ReportStore.loadHeader(new File(path));
+        if (report != null) {
+            return report;
+        }
+        return load(path, false);
+    }
+
     private void askLoad() {
         JFileChooser fileChooser = new JFileChooser(new File(System.getProperty("user.dir")));
         fileChooser.showOpenDialog(Globals.getMainFrame());
@@ -158,44 +157,15 @@ public class FormLoader {
         if (ds == null) {
             return result;
         }
-        File file = new File(folderPath);
-        File[] files = file.listFiles();
-        if (files == null) {
-            return new ArrayList<File>();
-        }
-
-        for (int i = 0, size = files.length; i < size; i++) {
-//            System.out.println(names[i]);
-            int index = files[i].getName().indexOf(extension);
-            if (index != -1) {
-                if (files[i].getName().endsWith(extension)) {
-                    result.add(files[i]);
-                }
-            } else {
-                if (file.isDirectory()) {
-                    result.add(files[i]);
-                }
-            }
+        // already sorted with folders first
+        for (RepositoryIndex.Entry entry : RepositoryIndex.list(folderPath, extension)) {
+            result.add(entry.getFile());
         }
-        Collections.sort(result, new Comparator<File>() {
-            public int compare(File o1, File o2) {
-                if ((o1.isDirectory() && o2.isDirectory()) || (o1.isFile() && o2.isFile())) {
-                    return Collator.getInstance().compare(o1.getName(), o2.getName());
-                } else {
-                    if (o1.isDirectory()) {
-                        return -1;
-                    } else {
-                        return 1;
-                    }
-                }
-            }
-        });
         return result;
     }
 
     public int getReportCount() {
-        return FileUtil.listFiles(new File(FileReportPersistence.getReportsRelativePath()),
-                new QueryFilter(), true).size();
+        return RepositoryIndex.count(FileReportPersistence.getReportsRelativePath(), QueryFilter.QUERY_EXTENSION);
 
 
     }
@@ -219,10 +189,7 @@ public class FormLoader {
         }
 
         private void openXStream() throws Exception {
-            XStream xstream = XStreamFactory.createXStream();
-            Reader reader = new FileReader(file);
-            report = (Report) xstream.fromXML(reader);
-            reader.close();
+            report = (Report) XStreamPool.ENGINE.fromXML(file);
         }
 
         public Report getReport() {
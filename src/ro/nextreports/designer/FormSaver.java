@@ -17,24 +17,24 @@
 package ro.nextreports.designer;
 
 import java.io.File;
-import java.io.FileOutputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.thoughtworks.xstream.XStream;
-
 import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.datasource.DataSourceManager;
 import ro.nextreports.designer.datasource.DefaultDataSourceManager;
+import ro.nextreports.designer.persistence.ContentIndex;
 import ro.nextreports.designer.persistence.FileReportPersistence;
+import ro.nextreports.designer.persistence.ReportCache;
+import ro.nextreports.designer.persistence.ReportStore;
+import ro.nextreports.designer.persistence.XStreamPool;
 import ro.nextreports.designer.querybuilder.DBObject;
 import ro.nextreports.designer.querybuilder.SaveEntityDialog;
 import ro.nextreports.designer.querybuilder.SaveEntityPanel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.engine.Report;
-import ro.nextreports.engine.XStreamFactory;
 
 /**
  * @author Decebal Suiu
@@ -174,17 +174,20 @@ public class FormSaver {
 	}
 
 	private void saveXStream(File file, Report report) throws Exception {
-		XStream xstream = XStreamFactory.createXStream();
-		FileOutputStream fos = new FileOutputStream(file);
 		if (report == null) {
 			report = ro.nextreports.designer.Globals.getMainFrame().getQueryBuilderPanel().createReport(file.getName());
 			report.setLayout(LayoutHelper.getReportLayout());
 		}
-		xstream.toXML(report, fos);
-		fos.close();
+		ReportCache.remove(file.getAbsolutePath());
+		XStreamPool.ENGINE.toXML(report, file);
+		ReportStore.save(file, report);
+		ContentIndex.update(file);
 	}
 
 	public boolean deleteReport(String path) {
+		ContentIndex.remove(path);
+		ReportCache.remove(path);
+		ReportStore.delete(path);
 		return new File(path).delete();
 	}
 
@@ -195,6 +198,9 @@ public class FormSaver {
 		File newFile = new File(parentPath + File.separator + newName + REPORT_EXTENSION_SEPARATOR + REPORT_EXTENSION);
 		boolean result = file.renameTo(newFile);
 		if (result) {
+			ContentIndex.remove(file.getAbsolutePath());
+			ReportCache.remove(file.getAbsolutePath());
+			ReportStore.delete(file.getAbsolutePath());
 			if (file.getAbsolutePath().equals(Globals.getCurrentReportAbsolutePath())) {
 				Globals.setCurrentReportAbsolutePath(newFile.getAbsolutePath());
 			}
@@ -30,12 +30,12 @@ import javax.swing.*;
 import org.jdesktop.swingx.JXPanel;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.util.ReportUtil;
 import ro.nextreports.engine.band.FunctionBandElement;
 import ro.nextreports.engine.exporter.util.function.FunctionFactory;
@@ -116,11 +116,11 @@ public class FunctionCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             bandElement.setFunction(panel.getFunctionName());
             bandElement.setColumn(panel.getColumn());
             bandElement.setExpression(panel.isExpression());
-            registerUndoRedo(oldLayout, I18NSupport.getString("edit.function"), I18NSupport.getString("edit.function.insert"));            
+            registerUndoRedo(cellsEdit, I18NSupport.getString("edit.function"), I18NSupport.getString("edit.function.insert"));            
             return bandElement;
         }
 
@@ -34,6 +34,7 @@ import ro.nextreports.designer.chart.ChartDesignerPanel;
 import ro.nextreports.designer.chart.ChartLayoutPanel;
 import ro.nextreports.designer.config.Config;
 import ro.nextreports.designer.config.ConfigFactory;
+import ro.nextreports.designer.datasource.ConnectionPool;
 import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.datasource.exception.ConnectionException;
 import ro.nextreports.designer.dbviewer.DefaultDBViewer;
@@ -158,7 +159,7 @@ public class Globals {
 	public static Connection createConnection(DataSource dataSource)
 			throws ConnectionException {
 		closeConnection();
-		connection = createTempConnection(dataSource);
+		connection = createDirectConnection(dataSource);
         if (Globals.getMainMenuBar() != null) {
             Globals.getMainMenuBar().actionUpdate(connection !=  null);
         }
@@ -179,7 +180,21 @@ public class Globals {
 		}
 	}
 
-    public static Connection createTempConnection(final DataSource dataSource)
+    /**
+     * Get a connection from the data source pool. The connection is returned to the pool when it is closed.
+     */
+    public static Connection createTempConnection(DataSource dataSource)
+			throws ConnectionException {
+    	if (!isConnectionPoolEnabled()) {
+    		return createDirectConnection(dataSource);
+    	}
+    	return ConnectionPool.getInstance(dataSource).getConnection();
+    }
+
+    /**
+     * Create a new physical connection (not pooled).
+     */
+    public static Connection createDirectConnection(final DataSource dataSource)
 			throws ConnectionException {
 		// get config
 		Config config = getConfig();
@@ -262,6 +277,101 @@ public class Globals {
 		return Integer.parseInt(s);
 	}
 
+	public static boolean isConnectionPoolEnabled() {
+		Config config = getConfig();
+		return config.getBoolean("connection.pool.enabled", true);
+	}
+
+	public static int getConnectionPoolSize() {
+		Config config = getConfig();
+		return config.getInt("connection.pool.size", 5);
+	}
+
+	public static int getConnectionPoolIdleTimeout() {
+		Config config = getConfig();
+		return config.getInt("connection.pool.idle.timeout", 300);
+	}
+
+	public static boolean isCatalogPrefetch() {
+		Config config = getConfig();
+		return config.getBoolean("catalog.prefetch", false);
+	}
+
+	public static boolean isCatalogCache() {
+		Config config = getConfig();
+		return config.getBoolean("catalog.cache", true);
+	}
+
+	public static boolean isRepositoryIndex() {
+		Config config = getConfig();
+		return config.getBoolean("repository.index", true);
+	}
+
+	public static boolean isContentIndex() {
+		Config config = getConfig();
+		return config.getBoolean("content.index", true);
+	}
+
+	public static boolean isReportBinary() {
+		Config config = getConfig();
+		return config.getBoolean("report.binary", false);
+	}
+
+	public static int getCatalogPrefetchThreads() {
+		Config config = getConfig();
+		return config.getInt("catalog.prefetch.threads", 3);
+	}
+
+	public static int getSqlValidationThreads() {
+		Config config = getConfig();
+		return config.getInt("sql.validation.threads", 4);
+	}
+
+	public static int getQueryResultWindow() {
+		Config config = getConfig();
+		return config.getInt("query.result.window", 10000);
+	}
+
+	/**
+	 * Get the memory which can be kept by layout undo / redo edits
+	 *
+	 * @return limit in bytes, 0 for no limit
+	 */
+	public static long getUndoMemoryLimit() {
+		Config config = getConfig();
+		return config.getInt("undo.memory.limit", 32) * 1024L * 1024L;
+	}
+
+	public static boolean isExportStreaming() {
+		Config config = getConfig();
+		return config.getBoolean("export.streaming", false);
+	}
+
+	public static int getExportFetchSize() {
+		Config config = getConfig();
+		return config.getInt("export.fetch.size", 1000);
+	}
+
+	public static boolean isExportAsyncWrite() {
+		Config config = getConfig();
+		return config.getBoolean("export.async.write", false);
+	}
+
+	public static int getExportFormatsMemoryRows() {
+		Config config = getConfig();
+		return config.getInt("export.formats.memory.rows", 100000);
+	}
+
+	public static int getExportJobsThreads() {
+		Config config = getConfig();
+		return config.getInt("export.jobs.threads", 4);
+	}
+
+	public static int getExportJobsDataSourceLimit() {
+		Config config = getConfig();
+		return config.getInt("export.jobs.datasource.limit", 2);
+	}
+
 	public static int getQueryTimeout() {
 		Config config = getConfig();
 		String s = config.getString("query.timeout");
@@ -17,11 +17,11 @@
 package ro.nextreports.designer;
 
 import ro.nextreports.engine.band.HyperlinkBandElement;
-import ro.nextreports.engine.ReportLayout;
 
 import javax.swing.*;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.property.HyperlinkPanel;
 import ro.nextreports.designer.ui.BaseDialog;
@@ -88,9 +88,9 @@ public class HyperlinkCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             bandElement.setHyperlink(panel.getHyperLink());
-            registerUndoRedo(oldLayout, I18NSupport.getString("url.dialog.edit.title"), I18NSupport.getString("url.dialog.title"));
+            registerUndoRedo(cellsEdit, I18NSupport.getString("url.dialog.edit.title"), I18NSupport.getString("url.dialog.title"));
             return bandElement;
         }
 
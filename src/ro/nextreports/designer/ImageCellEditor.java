@@ -17,11 +17,11 @@
 package ro.nextreports.designer;
 
 import ro.nextreports.engine.band.ImageBandElement;
-import ro.nextreports.engine.ReportLayout;
 
 import javax.swing.*;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.util.FileUtil;
 import ro.nextreports.designer.util.I18NSupport;
@@ -101,7 +101,7 @@ public class ImageCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             bandElement.setImage(fc.getSelectedFile().getName());
             ReporterPreferencesManager.getInstance().storeParameter(ReporterPreferencesManager.IMAGE_PATH_KEY, fc.getSelectedFile().getAbsolutePath());
             try {
@@ -109,7 +109,7 @@ public class ImageCellEditor extends DefaultGridCellEditor {
             } catch (IOException e) {
                 e.printStackTrace();  
             }
-            registerUndoRedo(oldLayout, I18NSupport.getString("edit.image"), I18NSupport.getString("edit.image.insert"));
+            registerUndoRedo(cellsEdit, I18NSupport.getString("edit.image"), I18NSupport.getString("edit.image.insert"));
             return bandElement;
         }
 
@@ -18,13 +18,13 @@ package ro.nextreports.designer;
 
 import ro.nextreports.engine.band.Padding;
 import ro.nextreports.engine.band.ParameterBandElement;
-import ro.nextreports.engine.ReportLayout;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.CompoundBorder;
 
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.grid.JGrid;
 import ro.nextreports.designer.property.CustomLineBorder;
@@ -91,10 +91,10 @@ public class ParameterCellEditor extends DefaultGridCellEditor {
 			return super.getCellEditorValue();
 		}
 
-		ReportLayout oldLayout = getOldLayout();
+		CellsEdit cellsEdit = getCellsEdit();
         String text = (String) super.getCellEditorValue();
 		bandElement.setParameter(text);
-        registerUndoRedo(oldLayout, I18NSupport.getString("edit.parameter"), I18NSupport.getString("edit.parameter.insert"));
+        registerUndoRedo(cellsEdit, I18NSupport.getString("edit.parameter"), I18NSupport.getString("edit.parameter.insert"));
 
         return bandElement;
 	}
@@ -26,6 +26,7 @@ import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
 import ro.nextreports.designer.action.report.layout.cell.ClearCellAction;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.querybuilder.BrowserDialog;
 import ro.nextreports.designer.querybuilder.BrowserPanel;
@@ -34,7 +35,6 @@ import ro.nextreports.designer.util.NextReportsUtil;
 import ro.nextreports.designer.util.Show;
 
 import ro.nextreports.engine.Report;
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.band.ReportBandElement;
 import ro.nextreports.engine.util.LoadReportException;
 import ro.nextreports.engine.util.ReportUtil;
@@ -110,7 +110,7 @@ public class ReportCellEditor extends DefaultGridCellEditor {
         }
 
         public Object getCellEditorValue() {
-            ReportLayout oldLayout = getOldLayout();
+            CellsEdit cellsEdit = getCellsEdit();
             String reportPath = browser.getSelectedFilePath();
     		Report report = null;
 			try {
@@ -123,7 +123,7 @@ public class ReportCellEditor extends DefaultGridCellEditor {
 				e.printStackTrace();
 			}
     		bandElement.setReport(report);             		
-            registerUndoRedo(oldLayout, I18NSupport.getString("edit.report"), I18NSupport.getString("edit.report.insert"));
+            registerUndoRedo(cellsEdit, I18NSupport.getString("edit.report"), I18NSupport.getString("edit.report.insert"));
             return bandElement;
         }
 
@@ -17,23 +17,20 @@
 package ro.nextreports.designer;
 
 import java.awt.Component;
-
-import javax.swing.BorderFactory;
-import javax.swing.border.CompoundBorder;
+import java.awt.Font;
 
 import ro.nextreports.designer.grid.DefaultGridCellRenderer;
 import ro.nextreports.designer.grid.JGrid;
-import ro.nextreports.designer.property.CustomLineBorder;
 
 import ro.nextreports.engine.band.BandElement;
-import ro.nextreports.engine.band.Border;
-import ro.nextreports.engine.band.Padding;
 
 /**
  * @author Decebal Suiu
  */
 class ReportCellRenderer extends DefaultGridCellRenderer {
 
+	private final CellBorderCache cache = new CellBorderCache();
+
 	@Override
 	public Component getRendererComponent(int row, int column, Object value,
 			boolean isSelected, boolean hasFocus, JGrid grid) {
@@ -45,27 +42,16 @@ class ReportCellRenderer extends DefaultGridCellRenderer {
             setForeground(element.getForeground());
 			setBackground(element.getBackground());
 		//}
-		Padding padding = element.getPadding();
-        Border border = element.getBorder();
-        if (border != null) {
-            javax.swing.border.Border outer = new CustomLineBorder(border);
-            javax.swing.border.Border inner = null;
-            if (padding != null) {
-                inner = BorderFactory.createEmptyBorder(padding.getTop(), padding.getLeft(),
-                        padding.getBottom(), padding.getRight());
-            } else {
-                inner = BorderFactory.createEmptyBorder(0, 0, 0, 0);
-            }
-            CompoundBorder cBorder = new CompoundBorder(outer, inner);
-            setBorder(cBorder);
-        } else {
-            if (padding != null) {
-                setBorder(BorderFactory.createEmptyBorder(padding.getTop(), padding.getLeft(),
-                        padding.getBottom(), padding.getRight()));
-            }
+        // shared borders and fonts : rendering a cell must not allocate
+        javax.swing.border.Border cellBorder = cache.getBorder(element.getBorder(), element.getPadding());
+        if ((cellBorder != null) && (cellBorder != getBorder())) {
+            setBorder(cellBorder);
         }
 
-        setFont(element.getFont());
+        Font font = cache.getFont(element.getFont());
+        if (font != getFont()) {
+            setFont(font);
+        }
 		setHorizontalAlignment(element.getHorizontalAlign());
         setVerticalAlignment(element.getVerticalAlign());
 
@@ -74,6 +74,7 @@ import ro.nextreports.designer.action.report.layout.cell.UnmergeCellsAction;
 import ro.nextreports.designer.action.report.layout.group.AddGroupAction;
 import ro.nextreports.designer.action.report.layout.group.EditGroupAction;
 import ro.nextreports.designer.action.report.layout.group.RemoveGroupAction;
+import ro.nextreports.designer.grid.AbstractGridModel;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultSpanModel;
@@ -169,9 +170,15 @@ public class ReportGrid extends JGrid implements GridModelListener {
         // clear cache
     	autoFitGridHandler.clearCache();
 
-        // set values
-        for (Band band : reportLayout.getBands()) {
-            setValues(band);
+        // set values : listeners are notified once for all cells
+        AbstractGridModel model = (AbstractGridModel) getModel();
+        model.beginUpdate();
+        try {
+            for (Band band : reportLayout.getBands()) {
+                setValues(band);
+            }
+        } finally {
+            model.endUpdate();
         }
     }
 
@@ -81,7 +81,12 @@ public class ReportGridPanel extends JPanel implements ZoomEventListener {
         return grid.getColumnCount();
     }
 
-    public void insertRows(int row, int column, int rowCount, boolean after) {
+    /**
+     * Insert rows before or after a row
+     *
+     * @return first inserted row
+     */
+    public int insertRows(int row, int column, int rowCount, boolean after) {
         adjustBandLocations(row, rowCount);
         int insertRow = row;
         if (after) {
@@ -95,6 +100,26 @@ public class ReportGridPanel extends JPanel implements ZoomEventListener {
         ((ResizableGrid) grid.getModel()).insertRows(insertRow, rowCount);
         repaintHeaders();
         insertBandRows(insertRow, rowCount);
+        return insertRow;
+    }
+
+    /**
+     * Insert rows in a band before a band row (the band may have no rows).
+     * Used by undo to put back removed rows.
+     */
+    public void insertRows(String bandName, int bandRow, int rowCount) {
+        Band band = LayoutHelper.getReportLayout().getBand(bandName);
+        BandLocation bandLocation = grid.getBandLocation(bandName);
+        int row = bandLocation.getFirstGridRow() + bandRow;
+        bandLocation.adjustRowCount(rowCount);
+        adjustAfterBandLocations(bandName, rowCount);
+        ((ResizableGrid) grid.getModel()).insertRows(row, rowCount);
+        repaintHeaders();
+        if (band.getRowCount() == 0) {
+            band.setElements(new ArrayList<List<BandElement>>());
+            band.setColumnCount(grid.getColumnCount());
+        }
+        insertBandRows(row, rowCount);
     }
 
     // used by tree popup action
@@ -132,7 +157,12 @@ public class ReportGridPanel extends JPanel implements ZoomEventListener {
         repaintHeaders();
     }
 
-    public void insertColumns(int row, int column, int columnCount, boolean after) {
+    /**
+     * Insert columns before or after a column
+     *
+     * @return first inserted column
+     */
+    public int insertColumns(int row, int column, int columnCount, boolean after) {
         int insertedColumn = column;
         if (after) {
             if (Globals.getReportGrid().isCellSpan(row, column)) {
@@ -148,6 +178,7 @@ public class ReportGridPanel extends JPanel implements ZoomEventListener {
 
         // update column width array
         ReportLayoutUtil.updateColumnWidth(Globals.getReportGrid());
+        return insertedColumn;
     }
 
     public void removeColumns(int column, int columnCount) {
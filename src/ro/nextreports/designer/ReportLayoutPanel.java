@@ -60,6 +60,7 @@ import ro.nextreports.designer.action.report.layout.export.ExportToCsvAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToDocxAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToExcelAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToExcelXAction;
+import ro.nextreports.designer.action.report.layout.export.ExportToFormatsAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToHtmlAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToJSONFullAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToJSONSimpleAction;
@@ -285,6 +286,7 @@ public class ReportLayoutPanel extends JPanel implements ChangeListener {
 		dropDownButton.getPopupMenu().add(new ExportToTxtAction(null));
 		dropDownButton.getPopupMenu().add(new ExportToJSONSimpleAction(null));
 		dropDownButton.getPopupMenu().add(new ExportToJSONFullAction(null));
+		dropDownButton.getPopupMenu().add(new ExportToFormatsAction(null));
 		dropDownButton.setAction(new ExportToHtmlAction(null));
 		dropDownButton.addToToolBar(toolBar);
 
@@ -125,35 +125,19 @@ public class ReportLayoutUtil {
     }
 
     public static List<NameType> getAllColumnsForSql(Report report, String sql, DataSource dataSource) throws Exception {
-        List<NameType> columns = new ArrayList<NameType>();    
-        String md5Key = Cache.getColumnsKey(sql);        
-        List<NameType> result = Cache.getColumns(md5Key);
+        // get parameters definition from system
+        Map<String, QueryParameter> params = getParameters(report);
+        List<NameType> result = Cache.getColumns(dataSource, sql, params);
         if (result != null) {        	
         	return result;
         }
+        List<NameType> columns;
         Connection con = null;
         try {
             con = Globals.createTempConnection(dataSource);
             QueryUtil qu = new QueryUtil(con, Globals.getDialect());
-            // get parameters definition from system
-            Map<String, QueryParameter> params = new HashMap<String, QueryParameter>();
-            if (report == null) {
-                ParameterManager paramManager = ParameterManager.getInstance();
-                List<String> paramNames = paramManager.getParameterNames();
-                for (String paramName : paramNames) {
-                    QueryParameter param = paramManager.getParameter(paramName);
-                    if (param == null) {
-                        throw new Exception(I18NSupport.getString("parameter.undefined", paramName));
-                    }
-                    params.put(paramName, param);
-                }
-            } else {
-                for (QueryParameter param : report.getParameters()) {
-                    params.put(param.getName(), param);
-                }
-            }
             columns = qu.getColumns(sql, params);
-            Cache.setColumns(md5Key, columns);
+            Cache.setColumns(dataSource, sql, params, columns);
         } finally {
             if (con != null) {
                 con.close();
@@ -162,20 +146,9 @@ public class ReportLayoutUtil {
         return columns;
     }
 
-    public static List<String> getAllColumnTypesForReport(String sql) throws Exception {
-        List<String> columnTypes = new ArrayList<String>();
-        Connection con = null;
-        String md5Key = Cache.getColumnsKey(sql);        
-        List<NameType> result = Cache.getColumns(md5Key);
-        if (result != null) {        	
-        	return ReportUtil.getColumnTypes(result);
-        }
-        try {
-            con = Globals.createTempConnection(
-                    DefaultDataSourceManager.getInstance().getConnectedDataSource());
-            QueryUtil qu = new QueryUtil(con, Globals.getDialect());
-            // get parameters definition from system
-            Map<String, QueryParameter> params = new HashMap<String, QueryParameter>();
+    private static Map<String, QueryParameter> getParameters(Report report) throws Exception {
+        Map<String, QueryParameter> params = new HashMap<String, QueryParameter>();
+        if (report == null) {
             ParameterManager paramManager = ParameterManager.getInstance();
             List<String> paramNames = paramManager.getParameterNames();
             for (String paramName : paramNames) {
@@ -185,49 +158,21 @@ public class ReportLayoutUtil {
                 }
                 params.put(paramName, param);
             }
-            List <NameType>  columns = qu.getColumns(sql, params);
-            columnTypes = ReportUtil.getColumnTypes(columns);
-            Cache.setColumns(md5Key, columns);
-        } finally {
-            if (con != null) {
-                con.close();
+        } else {
+            for (QueryParameter param : report.getParameters()) {
+                params.put(param.getName(), param);
             }
         }
+        return params;
+    }
 
-        return columnTypes;
+    public static List<String> getAllColumnTypesForReport(String sql) throws Exception {
+        List<NameType> columns = getAllColumnsForReport(sql);
+        return ReportUtil.getColumnTypes(columns);
     }
 
     public static List<NameType> getAllColumnsForReport(String sql) throws Exception {
-        List<NameType> columnTypes = new ArrayList<NameType>();
-        String md5Key = Cache.getColumnsKey(sql);
-        List<NameType> result = Cache.getColumns(md5Key);
-        if (result != null) {        	
-        	return result;
-        }
-        Connection con = null;
-        try {
-            con = Globals.createTempConnection(
-                    DefaultDataSourceManager.getInstance().getConnectedDataSource());
-            QueryUtil qu = new QueryUtil(con, Globals.getDialect());
-            // get parameters definition from system
-            Map<String, QueryParameter> params = new HashMap<String, QueryParameter>();
-            ParameterManager paramManager = ParameterManager.getInstance();
-            List<String> paramNames = paramManager.getParameterNames();
-            for (String paramName : paramNames) {
-                QueryParameter param = paramManager.getParameter(paramName);
-                if (param == null) {
-                    throw new Exception(I18NSupport.getString("parameter.undefined", paramName));
-                }
-                params.put(paramName, param);
-            }
-            columnTypes = qu.getColumns(sql, params);
-            Cache.setColumns(md5Key, columnTypes);
-        } finally {
-            if (con != null) {
-                con.close();
-            }
-        }       
-        return columnTypes;
+        return getAllColumnsForSql(null, sql, DefaultDataSourceManager.getInstance().getConnectedDataSource());
     }
 
     public static List<String> getColumnNames(List<NameType> columns) {
@@ -241,35 +186,7 @@ public class ReportLayoutUtil {
     }
 
     public static String getColumnTypeForReportColumn(String sql, String column) throws Exception {
-        Connection con = null;  
-        String md5Key = Cache.getColumnsKey(sql);        
-        List<NameType> result = Cache.getColumns(md5Key);
-        if (result != null) {        	
-        	return getColumnTypeByName(column, result);
-        }
-        try {
-            con = Globals.createTempConnection(
-                    DefaultDataSourceManager.getInstance().getConnectedDataSource());
-            QueryUtil qu = new QueryUtil(con, Globals.getDialect());
-            // get parameters definition from system
-            Map<String, QueryParameter> params = new HashMap<String, QueryParameter>();
-            ParameterManager paramManager = ParameterManager.getInstance();
-            List<String> paramNames = paramManager.getParameterNames();
-            for (String paramName : paramNames) {
-                QueryParameter param = paramManager.getParameter(paramName);
-                if (param == null) {
-                    throw new Exception(I18NSupport.getString("parameter.undefined", paramName));
-                }
-                params.put(paramName, param);
-            }
-            List<NameType> columns = qu.getColumns(sql, params);
-            Cache.setColumns(md5Key, columns);
-            return getColumnTypeByName(column, columns);
-        } finally {
-            if (con != null) {
-                con.close();
-            }
-        }        
+        return getColumnTypeByName(column, getAllColumnsForReport(sql));
     }
     
     private static String getColumnTypeByName(String columnName, List<NameType> list) {
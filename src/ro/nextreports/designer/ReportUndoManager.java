@@ -27,6 +27,7 @@ import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoManager;
 import javax.swing.undo.UndoableEdit;
 
+import ro.nextreports.designer.action.undo.SizedEdit;
 import ro.nextreports.designer.ui.GlobalHotkeyManager;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
@@ -72,10 +73,47 @@ public class ReportUndoManager extends UndoManager {
 	@Override
 	public synchronized boolean addEdit(UndoableEdit anEdit) {
 		boolean result = super.addEdit(anEdit);
+		trimToMemoryLimit();
 		refreshUndoRedo();
 		return result;
 	}
 
+	/**
+	 * Get the memory kept by all edits (only edits which know their size are counted)
+	 *
+	 * @return size in bytes
+	 */
+	public synchronized long getMemorySize() {
+		long size = 0;
+		for (UndoableEdit edit : edits) {
+			size += getSize(edit);
+		}
+		return size;
+	}
+
+	// discard the oldest edits if they keep more memory than the limit (the last edit is always kept)
+	private void trimToMemoryLimit() {
+		long limit = Globals.getUndoMemoryLimit();
+		if (limit <= 0) {
+			return;
+		}
+		long size = 0;
+		for (int i = edits.size() - 1; i >= 0; i--) {
+			size += getSize(edits.get(i));
+			if ((size > limit) && (i < edits.size() - 1)) {
+				trimEdits(0, i);
+				return;
+			}
+		}
+	}
+
+	private long getSize(UndoableEdit edit) {
+		if (edit instanceof SizedEdit) {
+			return ((SizedEdit) edit).getSize();
+		}
+		return 0;
+	}
+
 	@Override
 	public synchronized void undo() throws CannotUndoException {
 		super.undo();
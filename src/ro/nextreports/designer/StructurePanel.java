@@ -24,7 +24,9 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -37,6 +39,7 @@ import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import org.jdesktop.swingx.JXTree;
@@ -187,28 +190,36 @@ public class StructurePanel extends JPanel implements GridModelListener, ActionL
 
         } else if (eventType == GridModelEvent.CELLS_UPDATED) {
 //            System.out.println("Cells updated ............");
-            int row = event.getFirstRow();
-//            System.out.println("row = " + row);
-            int column = event.getFirstColumn();
-//            System.out.println("column = " + column);
-            String bandName = Globals.getReportGrid().getBandName(row);
-//            System.out.println("bandName = " + bandName);
-//            System.out.println(Globals.getReportGrid().getBandLocations());
+            // a bulk update (see AbstractGridModel.beginUpdate) notifies a range of cells :
+            // every band row node is reloaded only once
             DefaultGridModel gridModel = (DefaultGridModel) event.getSource();
-            BandElement element = (BandElement) gridModel.getValueAt(row, column);
-            int bandRow = Globals.getReportGrid().getBandLocation(bandName).getRow(row);
-            StructureTreeNode elementNode = getBandElementTreeNode(bandName, bandRow, column);
-            elementNode.setVisible(element != null);
-            elementNode.setUserObject(new ReportGridCell(element, row, column));
+            Set<TreeNode> parents = new LinkedHashSet<TreeNode>();
+            boolean emptyCell = false;
+            for (int row = event.getFirstRow(); row <= event.getLastRow(); row++) {
+                String bandName = Globals.getReportGrid().getBandName(row);
+//                System.out.println("bandName = " + bandName);
+//                System.out.println(Globals.getReportGrid().getBandLocations());
+                int bandRow = Globals.getReportGrid().getBandLocation(bandName).getRow(row);
+                for (int column = event.getFirstColumn(); column <= event.getLastColumn(); column++) {
+                    BandElement element = (BandElement) gridModel.getValueAt(row, column);
+                    StructureTreeNode elementNode = getBandElementTreeNode(bandName, bandRow, column);
+                    elementNode.setVisible(element != null);
+                    elementNode.setUserObject(new ReportGridCell(element, row, column));
+                    parents.add(elementNode.getParent());
+                    emptyCell |= (element == null);
+                }
+            }
             TreePath[] selectionPath = structureTree.getSelectionPaths();
             // must use reload to take visble/invisible null cells into account
-            structureTreeModel.reload(elementNode.getParent());
+            for (TreeNode parent : parents) {
+                structureTreeModel.reload(parent);
+            }
 
             // reselect the nodes
-            if ((selectionPath != null) && ((element != null) || !structureTreeModel.isActivatedFilter())) {
+            if ((selectionPath != null) && (!emptyCell || !structureTreeModel.isActivatedFilter())) {
                 structureTree.setSelectionPaths(selectionPath);
             }
-            if (element == null) {
+            if (emptyCell) {
                 Globals.getReportDesignerPanel().getPropertiesPanel().refresh();
             }
 
@@ -23,12 +23,12 @@ import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.grid.JGrid;
 import ro.nextreports.designer.property.CustomLineBorder;
 import ro.nextreports.designer.util.I18NSupport;
 
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.Padding;
 
@@ -87,9 +87,9 @@ class TextCellEditor extends DefaultGridCellEditor {
 			return super.getCellEditorValue();
 		}
 
-		ReportLayout oldLayout = getOldLayout();
+		CellsEdit cellsEdit = getCellsEdit();
 		bandElement.setText((String) super.getCellEditorValue());		
-        registerUndoRedo(oldLayout, I18NSupport.getString("edit.text"), I18NSupport.getString("edit.text.insert"));
+        registerUndoRedo(cellsEdit, I18NSupport.getString("edit.text"), I18NSupport.getString("edit.text.insert"));
 		
 		return bandElement;
 	}
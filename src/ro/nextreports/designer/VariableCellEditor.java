@@ -19,13 +19,13 @@ package ro.nextreports.designer;
 import ro.nextreports.engine.band.VariableBandElement;
 import ro.nextreports.engine.band.Padding;
 import ro.nextreports.engine.exporter.util.variable.VariableFactory;
-import ro.nextreports.engine.ReportLayout;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.CompoundBorder;
 
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.DefaultGridCellEditor;
 import ro.nextreports.designer.grid.JGrid;
 import ro.nextreports.designer.property.CustomLineBorder;
@@ -94,10 +94,10 @@ public class VariableCellEditor extends DefaultGridCellEditor {
 			return super.getCellEditorValue();
 		}
 
-		ReportLayout oldLayout  = getOldLayout();
+		CellsEdit cellsEdit = getCellsEdit();
         String text = (String) super.getCellEditorValue();
 		bandElement.setVariable(text);
-        registerUndoRedo(oldLayout, I18NSupport.getString("edit.variable"), I18NSupport.getString("edit.variable.insert"));
+        registerUndoRedo(cellsEdit, I18NSupport.getString("edit.variable"), I18NSupport.getString("edit.variable.insert"));
 
         return bandElement;
 	}
@@ -24,6 +24,7 @@ import javax.swing.*;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.MainFrame;
 import ro.nextreports.designer.WorkspaceManager;
+import ro.nextreports.designer.datasource.ConnectionPool;
 import ro.nextreports.designer.ui.tail.LogPanel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
@@ -69,6 +70,7 @@ public class ExitAction extends AbstractAction {
             }
             LogPanel.stop();
         }
+        ConnectionPool.drainAll();
         System.exit(0);
     }
 
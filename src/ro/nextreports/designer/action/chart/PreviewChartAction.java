@@ -23,10 +23,10 @@ import java.awt.Graphics;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
@@ -43,10 +43,12 @@ import ro.nextreports.designer.chart.ChartWebServer;
 import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.i18n.action.I18nManager;
 import ro.nextreports.designer.querybuilder.ParameterManager;
+import ro.nextreports.designer.util.CountingOutputStream;
 import ro.nextreports.designer.util.FileUtil;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
 import ro.nextreports.designer.util.NextReportsUtil;
+import ro.nextreports.designer.util.ProgressPublisher;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.designer.util.UIActivator;
 import ro.nextreports.engine.EngineProperties;
@@ -149,6 +151,9 @@ public class PreviewChartAction extends AbstractAction {
 
                 UIActivator activator = new UIActivator(Globals.getMainFrame(), I18NSupport.getString("preview.chart.execute"));
                 activator.start(new PreviewStopAction());
+                ProgressPublisher publisher = new ProgressPublisher(activator,
+                        I18NSupport.getString("preview.chart.execute"), 0);
+                publisher.start();
 
                 ChartWebServer webServer = ChartWebServer.getInstance();
                 String webRoot = webServer.getWebRoot();
@@ -188,7 +193,9 @@ public class PreviewChartAction extends AbstractAction {
 						if (ChartRunner.HTML5_TYPE == runner.getGraphicType()) {
 							jsonFile = "data-html5.json";
 						}
-						OutputStream outputStream = new FileOutputStream(webRoot + File.separatorChar + jsonFile);
+						CountingOutputStream outputStream = new CountingOutputStream(new BufferedOutputStream(
+								new FileOutputStream(webRoot + File.separatorChar + jsonFile)), System.currentTimeMillis());
+						publisher.setStream(outputStream);
 	                    boolean result = runner.run(outputStream);
 	                    outputStream.close();
 						if (result) {
@@ -221,6 +228,7 @@ public class PreviewChartAction extends AbstractAction {
 						}
                 	}
                     stop = false;
+                    publisher.stop();
                     if (activator != null) {
                         activator.stop();
                         activator = null;
@@ -41,6 +41,10 @@ public class FindPanel extends JPanel {
 	public String getOldText() {
 		return oldText.getText();
 	}
+
+	public void setOldText(String text) {
+		oldText.setText(text);
+	}
 	
 	public String getNewText() {
 		return newText.getText();
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.query;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultTreeModel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.FormLoader;
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.chart.ChartUtil;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.persistence.ReportPersistence;
+import ro.nextreports.designer.persistence.ReportPersistenceFactory;
+import ro.nextreports.designer.querybuilder.DBBrowserNode;
+import ro.nextreports.designer.querybuilder.DBBrowserTree;
+import ro.nextreports.designer.querybuilder.DBObject;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.NextReportsUtil;
+
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.chart.Chart;
+import ro.nextreports.engine.util.ReportUtil;
+
+/**
+ * Validates the sqls of many queries, reports and charts on a pool of workers, each worker with its own
+ * connection (property 'sql.validation.threads').
+ *
+ * Results are cached by file path for a data source : an unchanged file (same modification time) is not
+ * loaded again, and a changed file whose sqls are the same (same hash) is not validated again.
+ * Every result is set on its tree node as soon as it is known.
+ */
+class SqlValidator {
+
+    private static final Log LOG = LogFactory.getLog(SqlValidator.class);
+
+    // validation results by file path
+    private static final Map<String, Result> cache = new ConcurrentHashMap<String, Result>();
+
+    private DataSource dataSource;
+    private DBBrowserTree tree;
+    private ReportPersistence repPersist = ReportPersistenceFactory.createReportPersistence(Globals.getReportPersistenceType());
+
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private final ThreadLocal<Connection> workerConnection = new ThreadLocal<Connection>();
+    // guarded by connections
+    private boolean closed;
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    SqlValidator(DataSource dataSource, DBBrowserTree tree) {
+        this.dataSource = dataSource;
+        this.tree = tree;
+    }
+
+    /**
+     * Number of validated nodes. Can be called from any thread
+     *
+     * @return number of validated nodes
+     */
+    int getDone() {
+        return done.get();
+    }
+
+    /**
+     * Validate all nodes and mark them in tree
+     *
+     * @param nodes query, report and chart nodes
+     * @return error messages, in nodes order
+     * @throws InterruptedException if validation thread was interrupted
+     */
+    String validate(List<DBBrowserNode> nodes) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        int threads = Math.max(1, Globals.getSqlValidationThreads());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NEXT : Sql validation " + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        StringBuilder result = new StringBuilder();
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>(nodes.size());
+            for (final DBBrowserNode node : nodes) {
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        try {
+                            return validate(node);
+                        } finally {
+                            done.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    result.append(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // not validated (no connection, load error) : shown as invalid and not cached
+                    Throwable cause = e.getCause();
+                    LOG.error(cause.getMessage(), cause);
+                    DBBrowserNode node = nodes.get(i);
+                    String error = (cause.getMessage() == null) ? cause.toString() : cause.getMessage();
+                    String message = "Report '" + node.getDBObject().getName() + "':\n" + error + "\n\n";
+                    mark(node, message);
+                    result.append(message);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            // running workers may still use their connections
+            try {
+                executor.awaitTermination(Globals.getConnectionTimeout(), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closeConnections();
+        }
+        LOG.info("Validated " + nodes.size() + " sqls (" + hits.get() + " from cache) on '" + dataSource.getName() +
+                "' with " + threads + " workers in " + (System.currentTimeMillis() - start) + " ms.");
+        return result.toString();
+    }
+
+    private String validate(DBBrowserNode node) throws Exception {
+        DBObject obj = node.getDBObject();
+        String path = obj.getAbsolutePath();
+        long modified = new File(path).lastModified();
+
+        Result cached = cache.get(path);
+        if ((cached != null) && cached.dataSource.equals(dataSource.getName()) && (cached.modified == modified)) {
+            hits.incrementAndGet();
+            mark(node, cached.message);
+            return cached.message;
+        }
+
+        Report report = load(obj);
+        if (report == null) {
+            throw new Exception(I18NSupport.getString("could.not.load.report"));
+        }
+        List<Report> subreports = ReportUtil.getSubreports(report);
+        int hash = getSqlHash(report, subreports);
+        String message;
+        if ((cached != null) && cached.dataSource.equals(dataSource.getName()) && (cached.sqlHash == hash)) {
+            hits.incrementAndGet();
+            message = cached.message;
+        } else {
+            message = validate(report, subreports);
+        }
+        cache.put(path, new Result(dataSource.getName(), modified, hash, message));
+        mark(node, message);
+        return message;
+    }
+
+    private Report load(DBObject obj) {
+        if (obj.getType() == DBObject.QUERIES) {
+            return repPersist.loadReport(obj.getAbsolutePath());
+        } else if (obj.getType() == DBObject.REPORTS) {
+            return FormLoader.getInstance().load(obj.getAbsolutePath(), false);
+        } else if (obj.getType() == DBObject.CHARTS) {
+            Chart chart = ChartUtil.loadChart(obj.getAbsolutePath());
+            return (chart == null) ? null : chart.getReport();
+        }
+        return null;
+    }
+
+    private String validate(Report report, List<Report> subreports) throws Exception {
+        Connection con = getWorkerConnection();
+        String message = ReportUtil.isValidSqlWithMessage(con, report);
+        if (message != null) {
+            return "Report '" + report.getName() + "':\n" + message + "\n\n";
+        }
+        for (Report subreport : subreports) {
+            message = ReportUtil.isValidSqlWithMessage(con, subreport);
+            if (message != null) {
+                return "Subreport '" + report.getName() + "/" + subreport.getName() + "':\n" + message + "\n\n";
+            }
+        }
+        return "";
+    }
+
+    private int getSqlHash(Report report, List<Report> subreports) {
+        int hash = NextReportsUtil.getSql(report).hashCode();
+        for (Report subreport : subreports) {
+            hash = 31 * hash + NextReportsUtil.getSql(subreport).hashCode();
+        }
+        return hash;
+    }
+
+    private void mark(final DBBrowserNode node, String message) {
+        final boolean valid = message.isEmpty();
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                node.getDBObject().putProperty(ValidateSqlsAction.VALID_SQL_PROPERTY, valid);
+                ((DefaultTreeModel) tree.getModel()).nodeChanged(node);
+            }
+        });
+    }
+
+    // no connection is borrowed after the connections were closed (it would never be returned)
+    private Connection getWorkerConnection() throws Exception {
+        Connection con = workerConnection.get();
+        if (con == null) {
+            synchronized (connections) {
+                if (closed) {
+                    throw new InterruptedException();
+                }
+            }
+            con = Globals.createTempConnection(dataSource);
+            synchronized (connections) {
+                if (closed) {
+                    con.close();
+                    throw new InterruptedException();
+                }
+                connections.add(con);
+            }
+            workerConnection.set(con);
+        }
+        return con;
+    }
+
+    private void closeConnections() {
+        synchronized (connections) {
+            closed = true;
+            for (Connection con : connections) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+            connections.clear();
+        }
+    }
+
+    private static class Result {
+
+        private String dataSource;
+        private long modified;
+        private int sqlHash;
+        private String message;
+
+        private Result(String dataSource, long modified, int sqlHash, String message) {
+            this.dataSource = dataSource;
+            this.modified = modified;
+            this.sqlHash = sqlHash;
+            this.message = message;
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ package ro.nextreports.designer.action.query;
 import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +32,8 @@ import org.apache.commons.logging.LogFactory;
 import ro.nextreports.designer.FormLoader;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.chart.ChartUtil;
+import ro.nextreports.designer.datasource.DefaultDataSourceManager;
+import ro.nextreports.designer.persistence.ContentIndex;
 import ro.nextreports.designer.persistence.ReportPersistence;
 import ro.nextreports.designer.persistence.ReportPersistenceFactory;
 import ro.nextreports.designer.querybuilder.DBBrowserNode;
@@ -39,12 +42,12 @@ import ro.nextreports.designer.querybuilder.DBObject;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
+import ro.nextreports.designer.util.ProgressPublisher;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.designer.util.UIActivator;
 
 import ro.nextreports.engine.Report;
 import ro.nextreports.engine.util.ReportUtil;
-import ro.nextreports.engine.util.StringUtil;
 
 public class ValidateSqlsAction extends AbstractAction {
 
@@ -107,9 +110,29 @@ public class ValidateSqlsAction extends AbstractAction {
                         } else {
                         	node = tree.searchNode(sqlObject.getName(), sqlObject.getAbsolutePath(), sqlObject.getType());
                         }                                 
-                        StringBuilder result = new StringBuilder();
-                        testMultipleValidation(node, tree, result);
-                        String message = result.toString();
+                        List<DBBrowserNode> nodes = new ArrayList<DBBrowserNode>();
+                        collectNodes(node, tree, nodes);
+                        activator.stop();
+
+                        activator = new UIActivator(Globals.getMainFrame(), I18NSupport.getString("sql.validation"), nodes.size());
+                        activator.start();
+                        final SqlValidator validator = new SqlValidator(
+                                DefaultDataSourceManager.getInstance().getConnectedDataSource(), tree);
+                        ProgressPublisher publisher = new ProgressPublisher(activator,
+                                I18NSupport.getString("sql.validation"), nodes.size()) {
+                            protected long sampleCount() {
+                                return validator.getDone();
+                            }
+                        };
+                        publisher.start();
+                        String message;
+                        try {
+                            message = validator.validate(nodes);
+                        } catch (InterruptedException ex) {
+                            return;
+                        } finally {
+                            publisher.stop();
+                        }
                         if (!message.isEmpty()) {            	    			    			                        	
                         	Show.warningScroll(I18NSupport.getString("sql.invalid"), message, 10, 30, createActions(node, tree));            	    		
             	    	} else {            	    		
@@ -126,7 +149,8 @@ public class ValidateSqlsAction extends AbstractAction {
         executorThread.start();
     }
     
-    private void testMultipleValidation(DBBrowserNode node, DBBrowserTree tree, StringBuilder result) {
+    // sqls are validated in parallel by SqlValidator
+    private void collectNodes(DBBrowserNode node, DBBrowserTree tree, List<DBBrowserNode> nodes) {
     	if (node.getChildCount() == 0) {
             tree.startExpandingTree(node, false, null);
         }  
@@ -136,10 +160,9 @@ public class ValidateSqlsAction extends AbstractAction {
             if ((object.getType() == DBObject.FOLDER_QUERY) ||
 				(object.getType() == DBObject.FOLDER_REPORT) ||
 				(object.getType() == DBObject.FOLDER_CHART)) {
-            	testMultipleValidation(child, tree, result);
+            	collectNodes(child, tree, nodes);
             } else {
-            	String res = testSingleValidation(object, false);
-            	result.append(res);
+            	nodes.add(child);
             }
         }
     }
@@ -211,7 +234,12 @@ public class ValidateSqlsAction extends AbstractAction {
 									String newText = findPanel.getNewText();
 									boolean isCaseSensitive = findPanel.isCaseSensitive();
 									LOG.info("Validate replace action '" + node.getDBObject().getName() + "' " + oldText + " -> " + newText);									
-									replaceDir(node, tree, oldText, newText, isCaseSensitive);
+									// only invalid files are changed, in parallel
+									List<File> files = new ArrayList<File>();
+									collectInvalidFiles(node, tree, files);
+									ContentIndex.replace(files, oldText, newText, isCaseSensitive, false);
+				                } catch (InterruptedException ex) {
+				                	LOG.error(ex.getMessage(), ex);
 				                } finally {
 				                	setEnabled(true);
 			                        if (activator != null) {
@@ -265,13 +293,16 @@ public class ValidateSqlsAction extends AbstractAction {
 			String filePath = obj.getAbsolutePath();	
 			Boolean validQ = (Boolean) obj.getProperty(ValidateSqlsAction.VALID_SQL_PROPERTY);
         	if ((validQ != null) && !validQ.booleanValue()) {			
-        		LOG.info("  --> replace file '" + filePath + "' " + oldText + " -> " + newText);
-				StringUtil.replaceInFile(new File(filePath), oldText, newText, isCaseSensitive);
+        		try {
+        			ContentIndex.replace(new File(filePath), oldText, newText, isCaseSensitive, false);
+        		} catch (IOException e) {
+        			LOG.error(e.getMessage(), e);
+        		}
 			}
 		} 
     }
     
-    private void replaceDir(DBBrowserNode node,  DBBrowserTree tree, String oldText, String newText, boolean isCaseSensitive) {
+    private void collectInvalidFiles(DBBrowserNode node,  DBBrowserTree tree, List<File> files) {
     	if (node.getChildCount() == 0) {
             tree.startExpandingTree(node, false, null);
         }  
@@ -281,10 +312,12 @@ public class ValidateSqlsAction extends AbstractAction {
             if ((object.getType() == DBObject.FOLDER_QUERY) ||
 				(object.getType() == DBObject.FOLDER_REPORT) ||
 				(object.getType() == DBObject.FOLDER_CHART)) {                	
-            	LOG.info("--> replace dir '" + object.getAbsolutePath() + "' " + oldText + " -> " + newText);
-            	replaceDir(child, tree, oldText, newText, isCaseSensitive);            	
+            	collectInvalidFiles(child, tree, files);
             } else {
-            	replaceFile(object, oldText, newText, isCaseSensitive);            	
+            	Boolean validQ = (Boolean) object.getProperty(ValidateSqlsAction.VALID_SQL_PROPERTY);
+            	if ((validQ != null) && !validQ.booleanValue()) {
+            		files.add(new File(object.getAbsolutePath()).getAbsoluteFile());
+            	}
             }
         }
     }
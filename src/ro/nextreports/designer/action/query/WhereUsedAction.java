@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.query;
+
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.persistence.ContentIndex;
+import ro.nextreports.designer.querybuilder.DBObject;
+import ro.nextreports.designer.ui.BaseDialog;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+import ro.nextreports.designer.util.Show;
+import ro.nextreports.designer.util.UIActivator;
+
+/**
+ * Find the queries, reports and charts which use a table, a view or a text.
+ * Found entries are selected in tree and listed in {@link WhereUsedPanel}.
+ */
+public class WhereUsedAction extends AbstractAction {
+
+    private DBObject object;
+
+    /**
+     * Constructor
+     *
+     * @param object table or view to search for, or a queries / reports / charts group or folder to search in
+     */
+    public WhereUsedAction(DBObject object) {
+        putValue(Action.NAME, I18NSupport.getString("where.used"));
+        putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("find"));
+        putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("where.used.desc"));
+        putValue(Action.LONG_DESCRIPTION, I18NSupport.getString("where.used.desc"));
+        this.object = object;
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        final String text;
+        final boolean caseSensitive;
+        final boolean wholeWord;
+        final String folderPath;
+        if ((object.getType() == DBObject.TABLE) || (object.getType() == DBObject.VIEW)) {
+            // 'ORDER' must not match 'ORDER BY' or 'ORDER_ITEM'
+            text = object.getName();
+            caseSensitive = false;
+            wholeWord = true;
+            folderPath = null;
+        } else {
+            SearchPanel panel = new SearchPanel();
+            BaseDialog dialog = new BaseDialog(panel, I18NSupport.getString("where.used"), true);
+            dialog.pack();
+            Show.centrateComponent(Globals.getMainFrame(), dialog);
+            dialog.setVisible(true);
+            if (!dialog.okPressed() || "".equals(panel.getText().trim())) {
+                return;
+            }
+            text = panel.getText();
+            caseSensitive = panel.isCaseSensitive();
+            wholeWord = false;
+            folderPath = object.isFolder() ? object.getAbsolutePath() :
+                    Globals.getMainFrame().getQueryBuilderPanel().getTree().getRootAbsolutePath(object.getType());
+        }
+
+        Thread executorThread = new Thread(new Runnable() {
+
+            public void run() {
+                UIActivator activator = new UIActivator(Globals.getMainFrame(), I18NSupport.getString("where.used"));
+                activator.start();
+                final List<File> files;
+                try {
+                    files = ContentIndex.search(text, caseSensitive, wholeWord, folderPath);
+                } finally {
+                    activator.stop();
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (files.isEmpty()) {
+                            Show.info(I18NSupport.getString("where.used.none", text));
+                            return;
+                        }
+                        Globals.getMainFrame().getQueryBuilderPanel().getTree().selectFiles(files);
+                        WhereUsedPanel.showDialog(text, wholeWord, files);
+                    }
+                });
+            }
+        }, "NEXT : " + getClass().getSimpleName());
+        executorThread.start();
+    }
+
+    static class SearchPanel extends JPanel {
+
+        private JTextField text;
+        private JCheckBox ck;
+
+        public SearchPanel() {
+            setLayout(new GridBagLayout());
+            text = new JTextField(20);
+            ck = new JCheckBox(I18NSupport.getString("sqleditor.findReplaceDialog.caseSensitive"));
+            add(new JLabel(I18NSupport.getString("where.used.text")), new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0,
+                    GridBagConstraints.EAST, GridBagConstraints.NONE, new Insets(5, 5, 5, 0), 0, 0));
+            add(text, new GridBagConstraints(1, 0, 1, 1, 1.0, 0.0, GridBagConstraints.WEST,
+                    GridBagConstraints.HORIZONTAL, new Insets(5, 5, 5, 5), 0, 0));
+            add(ck, new GridBagConstraints(0, 1, 2, 1, 0.0, 0.0, GridBagConstraints.WEST, GridBagConstraints.NONE,
+                    new Insets(5, 5, 5, 5), 0, 0));
+        }
+
+        public String getText() {
+            return text.getText();
+        }
+
+        public boolean isCaseSensitive() {
+            return ck.isSelected();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.query;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JToolBar;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.persistence.ContentIndex;
+import ro.nextreports.designer.persistence.FileReportPersistence;
+import ro.nextreports.designer.ui.BaseDialog;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+import ro.nextreports.designer.util.Show;
+import ro.nextreports.designer.util.UIActivator;
+
+/**
+ * Lists the files found by {@link WhereUsedAction}. A double click selects the file in tree and
+ * the text can be replaced in all listed files.
+ */
+public class WhereUsedPanel extends JPanel {
+
+    private static final Log LOG = LogFactory.getLog(WhereUsedPanel.class);
+
+    private String text;
+    private boolean wholeWord;
+    private List<File> files;
+    private JList list;
+
+    public WhereUsedPanel(String text, boolean wholeWord, List<File> files) {
+        this.text = text;
+        this.wholeWord = wholeWord;
+        this.files = files;
+        initUI();
+    }
+
+    public static void showDialog(String text, boolean wholeWord, List<File> files) {
+        BaseDialog dialog = new BaseDialog(new WhereUsedPanel(text, wholeWord, files),
+                I18NSupport.getString("where.used.result", text, files.size()), false) {
+            protected Action[] getButtonActions() {
+                return new Action[]{closeAction};
+            }
+        };
+        dialog.pack();
+        Show.centrateComponent(Globals.getMainFrame(), dialog);
+        dialog.setVisible(true);
+    }
+
+    private void initUI() {
+        final String root = FileReportPersistence.getConnectedDataSourceAbsolutePath() + File.separator;
+        list = new JList(files.toArray());
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            public Component getListCellRendererComponent(JList list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String path = ((File) value).getAbsolutePath();
+                if (path.startsWith(root)) {
+                    path = path.substring(root.length());
+                }
+                return super.getListCellRendererComponent(list, path, index, isSelected, cellHasFocus);
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if ((e.getClickCount() == 2) && (list.getSelectedValue() != null)) {
+                    List<File> selected = new ArrayList<File>();
+                    selected.add((File) list.getSelectedValue());
+                    Globals.getMainFrame().getQueryBuilderPanel().getTree().selectFiles(selected);
+                }
+            }
+        });
+
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        toolBar.add(new ReplaceAction());
+
+        setLayout(new BorderLayout());
+        add(toolBar, BorderLayout.NORTH);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setPreferredSize(new Dimension(450, 250));
+        add(scroll, BorderLayout.CENTER);
+    }
+
+    class ReplaceAction extends AbstractAction {
+
+        public ReplaceAction() {
+            putValue(Action.NAME, I18NSupport.getString("validate.replace"));
+            putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("where.used.replace"));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            final FindPanel findPanel = new FindPanel();
+            findPanel.setOldText(text);
+            BaseDialog dialog = new FindDialog(findPanel);
+            dialog.pack();
+            Show.centrateComponent(Globals.getMainFrame(), dialog);
+            dialog.setVisible(true);
+            if (!dialog.okPressed()) {
+                return;
+            }
+            Thread executorThread = new Thread(new Runnable() {
+
+                public void run() {
+                    UIActivator activator = new UIActivator(Globals.getMainFrame(), I18NSupport.getString("validate.replace"));
+                    activator.start();
+                    try {
+                        setEnabled(false);
+                        String oldText = findPanel.getOldText();
+                        String newText = findPanel.getNewText();
+                        LOG.info("Where used replace " + files.size() + " files : " + oldText + " -> " + newText);
+                        ContentIndex.replace(files, oldText, newText, findPanel.isCaseSensitive(), wholeWord);
+                    } catch (InterruptedException ex) {
+                        return;
+                    } finally {
+                        setEnabled(true);
+                        activator.stop();
+                    }
+                    Show.info(I18NSupport.getString("validate.replace.finish"));
+                }
+            }, "NEXT : " + getClass().getSimpleName());
+            executorThread.start();
+        }
+    }
+
+}
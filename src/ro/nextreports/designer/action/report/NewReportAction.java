@@ -32,6 +32,8 @@ import ro.nextreports.designer.GroupIndexGenerator;
 import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportLayoutFactory;
 import ro.nextreports.designer.ReportLayoutPanel;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.datasource.DefaultDataSourceManager;
 import ro.nextreports.designer.querybuilder.ParameterManager;
 import ro.nextreports.designer.querybuilder.QueryBuilderPanel;
 import ro.nextreports.designer.querybuilder.SQLViewPanel;
@@ -181,13 +183,13 @@ public class NewReportAction extends AbstractAction {
 				params.put(paramName, param);
 			}
             if  (columnNames == null) {
-            	String md5Key = Cache.getColumnsKey(sql);                
-                List<NameType> result = Cache.getColumns(md5Key);
+            	DataSource dataSource = DefaultDataSourceManager.getInstance().getConnectedDataSource();
+                List<NameType> result = Cache.getColumns(dataSource, sql, params);
                 if (result != null) {
                 	columnNames = ReportUtil.getColumnNames(result);                	
                 } else {
                 	 List<NameType> columns = qu.getColumns(sql, params);
-                	 Cache.setColumns(md5Key, columns);
+                	 Cache.setColumns(dataSource, sql, params, columns);
                 	 columnNames = ReportUtil.getColumnNames(columns);    
                 }
             }
@@ -24,20 +24,16 @@ import javax.swing.Action;
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.CellUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.NumberSelectionPanel;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.ReportGridPanel;
 import ro.nextreports.designer.ReportLayoutUtil;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.ColumnsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.util.ObjectCloner;
-import ro.nextreports.engine.ReportLayout;
 
 /**
  * @author Decebal Suiu
@@ -74,26 +70,24 @@ public class InsertAfterColumnAction extends AbstractAction {
             return;
         }
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        ColumnsEdit columnsEdit = new ColumnsEdit(I18NSupport.getString("edit.column.insert.after"));
 
         int columnCount = panel.getNumber();
 
         ReportGrid grid = Globals.getReportGrid();
         SelectionModel selectionModel = grid.getSelectionModel();
-        ReportGridPanel reportGridPanel = Globals.getReportLayoutPanel().getReportGridPanel();
 
         Cell cell = CellUtil.getCellFromSelectedColumn(grid,selectedColumn);
 
         for (int i = 0; i < columnCount; i++) {
-            reportGridPanel.insertColumns(cell.getRow(), cell.getColumn() + i, 1, true);
+            columnsEdit.insertColumns(cell.getRow(), cell.getColumn() + i, 1, true);
         }
         selectionModel.clearSelection();
 
         // update column width array
         ReportLayoutUtil.updateColumnWidth(Globals.getReportGrid());
-        
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("edit.column.insert.after")));
+
+        Globals.getReportUndoManager().addEdit(columnsEdit);
     }
 
 }
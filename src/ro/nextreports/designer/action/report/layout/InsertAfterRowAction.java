@@ -24,19 +24,15 @@ import javax.swing.Action;
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.CellUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.NumberSelectionPanel;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.ReportGridPanel;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.RowsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.util.ObjectCloner;
-import ro.nextreports.engine.ReportLayout;
 
 /**
  * @author Decebal Suiu
@@ -73,23 +69,21 @@ public class InsertAfterRowAction extends AbstractAction {
 			return;
 		}
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        RowsEdit rowsEdit = new RowsEdit(I18NSupport.getString("edit.row.insert.after"));
 
         int rowCount = panel.getNumber();
 
         ReportGrid grid = Globals.getReportGrid();
 		SelectionModel selectionModel = grid.getSelectionModel();
-		ReportGridPanel reportGridPanel = Globals.getReportLayoutPanel().getReportGridPanel();
 		
 		Cell cell = CellUtil.getCellFromSelectedRow(grid,selectedRow);
 
         for (int i = 0; i < rowCount; i++) {             
-            reportGridPanel.insertRows(cell.getRow() + i, cell.getColumn(), 1, true);
+            rowsEdit.insertRows(cell.getRow() + i, cell.getColumn(), 1, true);
         }
         selectionModel.clearSelection();
-        
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("edit.row.insert.after")));
+
+        Globals.getReportUndoManager().addEdit(rowsEdit);
     }
 
 }
@@ -32,6 +32,7 @@ import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
 import ro.nextreports.designer.ReportGridPanel;
 import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.ColumnsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultGridModel;
@@ -61,8 +62,6 @@ public class RemoveColumnAction extends AbstractAction {
 
     public void actionPerformed(ActionEvent event) {
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-
         ReportGrid grid = Globals.getReportGrid();
         grid.removeEditor();
         SelectionModel selectionModel = grid.getSelectionModel();
@@ -92,6 +91,15 @@ public class RemoveColumnAction extends AbstractAction {
             return;
         }
 
+        ReportLayout oldLayout = null;
+        ColumnsEdit columnsEdit = null;
+        if (removesAllColumns(grid, cells)) {
+            // the layout is reset : keep the entire layout for undo
+            oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        } else {
+            columnsEdit = new ColumnsEdit(I18NSupport.getString("edit.column.remove"));
+        }
+
         //  must delete from last column to first
         int size = cells.size();
         for (int i = size - 1; i >= 0; i--) {
@@ -99,10 +107,11 @@ public class RemoveColumnAction extends AbstractAction {
             int row = cell.getRow();
             int column = cell.getColumn();
             CellSpan cellSpan = grid.getSpanModel().getSpanOver(row, column);
-            if (cellSpan == null) {
-                reportGridPanel.removeColumns(column, 1);
+            int columnCount = (cellSpan == null) ? 1 : cellSpan.getColumnCount();
+            if (columnsEdit == null) {
+                reportGridPanel.removeColumns(column, columnCount);
             } else {
-                reportGridPanel.removeColumns(column, cellSpan.getColumnCount());
+                columnsEdit.removeColumns(column, columnCount);
             }
             if (reportGridPanel.getColumnCount() == 0) {
                 ((DefaultGridModel) grid.getModel()).removeRows(0, reportGridPanel.getRowCount());
@@ -112,8 +121,21 @@ public class RemoveColumnAction extends AbstractAction {
         }
         selectionModel.clearSelection();
 
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("edit.column.remove")));
+        if (columnsEdit == null) {
+            Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, LayoutHelper.getReportLayout(),
+                    I18NSupport.getString("edit.column.remove")));
+        } else {
+            Globals.getReportUndoManager().addEdit(columnsEdit);
+        }
+    }
+
+    // true if all columns are removed
+    private boolean removesAllColumns(ReportGrid grid, List<Cell> cells) {
+        int count = 0;
+        for (Cell cell : cells) {
+            count += grid.getSpanModel().getSpanOver(cell.getRow(), cell.getColumn()).getColumnCount();
+        }
+        return count >= grid.getColumnCount();
     }
 
     private List<Cell> getSelectedCells(List<Cell> selectedCells) {
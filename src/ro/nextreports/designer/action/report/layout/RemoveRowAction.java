@@ -32,6 +32,7 @@ import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
 import ro.nextreports.designer.ReportGridPanel;
 import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.RowsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultGridModel;
@@ -61,8 +62,6 @@ public class RemoveRowAction extends AbstractAction {
 
     public void actionPerformed(ActionEvent event) {
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-
         ReportGrid reportGrid = Globals.getReportGrid();
         reportGrid.removeEditor();
         SelectionModel selectionModel = reportGrid.getSelectionModel();
@@ -92,6 +91,15 @@ public class RemoveRowAction extends AbstractAction {
             return;
         }
 
+        ReportLayout oldLayout = null;
+        RowsEdit rowsEdit = null;
+        if (removesAllRows(reportGrid, cells)) {
+            // the layout is reset : keep the entire layout for undo
+            oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        } else {
+            rowsEdit = new RowsEdit(I18NSupport.getString("edit.row.remove"));
+        }
+
         //  must delete from last row to first
         int size = cells.size();
         for (int i = size-1; i>=0; i--) {
@@ -99,10 +107,11 @@ public class RemoveRowAction extends AbstractAction {
             int row = cell.getRow();
             int column = cell.getColumn();
             CellSpan cellSpan = reportGrid.getSpanModel().getSpanOver(row, column);
-            if (cellSpan == null) {
-                reportGridPanel.removeRows(row, 1);
+            int rowCount = (cellSpan == null) ? 1 : cellSpan.getRowCount();
+            if (rowsEdit == null) {
+                reportGridPanel.removeRows(row, rowCount);
             } else {
-                reportGridPanel.removeRows(row, cellSpan.getRowCount());
+                rowsEdit.removeRows(row, rowCount);
             }
             if (reportGridPanel.getRowCount() == 0) {
                 ((DefaultGridModel) reportGrid.getModel()).removeColumns(0, reportGridPanel.getColumnCount());
@@ -112,9 +121,21 @@ public class RemoveRowAction extends AbstractAction {
         }
         selectionModel.clearSelection();
 
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("edit.row.remove")));
+        if (rowsEdit == null) {
+            Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, LayoutHelper.getReportLayout(),
+                    I18NSupport.getString("edit.row.remove")));
+        } else {
+            Globals.getReportUndoManager().addEdit(rowsEdit);
+        }
+    }
+
+    // true if all rows are removed
+    private boolean removesAllRows(ReportGrid grid, List<Cell> cells) {
+        int count = 0;
+        for (Cell cell : cells) {
+            count += grid.getSpanModel().getSpanOver(cell.getRow(), cell.getColumn()).getRowCount();
+        }
+        return count >= grid.getRowCount();
     }
 
     private List<Cell> getSelectedCells(List<Cell> selectedCells) {
@@ -23,16 +23,13 @@ import javax.swing.*;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ShortcutsUtil;
 
-import ro.nextreports.engine.ReportLayout;
-import ro.nextreports.engine.util.ObjectCloner;
 
 /**
  * @author Decebal Suiu
@@ -54,12 +51,14 @@ public class ClearCellAction extends AbstractAction {
 
     public void actionPerformed(ActionEvent event) {
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-
         ReportGrid grid = Globals.getReportGrid();
 		SelectionModel selectionModel = grid.getSelectionModel();
 		
 		List<Cell> cells = selectionModel.getSelectedCells();
+		if (cells.isEmpty()) {
+			return;
+		}
+		CellsEdit edit = new CellsEdit(clearFirstCell ? cells.subList(0, 1) : cells);
 		for (Cell cell : cells) {
 			if (grid.getBandElement(cell) != null) {
 				BandUtil.deleteElement(cell.getRow(), cell.getColumn());
@@ -69,8 +68,8 @@ public class ClearCellAction extends AbstractAction {
             }
         }
 
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("clear.cell.action.name")));
+        edit.end(I18NSupport.getString("clear.cell.action.name"));
+        Globals.getReportUndoManager().addEdit(edit);
     }
         
 }
@@ -16,20 +16,17 @@
  */
 package ro.nextreports.designer.action.report.layout.cell;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.ImageBandElement;
 import ro.nextreports.engine.band.ImageColumnBandElement;
-import ro.nextreports.engine.ReportLayout;
 
 import javax.swing.*;
 import javax.imageio.ImageIO;
 
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.ImageResizePanel;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.grid.event.SelectionModelEvent;
@@ -69,7 +66,7 @@ public class ImageSizeAction extends AbstractAction {
 				olds.add(be);
 			}
 		}
-        final ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        final CellsEdit edit = new CellsEdit(cells);
 
         Thread executorThread = new Thread(new Runnable() {
 
@@ -122,8 +119,8 @@ public class ImageSizeAction extends AbstractAction {
                         SelectionModelEvent selectionEvent = new SelectionModelEvent(Globals.getReportGrid().getSelectionModel(), false);
                         Globals.getReportDesignerPanel().getPropertiesPanel().selectionChanged(selectionEvent);
 
-                         ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-                         Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("size.image.action.name")));
+                         edit.end(I18NSupport.getString("size.image.action.name"));
+                         Globals.getReportUndoManager().addEdit(edit);
                     }
                 });
             }
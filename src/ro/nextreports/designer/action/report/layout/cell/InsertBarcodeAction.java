@@ -23,13 +23,12 @@ import javax.swing.Action;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.NextReportsUtil;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.BarcodeBandElement;
 import com.lowagie.text.pdf.BarcodeEAN;
@@ -63,7 +62,7 @@ public class InsertBarcodeAction extends AbstractAction {
         int column = selectionModel.getSelectedCell().getColumn();
         
         BandElement element = new BarcodeBandElement(BarcodeEAN.EAN13, DEFAULT_TEXT, false);
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
 
         grid.editCellAt(row, column, event);
@@ -23,13 +23,12 @@ import javax.swing.Action;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.NextReportsUtil;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.ChartBandElement;
 import ro.nextreports.engine.chart.Chart;
@@ -61,7 +60,7 @@ public class InsertChartAction extends AbstractAction {
         Chart defaultChart = new Chart();
         defaultChart.setName(DEFAULT_TEXT);
         BandElement element = new ChartBandElement(defaultChart);
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
 
         grid.editCellAt(row, column, event);
@@ -16,7 +16,6 @@
  */
 package ro.nextreports.designer.action.report.layout.cell;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.ExpressionBandElement;
 
@@ -27,6 +26,7 @@ import ro.nextreports.designer.ExpressionCellEditor;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 
@@ -62,7 +62,7 @@ public class InsertExpressionAction extends AbstractAction {
         BandElement element = new ExpressionBandElement("", "");
         BandUtil.copySettings(grid.getBandElement(selectionModel.getSelectedCell()), element);
         
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
 
         ExpressionCellEditor editor = (ExpressionCellEditor)grid.getCellEditor(row, column);
@@ -23,12 +23,11 @@ import javax.swing.Action;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.FunctionBandElement;
 
@@ -54,7 +53,7 @@ public class InsertFunctionAction extends AbstractAction {
         BandElement element = new FunctionBandElement(DEFAULT_TEXT, DEFAULT_TEXT);
         BandUtil.copySettings(grid.getBandElement(selectionModel.getSelectedCell()), element);
         
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
         
         grid.editCellAt(row, column, event);
@@ -16,7 +16,6 @@
  */
 package ro.nextreports.designer.action.report.layout.cell;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.HyperlinkBandElement;
 
@@ -24,8 +23,8 @@ import javax.swing.*;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 
@@ -55,7 +54,7 @@ public class InsertHyperlinkAction extends AbstractAction {
         BandElement element = new HyperlinkBandElement(DEFAULT_TEXT, DEFAULT_TEXT);
         BandUtil.copySettings(grid.getBandElement(selectionModel.getSelectedCell()), element);
         
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
 
         grid.editCellAt(row, column, event);
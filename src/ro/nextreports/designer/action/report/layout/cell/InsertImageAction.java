@@ -16,7 +16,6 @@
  */
 package ro.nextreports.designer.action.report.layout.cell;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.ImageBandElement;
 
@@ -24,8 +23,8 @@ import javax.swing.*;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.NextReportsUtil;
@@ -62,7 +61,7 @@ public class InsertImageAction extends AbstractAction {
         int column = selectionModel.getSelectedCell().getColumn();
 
         BandElement element = new ImageBandElement(DEFAULT_TEXT);
-        grid.putClientProperty("layoutBeforeInsert", ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout()));
+        grid.putClientProperty("editBeforeInsert", new CellsEdit(row, column, 1, 1));
         BandUtil.insertElement(element, row, column);
 
         grid.editCellAt(row, column, event);
@@ -24,10 +24,9 @@ import javax.swing.Action;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.MergeAlgorithm;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultSpanModel;
@@ -35,8 +34,6 @@ import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.util.ObjectCloner;
-import ro.nextreports.engine.ReportLayout;
 
 /**
  * @author Decebal Suiu
@@ -56,7 +53,7 @@ public class MergeCellsAction extends AbstractAction {
         int result = MergeAlgorithm.isPossible(cells);
         if (result == MergeAlgorithm.VALID) {
 
-            ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+            CellsEdit edit = new CellsEdit(cells);
 
             int firstRow = cells.get(0).getRow();
 			int firstColumn = cells.get(0).getColumn();
@@ -80,8 +77,8 @@ public class MergeCellsAction extends AbstractAction {
             	}
             }
 
-            ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-            Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("merge.action.name")));
+            edit.end(I18NSupport.getString("merge.action.name"));
+            Globals.getReportUndoManager().addEdit(edit);
         } else {
 			Show.info(I18NSupport.getString("merge.action.invalid") + " : " + message(result));
 		}
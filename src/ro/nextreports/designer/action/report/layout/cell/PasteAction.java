@@ -31,7 +31,11 @@ import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.MergeAlgorithm;
 import ro.nextreports.designer.PasteContext;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
+import ro.nextreports.designer.action.undo.ColumnsEdit;
+import ro.nextreports.designer.action.undo.RowsEdit;
+import ro.nextreports.designer.action.undo.SizedCompoundEdit;
+import ro.nextreports.designer.grid.AbstractGridModel;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultSpanModel;
@@ -40,9 +44,7 @@ import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ShortcutsUtil;
 import ro.nextreports.designer.util.Show;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.XStreamFactory;
-import ro.nextreports.engine.ReportLayout;
 import ro.nextreports.engine.band.BandElement;
 import ro.nextreports.engine.band.Band;
 
@@ -85,14 +87,23 @@ public class PasteAction extends AbstractAction {
             return;
         }
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+        // grid listeners are notified once for all pasted cells
+        AbstractGridModel model = (AbstractGridModel) grid.getModel();
 
         // paste a cell in one or more cells
         if (!multipleCopy) {
-            for (Cell cell : cells) {
-                PasteContext pasteContext = (PasteContext) XStreamFactory.createXStream().fromXML(data);
-                pasteElement(grid, pasteContext.getElements().get(0), cell, pasteContext.getColumnSizes().get(0));
+            CellsEdit edit = new CellsEdit(cells);
+            model.beginUpdate();
+            try {
+                for (Cell cell : cells) {
+                    PasteContext pasteContext = (PasteContext) XStreamFactory.createXStream().fromXML(data);
+                    pasteElement(grid, pasteContext.getElements().get(0), cell, pasteContext.getColumnSizes().get(0));
+                }
+            } finally {
+                model.endUpdate();
             }
+            edit.end(I18NSupport.getString("edit.insert.element"));
+            Globals.getReportUndoManager().addEdit(edit);
         // paste more cells starting from the selected cell
         } else {
             PasteContext pasteContext = (PasteContext) XStreamFactory.createXStream().fromXML(data);
@@ -115,58 +126,71 @@ public class PasteAction extends AbstractAction {
             //System.out.println("insertRows=" + insertRows);
             //System.out.println("insertColumns=" + insertColumns);
 
+            // undo reverts the pasted cells and then the inserted rows and columns
+            SizedCompoundEdit compoundEdit = new SizedCompoundEdit();
+
             // insert eventual rows and columns (at the end of the band)
             if (insertRows > 0) {
+                RowsEdit rowsEdit = new RowsEdit(null);
                 for (int i = 0; i < insertRows; i++) {
-                    Globals.getReportLayoutPanel().getReportGridPanel().insertRows(
-                           LayoutHelper.getReportLayout().getGridRow(bandName, bandRows - 1 + i),
+                    rowsEdit.insertRows(LayoutHelper.getReportLayout().getGridRow(bandName, bandRows - 1 + i),
                            selected.getColumn(), 1, true);
                 }
+                compoundEdit.addEdit(rowsEdit);
             }
             if (insertColumns > 0) {
+                ColumnsEdit columnsEdit = new ColumnsEdit(null);
                 for (int i = 0; i < insertColumns; i++) {
-                    Globals.getReportLayoutPanel().getReportGridPanel().insertColumns(
-                            selected.getRow(), bandColumns - 1 + i, 1, true);
+                    columnsEdit.insertColumns(selected.getRow(), bandColumns - 1 + i, 1, true);
                 }
+                compoundEdit.addEdit(columnsEdit);
             }
             selectionModel.clearSelection();
 
-            // paste all elements
-            List<BandElement> elements = pasteContext.getElements();
-            List<Integer> columnSizes = pasteContext.getColumnSizes();
-            int dR = selected.getRow() - topLeft.getRow();
-            int dC = selected.getColumn() - topLeft.getColumn();
-            for (int i=0, size=copyCells.size(); i<size; i++) {
-                Cell copyCell = copyCells.get(i);
-                BandElement element = elements.get(i);
-                int whereX = selected.getRow()+dR-(selected.getRow()-copyCell.getRow());
-                int whereY = selected.getColumn()+dC-(selected.getColumn()-copyCell.getColumn());
-                //System.out.println("copyCell="+copyCell + "  elem="+element);
-                //System.out.println("dR=" +dR + " dC="+dC);
-                //System.out.println("whereX="+whereX + "  whereY="+whereY);
-                pasteElement(grid, element, new Cell(whereX,whereY), columnSizes.get(i));
-            }
+            CellsEdit edit = new CellsEdit(selected.getRow(), selected.getColumn(), rows, columns);
+
+            model.beginUpdate();
+            try {
+                // paste all elements
+                List<BandElement> elements = pasteContext.getElements();
+                List<Integer> columnSizes = pasteContext.getColumnSizes();
+                int dR = selected.getRow() - topLeft.getRow();
+                int dC = selected.getColumn() - topLeft.getColumn();
+                for (int i=0, size=copyCells.size(); i<size; i++) {
+                    Cell copyCell = copyCells.get(i);
+                    BandElement element = elements.get(i);
+                    int whereX = selected.getRow()+dR-(selected.getRow()-copyCell.getRow());
+                    int whereY = selected.getColumn()+dC-(selected.getColumn()-copyCell.getColumn());
+                    //System.out.println("copyCell="+copyCell + "  elem="+element);
+                    //System.out.println("dR=" +dR + " dC="+dC);
+                    //System.out.println("whereX="+whereX + "  whereY="+whereY);
+                    pasteElement(grid, element, new Cell(whereX,whereY), columnSizes.get(i));
+                }
 
-            // create the span for pasted elements
-            DefaultSpanModel spanModel = (DefaultSpanModel) grid.getSpanModel();
-            List<CellSpan> visitedSpans = new ArrayList<CellSpan>();
-            for (int i = 0; i < rows; i++) {
-                for (int j = 0; j < columns; j++) {
-                    if (spanModel.isCellSpan(topLeft.getRow() + i, topLeft.getColumn() + j)) {
-                        CellSpan span = spanModel.getSpanOver(topLeft.getRow() + i, topLeft.getColumn() + j);
-                        if (!visitedSpans.contains(span)) {
-                            visitedSpans.add(span);                            
-                            CellSpan newSpan = new CellSpan(selected.getRow() + i, selected.getColumn() + j, span.getRowCount(), span.getColumnCount());
-                            spanModel.addSpan(newSpan);                            
-                            BandUtil.updateBandElement(newSpan);
+                // create the span for pasted elements
+                DefaultSpanModel spanModel = (DefaultSpanModel) grid.getSpanModel();
+                List<CellSpan> visitedSpans = new ArrayList<CellSpan>();
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        if (spanModel.isCellSpan(topLeft.getRow() + i, topLeft.getColumn() + j)) {
+                            CellSpan span = spanModel.getSpanOver(topLeft.getRow() + i, topLeft.getColumn() + j);
+                            if (!visitedSpans.contains(span)) {
+                                visitedSpans.add(span);                            
+                                CellSpan newSpan = new CellSpan(selected.getRow() + i, selected.getColumn() + j, span.getRowCount(), span.getColumnCount());
+                                spanModel.addSpan(newSpan);                            
+                                BandUtil.updateBandElement(newSpan);
+                            }
                         }
                     }
                 }
+            } finally {
+                model.endUpdate();
             }
+            edit.end(I18NSupport.getString("edit.insert.element"));
+            compoundEdit.addEdit(edit);
+            compoundEdit.end();
+            Globals.getReportUndoManager().addEdit(compoundEdit);
         }
-
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("edit.insert.element")));
     }
 
     private void pasteElement(ReportGrid grid, BandElement element, Cell cell, int columnSize) {
@@ -24,18 +24,15 @@ import javax.swing.Action;
 
 import ro.nextreports.designer.BandUtil;
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
 import ro.nextreports.designer.ReportGrid;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
 import ro.nextreports.designer.grid.Cell;
 import ro.nextreports.designer.grid.CellSpan;
 import ro.nextreports.designer.grid.DefaultSpanModel;
 import ro.nextreports.designer.grid.SelectionModel;
 import ro.nextreports.designer.util.I18NSupport;
 
-import ro.nextreports.engine.util.ObjectCloner;
 import ro.nextreports.engine.band.BandElement;
-import ro.nextreports.engine.ReportLayout;
 
 /**
  * @author Decebal Suiu
@@ -49,13 +46,15 @@ public class UnmergeCellsAction extends AbstractAction {
 
     public void actionPerformed(ActionEvent event) {
 
-        ReportLayout oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-
         ReportGrid grid = Globals.getReportGrid();
 		SelectionModel selectionModel = grid.getSelectionModel();
         DefaultSpanModel spanModel = (DefaultSpanModel) grid.getSpanModel();
 
         List<Cell> cells = selectionModel.getSelectedCells();
+        if (cells.isEmpty()) {
+            return;
+        }
+        CellsEdit edit = new CellsEdit(cells);
         for (Cell cell : cells) {
             CellSpan cellSpan = grid.getSpanModel().getSpanOver(cell.getRow(), cell.getColumn());
             spanModel.removeSpan(cellSpan);
@@ -69,8 +68,8 @@ public class UnmergeCellsAction extends AbstractAction {
             }
         }
 
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, I18NSupport.getString("unmerge.action.name")));
+        edit.end(I18NSupport.getString("unmerge.action.name"));
+        Globals.getReportUndoManager().addEdit(edit);
 
     }
 
@@ -20,10 +20,10 @@ import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
@@ -31,7 +31,6 @@ import java.util.Set;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.KeyStroke;
-import javax.swing.SwingUtilities;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -47,6 +46,7 @@ import ro.nextreports.designer.util.FileUtil;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
 import ro.nextreports.designer.util.MessageUtil;
+import ro.nextreports.designer.util.ProgressPublisher;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.designer.util.UIActivator;
 import ro.nextreports.engine.EngineProperties;
@@ -84,17 +84,13 @@ public abstract class ExportAction extends AbstractAction {
 
     private List<QueryParameter> oldParameters;
 
-    // threshold after which we do something for the notified event
-    protected int eventThreshold = 1;
-    protected int eventCounter = 0;
-
-    // if we have more than RECORDS, we notify after RECORDS_INCREMENT,
-    // otherwise at every record
-    private int RECORDS = 10000;
-    private int RECORDS_INCREMENT = 50;
-
     private boolean stop = false;
 
+    // streaming export : records are not counted before export (property 'export.streaming')
+    protected boolean streaming;
+    // time when query execution started, used for export statistics
+    protected long exportStart;
+
     public ExportAction(Report report) {
         this(report, false);
     }
@@ -238,6 +234,8 @@ public abstract class ExportAction extends AbstractAction {
                             I18NSupport.getString("generate.report"));
                     activator.start(new ExportStopAction());
 
+                    streaming = Globals.isExportStreaming();
+                    exportStart = System.currentTimeMillis();
                     qr = Globals.getMainFrame().getQueryBuilderPanel().runQuery(con, pBean, false);
                     if (activator != null) {
                         activator.stop();
@@ -247,12 +245,16 @@ public abstract class ExportAction extends AbstractAction {
                         return;
                     }
 
-                    final int records = qr.getRowCount();
-                    if (records > RECORDS) {
-                        eventThreshold = RECORDS_INCREMENT;
+                    if (streaming) {
+                        // counting the records would read the entire result before the first byte is written
+                        setFetchHints(qr);
+                        exporterActivator = new UIActivator(Globals.getMainFrame(),
+                                I18NSupport.getString("generate.report.export"));
+                    } else {
+                        final int records = qr.getRowCount();
+                        exporterActivator = new UIActivator(Globals.getMainFrame(),
+                                I18NSupport.getString("generate.report.export"), records);
                     }
-                    exporterActivator = new UIActivator(Globals.getMainFrame(),
-                            I18NSupport.getString("generate.report.export"), records);
                     exporterActivator.start(new ExportStopAction());
 
                     //
@@ -304,64 +306,149 @@ public abstract class ExportAction extends AbstractAction {
         executorThread.start();
     }
 
-    private boolean startExporter(String reportName, QueryResult qr, ParametersBean pBean, 
+    /**
+     * Export the result of the already executed query
+     *
+     * @param reportName generated file name without extension
+     * @param qr query result
+     * @param pBean parameters bean
+     * @param activator progress activator with the number of records as tasks (indeterminate if streaming)
+     * @param isProcedure true if query is a procedure call
+     * @return false if export was cancelled
+     * @throws Exception if export fails
+     */
+    protected boolean startExporter(String reportName, QueryResult qr, ParametersBean pBean, 
     		final UIActivator activator, boolean isProcedure) throws Exception {
     	
-    	System.gc();
 		String fileName = REPORTS_DIR + File.separator + reportName + "." + getFileExtension();
-		OutputStream fos = new FileOutputStream(fileName);
-        ReportLayout layout = LayoutHelper.getReportLayout();
-        if (report != null) {
-            layout = report.getLayout();
-        }       
-        
-        Connection con =  Globals.createTempConnection(Globals.getReportLayoutPanel().getRunDataSource());        
-        ReportLayout convertedLayout = ReportUtil.getDynamicReportLayout(con, layout, pBean);                        
+		ExportOutputStream fos = new ExportOutputStream(fileName, exportStart);
+        ReportLayout layout = getExportLayout();
         
-        ExporterBean eb = new ExporterBean(con, Globals.getQueryTimeout(), qr, fos, convertedLayout, pBean, getReportName(), false, isProcedure);
-        I18nLanguage language = I18nUtil.getDefaultLanguage(layout);
-        if (language != null) {
-        	eb.setLanguage(language.getName());
-        }
-        ResultExporter exporter = getResultExporter(eb);
-        exporter.setDocumentTitle(getReportName());
-        exporter.addExporterEventListener(new ExporterEventListener() {
-            public void notify(final ExporterEvent event) {
-                SwingUtilities.invokeLater(new Runnable() {
-                    public void run() {
-                        eventCounter++;
-                        if ((eventCounter % eventThreshold == 0) ||
-                            (eventCounter == event.getExporterObject().getRecordCount()) ){
-                            activator.updateProgress(event.getExporterObject().getRecord(),
-                                    event.getExporterObject().getRecord() + "/" +
-                                    event.getExporterObject().getRecordCount());
-                        }
-                    }
-                });
-            }
-        });
+        final ProgressPublisher publisher = new ProgressPublisher(activator,
+                I18NSupport.getString("generate.report.export"), activator.getTasks());
+        publisher.setStream(fos);
+        Connection con = null;
         boolean ok = true;
+        publisher.start();
+        // file (and the writer thread of an asynchronous stream) and pooled connection must be released
+        // also when export fails
         try {
-			ok = exporter.export();
+            con = Globals.createTempConnection(Globals.getReportLayoutPanel().getRunDataSource());
+            ReportLayout convertedLayout = ReportUtil.getDynamicReportLayout(con, layout, pBean);
+
+            ExporterBean eb = createExporterBean(con, qr, fos, layout, convertedLayout, pBean, isProcedure);
+            ResultExporter exporter = getResultExporter(eb);
+            exporter.setDocumentTitle(getReportName());
+            // called for every record : the publisher samples the count at a fixed rate
+            exporter.addExporterEventListener(new ExporterEventListener() {
+                public void notify(ExporterEvent event) {
+                    publisher.setCount(event.getExporterObject().getRecord());
+                }
+            });
+            ok = exporter.export();
+            // write errors are thrown from here
+            fos.close();
 		} catch (NoDataFoundException e) {
 			fos.close();
 			//
 			// Delete bad file?
-			if (fos instanceof FileOutputStream) {
-				(new File(fileName)).delete();
-			}
+			(new File(fileName)).delete();
 			throw new NoDataFoundException(I18NSupport.getString("run.nodata"));
-		} 
-		con.close();
-		fos.close();
-		System.gc();
+		} finally {
+			publisher.stop();
+			try {
+				fos.close();
+			} catch (IOException e) {
+				// export error is more relevant
+				LOG.error(e.getMessage(), e);
+			}
+			if (con != null) {
+				con.close();
+			}
+		}
+		logStatistics(fileName, fos, publisher.getCount());
         afterExport(fileName, getReportName());
         FileUtil.openFile(fileName, ExportAction.class);
         return ok;
     }
     
+    // forward only reading with a bigger fetch size : drivers may ignore or refuse these hints
+    private void setFetchHints(QueryResult qr) {
+        try {
+            ResultSet rs = qr.getResultSet();
+            if (rs.getType() == ResultSet.TYPE_FORWARD_ONLY) {
+                rs.setFetchDirection(ResultSet.FETCH_FORWARD);
+            }
+            rs.setFetchSize(Globals.getExportFetchSize());
+        } catch (SQLException e) {
+            LOG.warn("Cannot set fetch size : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Log time to first byte and rows per second for an exported file
+     *
+     * @param fileName exported file
+     * @param out stream used by the exporter
+     * @param records number of exported records
+     */
+    protected void logStatistics(String fileName, ExportOutputStream out, long records) {
+        long time = System.currentTimeMillis() - exportStart;
+        LOG.info("Exported " + records + " records to '" + fileName + "' in " + time + " ms (" +
+                ProgressPublisher.getRate(records, time) + " rows/s), first byte after " + out.getTimeToFirstByte() +
+                " ms, " + out.getBytes() + " bytes");
+    }
+
+    /**
+     * Layout to export : the layout of the report run from tree or the layout of the opened report
+     *
+     * @return layout to export
+     */
+    protected ReportLayout getExportLayout() {
+        if (report != null) {
+            return report.getLayout();
+        }
+        return LayoutHelper.getReportLayout();
+    }
+
+    protected ExporterBean createExporterBean(Connection con, QueryResult qr, OutputStream out, ReportLayout layout,
+    		ReportLayout convertedLayout, ParametersBean pBean, boolean isProcedure) {
+        return createExporterBean(con, qr, out, layout, convertedLayout, pBean, getReportName(), isProcedure);
+    }
+
+    protected ExporterBean createExporterBean(Connection con, QueryResult qr, OutputStream out, ReportLayout layout,
+    		ReportLayout convertedLayout, ParametersBean pBean, String reportName, boolean isProcedure) {
+        ExporterBean eb = new ExporterBean(con, Globals.getQueryTimeout(), qr, out, convertedLayout, pBean, reportName, false, isProcedure);
+        I18nLanguage language = I18nUtil.getDefaultLanguage(layout);
+        if (language != null) {
+        	eb.setLanguage(language.getName());
+        }
+        return eb;
+    }
+
     protected abstract String getFileExtension();
     protected abstract ResultExporter getResultExporter(ExporterBean bean);
+
+    /**
+     * Name of the format, shown when more formats are selected. Formats with the same file extension
+     * must return different names
+     *
+     * @return format name
+     */
+    protected String getFormatName() {
+        return getFileExtension().toUpperCase();
+    }
+
+    /**
+     * Added to the file name when more formats are exported together, so formats with the same
+     * file extension do not write the same file
+     *
+     * @return file name suffix
+     */
+    protected String getFileSuffix() {
+        return "";
+    }
+
     protected boolean hasMacro() {
     	return false;
     }
@@ -403,7 +490,7 @@ public abstract class ExportAction extends AbstractAction {
         return name;
     }
 
-    private String getNameWithoutExtension(String name)  {
+    static String getNameWithoutExtension(String name)  {
         int index = name.lastIndexOf(".");
         if (index == -1)  {
             return name;
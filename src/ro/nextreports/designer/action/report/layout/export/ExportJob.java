@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.BandUtil;
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.querybuilder.QueryExecutionService;
+import ro.nextreports.designer.querybuilder.RunningQuery;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ProgressPublisher;
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.ReportLayout;
+import ro.nextreports.engine.exporter.ExporterBean;
+import ro.nextreports.engine.exporter.ResultExporter;
+import ro.nextreports.engine.exporter.event.ExporterEvent;
+import ro.nextreports.engine.exporter.event.ExporterEventListener;
+import ro.nextreports.engine.exporter.exception.NoDataFoundException;
+import ro.nextreports.engine.exporter.util.ParametersBean;
+import ro.nextreports.engine.queryexec.QueryResult;
+import ro.nextreports.engine.util.ObjectCloner;
+import ro.nextreports.engine.util.QueryUtil;
+import ro.nextreports.engine.util.ReportUtil;
+
+/**
+ * Export of a report to a format, run in background by {@link ExportJobManager}.
+ *
+ * Parameters are selected and images are copied when the job is queued. The job does not show any dialog :
+ * the result (exported file or error message) is shown in {@link ExportJobsPanel}.
+ *
+ * Jobs of the same report share the report object, so every job exports its own copy of the layout. The
+ * exported file name contains the job id because reports from different folders can have the same name.
+ */
+public class ExportJob {
+
+    private static final Log LOG = LogFactory.getLog(ExportJob.class);
+
+    private static final AtomicInteger ids = new AtomicInteger();
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    private int id;
+    private Report report;
+    private String reportName;
+    private ExportAction format;
+    private DataSource dataSource;
+    private ParametersBean pBean;
+
+    private volatile State state = State.QUEUED;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile int rows;
+    private volatile String message;
+    private volatile String fileName;
+
+    private volatile boolean cancelled;
+    private volatile Thread thread;
+    private volatile RunningQuery query;
+
+    /**
+     * Constructor
+     *
+     * @param report report to export
+     * @param format export action of the report (used for file extension and exporter)
+     * @param dataSource data source to run the report on
+     * @param pBean selected parameters
+     */
+    public ExportJob(Report report, ExportAction format, DataSource dataSource, ParametersBean pBean) {
+        this.id = ids.incrementAndGet();
+        this.report = report;
+        this.reportName = ExportAction.getNameWithoutExtension(report.getName());
+        this.format = format;
+        this.dataSource = dataSource;
+        this.pBean = pBean;
+    }
+
+    public String getReportName() {
+        return reportName;
+    }
+
+    public String getFormatName() {
+        return format.getFormatName();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    public boolean isFinished() {
+        return (state == State.DONE) || (state == State.FAILED) || (state == State.CANCELLED);
+    }
+
+    /**
+     * Time from job start until now or until job end
+     *
+     * @return elapsed time in milliseconds, 0 if job did not start
+     */
+    public long getElapsedTime() {
+        if (startTime == 0) {
+            return 0;
+        }
+        return ((endTime == 0) ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getRowsPerSecond() {
+        return ProgressPublisher.getRate(rows, getElapsedTime());
+    }
+
+    /**
+     * Exported file, if job is done
+     *
+     * @return exported file name or null
+     */
+    public String getFileName() {
+        return (state == State.DONE) ? fileName : null;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Cancel a running job : the statement is cancelled and the job thread is interrupted (drivers may ignore
+     * the cancel of a statement which already returned, the exporter stops when interrupted)
+     */
+    void cancel() {
+        cancelled = true;
+        RunningQuery q = query;
+        if (q != null) {
+            q.cancel();
+        }
+        synchronized (this) {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    void run() {
+        thread = Thread.currentThread();
+        startTime = System.currentTimeMillis();
+        state = State.RUNNING;
+        Connection con = null;
+        QueryResult qr = null;
+        try {
+            if (cancelled) {
+                throw new InterruptedException();
+            }
+            Set<String> columns = BandUtil.getNotFoundColumns(report, dataSource);
+            if (columns.size() > 0) {
+                fail(I18NSupport.getString("band.column.notfound") + " " + columns);
+                return;
+            }
+
+            String sql = pBean.getQuery().getText();
+            boolean isProcedure = QueryUtil.isProcedureCall(sql);
+            con = Globals.createTempConnection(dataSource);
+            query = QueryExecutionService.getInstance().register(
+                    I18NSupport.getString("export.jobs") + " : " + reportName, sql, con);
+            if (cancelled) {
+                throw new InterruptedException();
+            }
+            qr = Globals.getMainFrame().getQueryBuilderPanel().runQuery(query, pBean, false);
+            if (qr == null) {
+                fail(null);
+                return;
+            }
+            export(qr, isProcedure, con);
+            state = State.DONE;
+        } catch (NoDataFoundException e) {
+            fail(I18NSupport.getString("run.nodata"));
+        } catch (InterruptedException e) {
+            state = State.CANCELLED;
+        } catch (Exception e) {
+            if (cancelled) {
+                state = State.CANCELLED;
+            } else {
+                LOG.error(e.getMessage(), e);
+                fail(e.getMessage());
+            }
+        } finally {
+            endTime = System.currentTimeMillis();
+            if (query != null) {
+                QueryExecutionService.getInstance().unregister(query);
+                query = null;
+            }
+            if (qr != null) {
+                qr.close();
+            }
+            if (con != null) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+            synchronized (this) {
+                thread = null;
+                // clear interrupted flag, the pool thread is reused
+                Thread.interrupted();
+            }
+        }
+    }
+
+    // the query connection is used also by the exporter (sub-reports, charts, functions)
+    private void export(QueryResult qr, boolean isProcedure, Connection con) throws Exception {
+        String file = ExportAction.REPORTS_DIR + File.separator + reportName + "_" + id + "." + format.getFileExtension();
+        ExportOutputStream out = new ExportOutputStream(file, startTime);
+        try {
+            // dynamic layout conversion and exporters may change the layout
+            ReportLayout layout = ObjectCloner.silenceDeepCopy(report.getLayout());
+            ReportLayout convertedLayout = ReportUtil.getDynamicReportLayout(con, layout, pBean);
+            ExporterBean eb = format.createExporterBean(con, qr, out, layout, convertedLayout, pBean, reportName, isProcedure);
+            ResultExporter exporter = format.getResultExporter(eb);
+            exporter.setDocumentTitle(reportName);
+            exporter.addExporterEventListener(new ExporterEventListener() {
+                public void notify(ExporterEvent event) {
+                    rows = event.getExporterObject().getRecord();
+                }
+            });
+            boolean ok = exporter.export();
+            out.close();
+            if (!ok || cancelled) {
+                throw new InterruptedException();
+            }
+            LOG.info("Export job '" + reportName + "' : " + rows + " records to '" + file + "' in " +
+                    getElapsedTime() + " ms, first byte after " + out.getTimeToFirstByte() + " ms, " +
+                    out.getBytes() + " bytes");
+            format.afterExport(file, reportName);
+            fileName = file;
+        } finally {
+            out.close();
+            if (fileName == null) {
+                // partial file of a cancelled or failed export
+                new File(file).delete();
+            }
+        }
+    }
+
+    private void fail(String message) {
+        this.message = message;
+        state = State.FAILED;
+    }
+
+}
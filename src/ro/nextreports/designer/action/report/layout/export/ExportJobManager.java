@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.engine.EngineProperties;
+
+/**
+ * Runs {@link ExportJob}s in background.
+ *
+ * Jobs are started in the order they were queued. At most 'export.jobs.threads' jobs run at the same time
+ * and at most 'export.jobs.datasource.limit' of them on the same data source; a job which cannot start
+ * because its data source is busy does not block the jobs queued after it for other data sources.
+ * Connections are taken from the data source pool.
+ */
+public class ExportJobManager {
+
+    private static ExportJobManager instance = new ExportJobManager();
+
+    // all jobs (queued, running and finished) in queue order
+    private final List<ExportJob> jobs = new ArrayList<ExportJob>();
+    // running jobs by data source name
+    private final Map<String, Integer> running = new HashMap<String, Integer>();
+    private int runningCount;
+    private ExecutorService executor;
+    private EventListenerList listenerList = new EventListenerList();
+
+    private ExportJobManager() {
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private int count = 0;
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NEXT : Export job " + (++count));
+                thread.setDaemon(true);
+                thread.setPriority(EngineProperties.getRunPriority());
+                return thread;
+            }
+        });
+    }
+
+    public static ExportJobManager getInstance() {
+        return instance;
+    }
+
+    public void submit(ExportJob job) {
+        synchronized (this) {
+            jobs.add(job);
+            schedule();
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Cancel a job. A queued job is not started anymore, a running job is stopped.
+     *
+     * @param job job to cancel
+     */
+    public void cancel(ExportJob job) {
+        synchronized (this) {
+            if (job.getState() == ExportJob.State.QUEUED) {
+                job.setState(ExportJob.State.CANCELLED);
+            } else if (job.getState() == ExportJob.State.RUNNING) {
+                job.cancel();
+            }
+        }
+        fireStateChanged();
+    }
+
+    public void cancelAll() {
+        for (ExportJob job : getJobs()) {
+            cancel(job);
+        }
+    }
+
+    /**
+     * Remove finished jobs from the list
+     */
+    public void clearFinished() {
+        synchronized (this) {
+            for (Iterator<ExportJob> it = jobs.iterator(); it.hasNext();) {
+                if (it.next().isFinished()) {
+                    it.remove();
+                }
+            }
+        }
+        fireStateChanged();
+    }
+
+    public synchronized List<ExportJob> getJobs() {
+        return new ArrayList<ExportJob>(jobs);
+    }
+
+    // start the first queued jobs allowed by the limits
+    private void schedule() {
+        int threads = Math.max(1, Globals.getExportJobsThreads());
+        int limit = Math.max(1, Globals.getExportJobsDataSourceLimit());
+        for (ExportJob job : jobs) {
+            if (runningCount >= threads) {
+                break;
+            }
+            if (job.getState() != ExportJob.State.QUEUED) {
+                continue;
+            }
+            String name = job.getDataSource().getName();
+            Integer count = running.get(name);
+            if ((count != null) && (count >= limit)) {
+                continue;
+            }
+            running.put(name, (count == null) ? 1 : count + 1);
+            runningCount++;
+            // marked as running now, so it is not scheduled again before its thread starts
+            job.setState(ExportJob.State.RUNNING);
+            start(job);
+        }
+    }
+
+    private void start(final ExportJob job) {
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    job.run();
+                } finally {
+                    finished(job);
+                }
+            }
+        });
+    }
+
+    private void finished(ExportJob job) {
+        synchronized (this) {
+            String name = job.getDataSource().getName();
+            Integer count = running.get(name);
+            if ((count == null) || (count <= 1)) {
+                running.remove(name);
+            } else {
+                running.put(name, count - 1);
+            }
+            runningCount--;
+            schedule();
+        }
+        fireStateChanged();
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listenerList.remove(ChangeListener.class, listener);
+    }
+
+    // listeners are notified in event dispatch thread
+    private void fireStateChanged() {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                ChangeEvent event = new ChangeEvent(ExportJobManager.this);
+                for (ChangeListener listener : listenerList.getListeners(ChangeListener.class)) {
+                    listener.stateChanged(event);
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JToolBar;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+
+import org.jdesktop.swingx.JXTable;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.ui.BaseDialog;
+import ro.nextreports.designer.util.FileUtil;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+
+/**
+ * Shows the jobs from {@link ExportJobManager} with their state and progress,
+ * and allows to cancel them or to open the exported files.
+ */
+public class ExportJobsPanel extends JPanel {
+
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private static BaseDialog dialog;
+
+    private JXTable table;
+    private ExportJobsTableModel model;
+    private Timer timer;
+    private ChangeListener managerListener;
+
+    public ExportJobsPanel() {
+        super();
+        initUI();
+    }
+
+    /**
+     * Show the export jobs dialog. Only one dialog is created, next calls just bring it to front.
+     */
+    public static void showDialog() {
+        if (dialog == null) {
+            dialog = new BaseDialog(new ExportJobsPanel(), I18NSupport.getString("export.jobs"), false) {
+                protected Action[] getButtonActions() {
+                    return new Action[]{closeAction};
+                }
+            };
+            dialog.pack();
+            dialog.setLocationRelativeTo(Globals.getMainFrame());
+        }
+        dialog.setVisible(true);
+        dialog.toFront();
+    }
+
+    private void initUI() {
+        model = new ExportJobsTableModel();
+        table = new JXTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnExt(7).setPreferredWidth(250);
+
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        toolBar.add(new CancelJobAction());
+        toolBar.add(new ClearFinishedAction());
+        toolBar.add(new OpenFileAction());
+
+        setLayout(new BorderLayout());
+        add(toolBar, BorderLayout.NORTH);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(750, 200));
+        add(scroll, BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                model.refresh();
+            }
+        });
+        managerListener = new ChangeListener() {
+            public void stateChanged(ChangeEvent e) {
+                model.reload();
+            }
+        };
+    }
+
+    public void addNotify() {
+        super.addNotify();
+        ExportJobManager.getInstance().addChangeListener(managerListener);
+        model.reload();
+        timer.start();
+    }
+
+    public void removeNotify() {
+        timer.stop();
+        ExportJobManager.getInstance().removeChangeListener(managerListener);
+        super.removeNotify();
+    }
+
+    private ExportJob getSelectedJob() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            return null;
+        }
+        return model.getJob(table.convertRowIndexToModel(row));
+    }
+
+    class CancelJobAction extends AbstractAction {
+
+        public CancelJobAction() {
+            putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("stop_execution"));
+            putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("export.jobs.cancel"));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            ExportJob job = getSelectedJob();
+            if (job != null) {
+                ExportJobManager.getInstance().cancel(job);
+            }
+        }
+    }
+
+    class ClearFinishedAction extends AbstractAction {
+
+        public ClearFinishedAction() {
+            putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("clear"));
+            putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("export.jobs.clear"));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            ExportJobManager.getInstance().clearFinished();
+        }
+    }
+
+    class OpenFileAction extends AbstractAction {
+
+        public OpenFileAction() {
+            putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("report_export"));
+            putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("export.jobs.open"));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            ExportJob job = getSelectedJob();
+            if ((job != null) && (job.getFileName() != null)) {
+                FileUtil.openFile(job.getFileName(), ExportJobsPanel.class);
+            }
+        }
+    }
+
+    static class ExportJobsTableModel extends AbstractTableModel {
+
+        private final DecimalFormat timeFormat = new DecimalFormat("0.0 sec");
+        private final String[] columnNames = {
+                I18NSupport.getString("export.jobs.report"),
+                I18NSupport.getString("export.jobs.format"),
+                I18NSupport.getString("export.jobs.datasource"),
+                I18NSupport.getString("export.jobs.state"),
+                I18NSupport.getString("export.jobs.elapsed"),
+                I18NSupport.getString("export.jobs.rows"),
+                I18NSupport.getString("export.jobs.rate"),
+                I18NSupport.getString("export.jobs.result")
+        };
+
+        private List<ExportJob> jobs = new ArrayList<ExportJob>();
+
+        public void reload() {
+            jobs = ExportJobManager.getInstance().getJobs();
+            fireTableDataChanged();
+        }
+
+        // only values changed : keep selection
+        public void refresh() {
+            if (jobs.size() > 0) {
+                fireTableRowsUpdated(0, jobs.size() - 1);
+            }
+        }
+
+        public ExportJob getJob(int row) {
+            return jobs.get(row);
+        }
+
+        public int getRowCount() {
+            return jobs.size();
+        }
+
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            ExportJob job = jobs.get(row);
+            switch (column) {
+                case 0:
+                    return job.getReportName();
+                case 1:
+                    return job.getFormatName();
+                case 2:
+                    return job.getDataSource().getName();
+                case 3:
+                    return I18NSupport.getString("export.jobs.state." + job.getState().name().toLowerCase());
+                case 4:
+                    return timeFormat.format(job.getElapsedTime() / 1000.0);
+                case 5:
+                    return job.getRows();
+                case 6:
+                    return job.getRowsPerSecond();
+                default:
+                    if (job.getFileName() != null) {
+                        return job.getFileName();
+                    }
+                    return (job.getMessage() == null) ? "" : job.getMessage();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.util.AsyncOutputStream;
+import ro.nextreports.designer.util.CountingOutputStream;
+
+/**
+ * Buffered file stream used by exporters. If property 'export.async.write' is true the file is written
+ * by a background thread.
+ *
+ * Keeps the time when the exporter wrote the first byte and the number of written bytes. Close can be
+ * called more than once (some exporters close the stream themselves).
+ */
+class ExportOutputStream extends CountingOutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // maximum number of buffers waiting to be written by the async writer
+    private static final int ASYNC_BUFFERS = 16;
+
+    /**
+     * Constructor
+     *
+     * @param fileName file to write
+     * @param start time when export started, time to first byte is computed from it
+     * @throws FileNotFoundException if file cannot be created
+     */
+    public ExportOutputStream(String fileName, long start) throws FileNotFoundException {
+        super(new BufferedOutputStream(open(fileName), BUFFER_SIZE), start);
+    }
+
+    private static OutputStream open(String fileName) throws FileNotFoundException {
+        OutputStream fos = new FileOutputStream(fileName);
+        if (Globals.isExportAsyncWrite()) {
+            return new AsyncOutputStream(fos, ASYNC_BUFFERS);
+        }
+        return fos;
+    }
+
+}
@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.ConnectionPool;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.ui.BaseDialog;
+import ro.nextreports.designer.util.FileUtil;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+import ro.nextreports.designer.util.ProgressPublisher;
+import ro.nextreports.designer.util.Show;
+import ro.nextreports.designer.util.UIActivator;
+import ro.nextreports.engine.EngineProperties;
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.ReportLayout;
+import ro.nextreports.engine.exporter.ExporterBean;
+import ro.nextreports.engine.exporter.ResultExporter;
+import ro.nextreports.engine.exporter.event.ExporterEvent;
+import ro.nextreports.engine.exporter.event.ExporterEventListener;
+import ro.nextreports.engine.exporter.exception.NoDataFoundException;
+import ro.nextreports.engine.exporter.util.ParametersBean;
+import ro.nextreports.engine.queryexec.QueryResult;
+import ro.nextreports.engine.util.ObjectCloner;
+import ro.nextreports.engine.util.ReportUtil;
+
+/**
+ * Runs the report query once and exports the result to several formats in parallel.
+ *
+ * A JDBC cursor cannot be read by more exporters at the same time, so when more than one format is selected
+ * the rows are first copied into a local {@link CachedRowSet}. Every exporter reads its own cursor over the
+ * shared rows and uses its own connection (needed for sub-reports, charts and functions) and its own copy of
+ * the layout. With a single format the query result is exported directly, like in {@link ExportAction}.
+ *
+ * The number of parallel exporters is limited by the free connections of the pool. Results bigger than
+ * 'export.formats.memory.rows' (or not counted because of streaming) are not copied : the formats are exported
+ * one after another and the query is run again for every format after the first.
+ */
+public class ExportToFormatsAction extends ExportAction {
+
+    private static final Log LOG = LogFactory.getLog(ExportToFormatsAction.class);
+
+    // formats selected last time (format names)
+    private static Set<String> lastSelection = new HashSet<String>(Arrays.asList("PDF", "XLSX", "CSV"));
+
+    private List<ExportAction> formats;
+    private List<ExportAction> selectedFormats = new ArrayList<ExportAction>();
+
+    public ExportToFormatsAction(Report report) {
+        super(report);
+        putValue(NAME, I18NSupport.getString("export.formats.short.desc"));
+        putValue(SMALL_ICON, ImageUtil.getImageIcon("export"));
+        putValue(MNEMONIC_KEY, new Integer('F'));
+        putValue(SHORT_DESCRIPTION, I18NSupport.getString("export.formats.long.desc"));
+        putValue(LONG_DESCRIPTION, I18NSupport.getString("export.formats.long.desc"));
+
+        formats = createFormats(report);
+    }
+
+    /**
+     * Create the export actions of all formats, always in the same order
+     *
+     * @param report report run from tree or null for the opened report
+     * @return export actions
+     */
+    static List<ExportAction> createFormats(Report report) {
+        List<ExportAction> formats = new ArrayList<ExportAction>();
+        formats.add(new ExportToHtmlAction(report));
+        formats.add(new ExportToExcelAction(report));
+        formats.add(new ExportToExcelXAction(report));
+        formats.add(new ExportToPdfAction(report));
+        formats.add(new ExportToDocxAction(report));
+        formats.add(new ExportToRtfAction(report));
+        formats.add(new ExportToCsvAction(report));
+        formats.add(new ExportToTsvAction(report));
+        formats.add(new ExportToXmlAction(report));
+        formats.add(new ExportToTxtAction(report));
+        formats.add(new ExportToJSONSimpleAction(report));
+        formats.add(new ExportToJSONFullAction(report));
+        return formats;
+    }
+
+    public void actionPerformed(ActionEvent event) {
+        if (selectFormats()) {
+            super.actionPerformed(event);
+        }
+    }
+
+    private boolean selectFormats() {
+        List<Integer> selection = selectFormats(formats);
+        if (selection == null) {
+            return false;
+        }
+        selectedFormats = new ArrayList<ExportAction>();
+        for (Integer index : selection) {
+            selectedFormats.add(formats.get(index));
+        }
+        return true;
+    }
+
+    /**
+     * Show a dialog to select formats. Must be called in event dispatch thread
+     *
+     * @param formats formats created with {@link #createFormats(Report)}
+     * @return indexes of selected formats, null if dialog was cancelled
+     */
+    static List<Integer> selectFormats(List<ExportAction> formats) {
+        final FormatsPanel panel = new FormatsPanel(formats);
+        BaseDialog dialog = new BaseDialog(panel, I18NSupport.getString("export.formats.select"), true) {
+            protected boolean ok() {
+                if (panel.getSelectedIndexes().isEmpty()) {
+                    Show.info(this, I18NSupport.getString("export.formats.none"));
+                    return false;
+                }
+                return true;
+            }
+        };
+        dialog.pack();
+        dialog.setLocationRelativeTo(Globals.getMainFrame());
+        dialog.setVisible(true);
+        if (!dialog.okPressed()) {
+            return null;
+        }
+        List<Integer> indexes = panel.getSelectedIndexes();
+        Set<String> selection = new HashSet<String>();
+        for (Integer index : indexes) {
+            selection.add(formats.get(index).getFormatName());
+        }
+        lastSelection = selection;
+        return indexes;
+    }
+
+    @Override
+    protected boolean startExporter(final String reportName, QueryResult qr, final ParametersBean pBean,
+            final UIActivator activator, final boolean isProcedure) throws Exception {
+        final List<ExportAction> exports = selectedFormats;
+        if (exports.size() == 1) {
+            ExportAction format = exports.get(0);
+            format.streaming = streaming;
+            format.exportStart = exportStart;
+            return format.startExporter(reportName, qr, pBean, activator, isProcedure);
+        }
+
+        if (streaming || (activator.getTasks() > Globals.getExportFormatsMemoryRows())) {
+            return exportSequential(exports, reportName, qr, pBean, activator, isProcedure);
+        }
+
+        long start = System.currentTimeMillis();
+        activator.updateText(I18NSupport.getString("export.formats.spool"));
+        CachedRowSet rows = RowSetProvider.newFactory().createCachedRowSet();
+        List<ResultSet> cursors = new ArrayList<ResultSet>();
+        ExecutorService executor = null;
+        ProgressPublisher publisher = null;
+        boolean ok = true;
+        try {
+            rows.populate(qr.getResultSet());
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Copied " + rows.size() + " records in " + (System.currentTimeMillis() - start) + " ms");
+            }
+
+            final ReportLayout layout = getExportLayout();
+            final DataSource runDS = Globals.getReportLayoutPanel().getRunDataSource();
+            final List<FormatProgressListener> listeners = new ArrayList<FormatProgressListener>();
+            for (ExportAction format : exports) {
+                listeners.add(new FormatProgressListener(format.getFormatName()));
+            }
+            publisher = new FormatsPublisher(activator, rows.size(), listeners);
+            publisher.start();
+            executor = Executors.newFixedThreadPool(getWorkers(runDS, exports.size()), new ThreadFactory() {
+                private int count = 0;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "NEXT : Export " + (++count));
+                    thread.setDaemon(true);
+                    thread.setPriority(EngineProperties.getRunPriority());
+                    return thread;
+                }
+            });
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < exports.size(); i++) {
+                final int index = i;
+                ResultSet cursor = rows.createShared();
+                cursors.add(cursor);
+                final QueryResult result = new QueryResult(cursor, qr.getExecuteTime());
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        return export(exports.get(index), reportName, result, layout, runDS,
+                                pBean, isProcedure, listeners.get(index));
+                    }
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                try {
+                    ok = future.get() && ok;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+        } finally {
+            if (publisher != null) {
+                publisher.stop();
+            }
+            if (executor != null) {
+                // stops the other exporters if one failed or the export was cancelled
+                executor.shutdownNow();
+            }
+            for (ResultSet cursor : cursors) {
+                close(cursor);
+            }
+            close(rows);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Exported " + exports.size() + " formats in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        if (ok) {
+            for (ExportAction format : exports) {
+                FileUtil.openFile(getFileName(format, reportName), ExportAction.class);
+            }
+        }
+        return ok;
+    }
+
+    // every worker borrows a connection : the query connection is already borrowed
+    private int getWorkers(DataSource runDS, int formats) {
+        if (!Globals.isConnectionPoolEnabled()) {
+            return formats;
+        }
+        int available = ConnectionPool.getInstance(runDS).getAvailableCount();
+        return Math.max(1, Math.min(formats, available));
+    }
+
+    private boolean exportSequential(List<ExportAction> exports, String reportName, QueryResult qr,
+            ParametersBean pBean, UIActivator activator, boolean isProcedure) throws Exception {
+        DataSource runDS = Globals.getReportLayoutPanel().getRunDataSource();
+        for (int i = 0; i < exports.size(); i++) {
+            ExportAction format = exports.get(i);
+            format.streaming = streaming;
+            format.exportStart = exportStart;
+            String fileName = reportName + format.getFileSuffix();
+            if (i == 0) {
+                if (!format.startExporter(fileName, qr, pBean, activator, isProcedure)) {
+                    return false;
+                }
+                continue;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            activator.updateText(I18NSupport.getString("generate.report"));
+            Connection con = Globals.createTempConnection(runDS);
+            QueryResult result = null;
+            try {
+                result = Globals.getMainFrame().getQueryBuilderPanel().runQuery(con, pBean, false);
+                if ((result == null) || !format.startExporter(fileName, result, pBean, activator, isProcedure)) {
+                    return false;
+                }
+            } finally {
+                if (result != null) {
+                    result.close();
+                }
+                con.close();
+            }
+        }
+        return true;
+    }
+
+    private boolean export(ExportAction format, String reportName, QueryResult result,
+            ReportLayout layout, DataSource runDS, ParametersBean pBean, boolean isProcedure,
+            FormatProgressListener listener) throws Exception {
+        String fileName = getFileName(format, reportName);
+        ExportOutputStream fos = new ExportOutputStream(fileName, exportStart);
+        listener.stream = fos;
+        Connection con = null;
+        try {
+            con = Globals.createTempConnection(runDS);
+            // dynamic layout conversion and exporters may change the layout
+            ReportLayout convertedLayout = ReportUtil.getDynamicReportLayout(con, ObjectCloner.silenceDeepCopy(layout), pBean);
+            ExporterBean eb = format.createExporterBean(con, result, fos, layout, convertedLayout, pBean, isProcedure);
+            ResultExporter exporter = format.getResultExporter(eb);
+            exporter.setDocumentTitle(getReportName());
+            exporter.addExporterEventListener(listener);
+            boolean ok;
+            try {
+                ok = exporter.export();
+            } catch (NoDataFoundException e) {
+                fos.close();
+                (new File(fileName)).delete();
+                throw new NoDataFoundException(I18NSupport.getString("run.nodata"));
+            }
+            fos.close();
+            logStatistics(fileName, fos, listener.record);
+            if (ok) {
+                format.afterExport(fileName, getReportName());
+            }
+            return ok;
+        } finally {
+            fos.close();
+            if (con != null) {
+                con.close();
+            }
+        }
+    }
+
+    private String getFileName(ExportAction format, String reportName) {
+        return REPORTS_DIR + File.separator + reportName + format.getFileSuffix() + "." + format.getFileExtension();
+    }
+
+    private void close(ResultSet rs) {
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            LOG.error(e.getMessage(), e);
+        }
+    }
+
+    // not used : every selected format has its own exporter
+    @Override
+    protected String getFileExtension() {
+        return null;
+    }
+
+    @Override
+    protected ResultExporter getResultExporter(ExporterBean bean) {
+        return null;
+    }
+
+    private static class FormatProgressListener implements ExporterEventListener {
+
+        private String name;
+        // last record passed by the exporter
+        private volatile int record;
+        private volatile ExportOutputStream stream;
+
+        public FormatProgressListener(String name) {
+            this.name = name;
+        }
+
+        // called from exporter thread for every record : the publisher samples the value
+        public void notify(ExporterEvent event) {
+            record = event.getExporterObject().getRecord();
+        }
+    }
+
+    // progress bar shows the slowest format, text shows every format
+    private static class FormatsPublisher extends ProgressPublisher {
+
+        private List<FormatProgressListener> listeners;
+
+        public FormatsPublisher(UIActivator activator, long total, List<FormatProgressListener> listeners) {
+            super(activator, I18NSupport.getString("generate.report.export"), total);
+            this.listeners = listeners;
+        }
+
+        protected long sampleCount() {
+            long min = Long.MAX_VALUE;
+            for (FormatProgressListener listener : listeners) {
+                min = Math.min(min, listener.record);
+            }
+            return min;
+        }
+
+        protected long sampleBytes() {
+            long bytes = 0;
+            for (FormatProgressListener listener : listeners) {
+                ExportOutputStream stream = listener.stream;
+                if (stream != null) {
+                    bytes += stream.getBytes();
+                }
+            }
+            return bytes;
+        }
+
+        protected String getStatistics(long records, long rate, long bytes, long elapsed) {
+            StringBuilder sb = new StringBuilder();
+            for (FormatProgressListener listener : listeners) {
+                sb.append(listener.name).append(" ").append(listener.record).append("/").append(getTotal()).append("   ");
+            }
+            sb.append("<br>").append(super.getStatistics(records, rate, bytes, elapsed));
+            return sb.toString();
+        }
+    }
+
+    private static class FormatsPanel extends JPanel {
+
+        private List<JCheckBox> checks = new ArrayList<JCheckBox>();
+
+        public FormatsPanel(List<ExportAction> formats) {
+            setLayout(new GridLayout(0, 2, 5, 2));
+            setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            for (ExportAction format : formats) {
+                JCheckBox check = new JCheckBox(format.getFormatName(), lastSelection.contains(format.getFormatName()));
+                check.setToolTipText((String) format.getValue(LONG_DESCRIPTION));
+                checks.add(check);
+                add(check);
+            }
+        }
+
+        public List<Integer> getSelectedIndexes() {
+            List<Integer> result = new ArrayList<Integer>();
+            for (int i = 0; i < checks.size(); i++) {
+                if (checks.get(i).isSelected()) {
+                    result.add(i);
+                }
+            }
+            return result;
+        }
+    }
+
+}
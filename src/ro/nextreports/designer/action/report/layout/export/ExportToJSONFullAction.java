@@ -45,6 +45,16 @@ public class ExportToJSONFullAction extends ExportAction {
 		return "json";
 	}
 
+	@Override
+	protected String getFormatName() {
+		return "JSON FULL";
+	}
+
+	@Override
+	protected String getFileSuffix() {
+		return "_full";
+	}
+
 	@Override
 	protected ResultExporter getResultExporter(ExporterBean bean) {
 		JSONFullExporter exporter = new JSONFullExporter(bean, Globals.getCsvDelimiter());
@@ -45,6 +45,16 @@ public class ExportToJSONSimpleAction extends ExportAction {
 		return "json";
 	}
 
+	@Override
+	protected String getFormatName() {
+		return "JSON SIMPLE";
+	}
+
+	@Override
+	protected String getFileSuffix() {
+		return "_simple";
+	}
+
 	@Override
 	protected ResultExporter getResultExporter(ExporterBean bean) {
 		JSONSimpleExporter exporter = new JSONSimpleExporter(bean, Globals.getCsvDelimiter());
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.report.layout.export;
+
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.SwingUtilities;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.FormLoader;
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.querybuilder.DBBrowserNode;
+import ro.nextreports.designer.querybuilder.DBBrowserTree;
+import ro.nextreports.designer.querybuilder.DBObject;
+import ro.nextreports.designer.querybuilder.ParameterManager;
+import ro.nextreports.designer.util.FileUtil;
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+import ro.nextreports.designer.util.MessageUtil;
+import ro.nextreports.designer.util.Show;
+
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.exporter.util.ParametersBean;
+import ro.nextreports.engine.queryexec.QueryParameter;
+import ro.nextreports.engine.util.QueryUtil;
+
+/**
+ * Queue the export of a report, or of all reports from a folder, in {@link ExportJobManager}.
+ * Formats and parameters are selected here, then the jobs run in background.
+ */
+public class QueueExportAction extends AbstractAction {
+
+    private static final Log LOG = LogFactory.getLog(QueueExportAction.class);
+
+    private DBObject object;
+
+    public QueueExportAction(DBObject object) {
+        putValue(Action.NAME, I18NSupport.getString("export.jobs.queue"));
+        putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("export"));
+        putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("export.jobs.queue.desc"));
+        putValue(Action.LONG_DESCRIPTION, I18NSupport.getString("export.jobs.queue.desc"));
+        this.object = object;
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        final List<Integer> selection = ExportToFormatsAction.selectFormats(ExportToFormatsAction.createFormats(null));
+        if (selection == null) {
+            return;
+        }
+
+        Thread executorThread = new Thread(new Runnable() {
+
+            public void run() {
+                if (MessageUtil.showReconnect()) {
+                    return;
+                }
+                List<String> paths = new ArrayList<String>();
+                if (object.getType() == DBObject.REPORTS) {
+                    paths.add(object.getAbsolutePath());
+                } else {
+                    DBBrowserTree tree = Globals.getMainFrame().getQueryBuilderPanel().getTree();
+                    DBBrowserNode node;
+                    if (object.getType() == DBObject.REPORTS_GROUP) {
+                        node = tree.searchNode(object.getName());
+                    } else {
+                        node = tree.searchNode(object.getName(), object.getAbsolutePath(), object.getType());
+                    }
+                    collectReports(node, tree, paths);
+                }
+                int jobs = queue(paths, selection);
+                if (jobs > 0) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            ExportJobsPanel.showDialog();
+                        }
+                    });
+                }
+            }
+        }, "NEXT : " + getClass().getSimpleName());
+        executorThread.start();
+    }
+
+    private void collectReports(DBBrowserNode node, DBBrowserTree tree, List<String> paths) {
+        if (node.getChildCount() == 0) {
+            tree.startExpandingTree(node, false, null);
+        }
+        for (int i = 0, size = node.getChildCount(); i < size; i++) {
+            DBBrowserNode child = (DBBrowserNode) node.getChildAt(i);
+            DBObject childObject = child.getDBObject();
+            if (childObject.getType() == DBObject.FOLDER_REPORT) {
+                collectReports(child, tree, paths);
+            } else if (childObject.getType() == DBObject.REPORTS) {
+                paths.add(childObject.getAbsolutePath());
+            }
+        }
+    }
+
+    // parameters are selected for every report (in this thread) and then the jobs are submitted
+    private int queue(List<String> paths, List<Integer> selection) {
+        DataSource runDS = Globals.getReportLayoutPanel().getRunDataSource();
+        List<QueryParameter> oldParameters = ParameterManager.getInstance().getParameters();
+        String oldTreePath = Globals.getTreeReportAbsolutePath();
+        int jobs = 0;
+        try {
+            for (String path : paths) {
+                Report report = FormLoader.getInstance().load(path, false);
+                if (report == null) {
+                    continue;
+                }
+                ParameterManager.getInstance().setParameters(report.getParameters());
+                ParametersBean pBean = Globals.getMainFrame().getQueryBuilderPanel().selectParameters(report, runDS);
+                if (pBean == null) {
+                    continue;
+                }
+                if (QueryUtil.restrictQueryExecution(pBean.getQuery().getText())) {
+                    Show.info(I18NSupport.getString("export.action.execute"));
+                    continue;
+                }
+
+                // images are resolved relative to the tree report path which is global
+                Globals.setTreeReportAbsolutePath(path);
+                try {
+                    FileUtil.copyImagesToClasspath(report);
+                    FileUtil.copyTemplateToClasspath(report);
+                } catch (IOException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+
+                List<ExportAction> formats = ExportToFormatsAction.createFormats(report);
+                for (Integer index : selection) {
+                    ExportJobManager.getInstance().submit(new ExportJob(report, formats.get(index), runDS, pBean));
+                    jobs++;
+                }
+            }
+        } finally {
+            ParameterManager.getInstance().setParameters(oldParameters);
+            Globals.setTreeReportAbsolutePath(oldTreePath);
+        }
+        return jobs;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import java.util.List;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.grid.Cell;
+
+/**
+ * Edit of the elements and spans from a region of the report grid (cell edit, paste, clear, merge ..).
+ * Only the region is kept and undo / redo put its elements back in place.
+ *
+ * The edit is created before the change and {@link #end(String)} must be called after the change.
+ */
+public class CellsEdit extends AbstractUndoableEdit implements SizedEdit {
+
+    private String name;
+    private CellsState oldState;
+    private CellsState newState;
+
+    public CellsEdit(int row, int column, int rowCount, int columnCount) {
+        oldState = new CellsState(Globals.getReportGrid(), row, column, rowCount, columnCount);
+    }
+
+    /**
+     * Edit for the region which contains all the cells
+     *
+     * @param cells cells
+     */
+    public CellsEdit(List<Cell> cells) {
+        int firstRow = Integer.MAX_VALUE;
+        int firstColumn = Integer.MAX_VALUE;
+        int lastRow = -1;
+        int lastColumn = -1;
+        for (Cell cell : cells) {
+            firstRow = Math.min(firstRow, cell.getRow());
+            firstColumn = Math.min(firstColumn, cell.getColumn());
+            lastRow = Math.max(lastRow, cell.getRow());
+            lastColumn = Math.max(lastColumn, cell.getColumn());
+        }
+        if (lastRow < 0) {
+            firstRow = firstColumn = 0;
+        }
+        oldState = new CellsState(Globals.getReportGrid(), firstRow, firstColumn,
+                lastRow - firstRow + 1, lastColumn - firstColumn + 1);
+    }
+
+    /**
+     * Keep the region after the change
+     *
+     * @param name presentation name
+     */
+    public void end(String name) {
+        this.name = name;
+        newState = new CellsState(Globals.getReportGrid(), oldState);
+    }
+
+    public long getSize() {
+        return oldState.getSize() + ((newState == null) ? 0 : newState.getSize());
+    }
+
+    @Override
+    public String getPresentationName() {
+        if (name == null) {
+            return "";
+        }
+        return name;
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+        super.undo();
+
+        oldState.restore(Globals.getReportGrid());
+        Globals.getReportDesignerPanel().getPropertiesPanel().refresh();
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+        super.redo();
+
+        newState.restore(Globals.getReportGrid());
+        Globals.getReportDesignerPanel().getPropertiesPanel().refresh();
+    }
+
+}
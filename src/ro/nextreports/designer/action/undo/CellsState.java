@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ro.nextreports.designer.BandUtil;
+import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.grid.AbstractGridModel;
+import ro.nextreports.designer.grid.CellSpan;
+import ro.nextreports.designer.grid.DefaultSpanModel;
+
+import ro.nextreports.engine.band.BandElement;
+
+/**
+ * Elements and spans from a region of the report grid. The region is enlarged to contain all the spans
+ * which intersect it, so restoring it never breaks a span.
+ */
+class CellsState {
+
+    private int row;
+    private int column;
+    private int rowCount;
+    private int columnCount;
+    private Snapshot<ArrayList<BandElement>> elements;
+    // row, column, row count and column count for every span
+    private int[] spans;
+
+    /**
+     * Keep the state of a region
+     */
+    public CellsState(ReportGrid grid, int row, int column, int rowCount, int columnCount) {
+        this(grid, expand(grid, row, column, rowCount, columnCount));
+    }
+
+    private CellsState(ReportGrid grid, int[] region) {
+        row = region[0];
+        column = region[1];
+        rowCount = region[2];
+        columnCount = region[3];
+
+        ArrayList<BandElement> list = new ArrayList<BandElement>(rowCount * columnCount);
+        List<CellSpan> spanList = new ArrayList<CellSpan>();
+        for (int i = row; i < row + rowCount; i++) {
+            for (int j = column; j < column + columnCount; j++) {
+                list.add(grid.getBandElement(i, j));
+                if (grid.getSpanModel().isCellSpan(i, j)) {
+                    CellSpan span = grid.getSpanModel().getSpanOver(i, j);
+                    if ((span.getFirstRow() == i) && (span.getFirstColumn() == j)) {
+                        spanList.add(span);
+                    }
+                }
+            }
+        }
+        elements = new Snapshot<ArrayList<BandElement>>(list);
+        spans = new int[spanList.size() * 4];
+        for (int i = 0, n = spanList.size(); i < n; i++) {
+            CellSpan span = spanList.get(i);
+            spans[4 * i] = span.getRow();
+            spans[4 * i + 1] = span.getColumn();
+            spans[4 * i + 2] = span.getRowCount();
+            spans[4 * i + 3] = span.getColumnCount();
+        }
+    }
+
+    /**
+     * Keep the state of the same region as another state
+     */
+    public CellsState(ReportGrid grid, CellsState state) {
+        this(grid, new int[] {state.row, state.column, state.rowCount, state.columnCount});
+    }
+
+    /**
+     * Put back the elements and spans of the region
+     */
+    public void restore(ReportGrid grid) {
+        DefaultSpanModel spanModel = (DefaultSpanModel) grid.getSpanModel();
+        AbstractGridModel model = (AbstractGridModel) grid.getModel();
+        List<BandElement> list = elements.get();
+        model.beginUpdate();
+        try {
+            Set<CellSpan> removed = new HashSet<CellSpan>();
+            for (int i = row; i < row + rowCount; i++) {
+                for (int j = column; j < column + columnCount; j++) {
+                    if (spanModel.isCellSpan(i, j)) {
+                        CellSpan span = spanModel.getSpanOver(i, j);
+                        if (removed.add(span)) {
+                            spanModel.removeSpan(span);
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < spans.length; i += 4) {
+                spanModel.addSpan(new CellSpan(spans[i], spans[i + 1], spans[i + 2], spans[i + 3]));
+            }
+            int k = 0;
+            for (int i = row; i < row + rowCount; i++) {
+                for (int j = column; j < column + columnCount; j++) {
+                    BandUtil.insertElement(list.get(k++), i, j);
+                }
+            }
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getSize() {
+        return elements.getSize() + spans.length * 4;
+    }
+
+    // enlarge the region until it contains all spans which intersect it
+    private static int[] expand(ReportGrid grid, int row, int column, int rowCount, int columnCount) {
+        int firstRow = Math.max(row, 0);
+        int firstColumn = Math.max(column, 0);
+        int lastRow = Math.min(row + rowCount, grid.getRowCount()) - 1;
+        int lastColumn = Math.min(column + columnCount, grid.getColumnCount()) - 1;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = firstRow; i <= lastRow; i++) {
+                for (int j = firstColumn; j <= lastColumn; j++) {
+                    // only the border of the region can be crossed by a span
+                    if ((i != firstRow) && (i != lastRow) && (j != firstColumn) && (j != lastColumn)) {
+                        continue;
+                    }
+                    if (!grid.getSpanModel().isCellSpan(i, j)) {
+                        continue;
+                    }
+                    CellSpan span = grid.getSpanModel().getSpanOver(i, j);
+                    if ((span.getFirstRow() < firstRow) || (span.getLastRow() > lastRow) ||
+                            (span.getFirstColumn() < firstColumn) || (span.getLastColumn() > lastColumn)) {
+                        firstRow = Math.min(firstRow, span.getFirstRow());
+                        lastRow = Math.max(lastRow, span.getLastRow());
+                        firstColumn = Math.min(firstColumn, span.getFirstColumn());
+                        lastColumn = Math.max(lastColumn, span.getLastColumn());
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return new int[] {firstRow, firstColumn, Math.max(lastRow - firstRow + 1, 0),
+                Math.max(lastColumn - firstColumn + 1, 0)};
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.ReportGridPanel;
+import ro.nextreports.designer.ReportLayoutUtil;
+
+/**
+ * Columns inserted or removed in the report grid. Columns must be inserted and removed through this edit,
+ * which records the operations; undo reverts them in place and redo performs them again.
+ * For removed columns, the widths and the cells (with the spans which cross them) are kept.
+ *
+ * Removing all the columns of the grid resets the layout and must be recorded with a {@link LayoutEdit}.
+ */
+public class ColumnsEdit extends AbstractUndoableEdit implements SizedEdit {
+
+    private String name;
+    private List<RowsEdit.Operation> operations = new ArrayList<RowsEdit.Operation>();
+
+    public ColumnsEdit(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Insert columns before or after a column
+     *
+     * @see ReportGridPanel#insertColumns(int, int, int, boolean)
+     */
+    public void insertColumns(int row, int column, int columnCount, boolean after) {
+        Insert insert = new Insert(row, column, columnCount, after);
+        insert.perform();
+        operations.add(insert);
+    }
+
+    /**
+     * Remove columns
+     *
+     * @see ReportGridPanel#removeColumns(int, int)
+     */
+    public void removeColumns(int column, int columnCount) {
+        Remove remove = new Remove(column, columnCount);
+        remove.perform();
+        operations.add(remove);
+    }
+
+    public long getSize() {
+        long size = 0;
+        for (RowsEdit.Operation operation : operations) {
+            size += operation.getSize();
+        }
+        return size;
+    }
+
+    @Override
+    public String getPresentationName() {
+        if (name == null) {
+            return "";
+        }
+        return name;
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+        super.undo();
+
+        for (int i = operations.size() - 1; i >= 0; i--) {
+            operations.get(i).revert();
+        }
+        updateColumnWidth();
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+        super.redo();
+
+        for (RowsEdit.Operation operation : operations) {
+            operation.perform();
+        }
+        updateColumnWidth();
+    }
+
+    private static void updateColumnWidth() {
+        ReportGrid grid = Globals.getReportGrid();
+        grid.getSelectionModel().clearSelection();
+        ReportLayoutUtil.updateColumnWidth(grid);
+        getReportGridPanel().repaintHeaders();
+    }
+
+    private static ReportGridPanel getReportGridPanel() {
+        return Globals.getReportLayoutPanel().getReportGridPanel();
+    }
+
+    private static class Insert implements RowsEdit.Operation {
+
+        private int row;
+        private int column;
+        private int columnCount;
+        private boolean after;
+        private int insertedColumn;
+
+        public Insert(int row, int column, int columnCount, boolean after) {
+            this.row = row;
+            this.column = column;
+            this.columnCount = columnCount;
+            this.after = after;
+        }
+
+        public void perform() {
+            insertedColumn = getReportGridPanel().insertColumns(row, column, columnCount, after);
+        }
+
+        public void revert() {
+            getReportGridPanel().removeColumns(insertedColumn, columnCount);
+        }
+
+        public long getSize() {
+            return 0;
+        }
+    }
+
+    private static class Remove implements RowsEdit.Operation {
+
+        private int column;
+        private int columnCount;
+        private int[] widths;
+        private CellsState cells;
+
+        public Remove(int column, int columnCount) {
+            this.column = column;
+            this.columnCount = columnCount;
+        }
+
+        public void perform() {
+            ReportGrid grid = Globals.getReportGrid();
+            widths = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                widths[i] = grid.getColumnWidth(column + i);
+            }
+            cells = new CellsState(grid, 0, column, grid.getRowCount(), columnCount);
+
+            getReportGridPanel().removeColumns(column, columnCount);
+        }
+
+        public void revert() {
+            getReportGridPanel().insertColumns(0, column, columnCount, false);
+            ReportGrid grid = Globals.getReportGrid();
+            for (int i = 0; i < columnCount; i++) {
+                grid.setColumnWidth(column + i, widths[i]);
+            }
+            cells.restore(grid);
+        }
+
+        public long getSize() {
+            return widths.length * 4 + cells.getSize();
+        }
+    }
+
+}
@@ -27,23 +27,36 @@ import ro.nextreports.designer.ReportLayoutUtil;
 import ro.nextreports.designer.action.report.layout.ClearLayoutAction;
 
 /**
+ * Edit which keeps the entire report layout before and after the change. It is used only for changes
+ * which cannot be replayed in place (groups, templates, clear layout ..), other changes use
+ * {@link CellsEdit}, {@link RowsEdit} and {@link ColumnsEdit}.
+ *
+ * Layouts are kept as compressed snapshots.
+ *
  * Created by IntelliJ IDEA.
  * User: mihai.panaitescu
  * Date: 04-Mar-2009
  * Time: 13:58:43
  */
-public class LayoutEdit extends AbstractUndoableEdit {
+public class LayoutEdit extends AbstractUndoableEdit implements SizedEdit {
 
-    private ReportLayout oldLayout;
-    private ReportLayout newLayout;
+    private Snapshot<ReportLayout> oldLayout;
+    private Snapshot<ReportLayout> newLayout;
     private String name;
 
+    /**
+     * Layouts are serialized by constructor, so the current layout can be passed as new layout.
+     */
     public LayoutEdit(ReportLayout oldLayout, ReportLayout newLayout, String name) {
-        this.oldLayout = oldLayout;
-        this.newLayout = newLayout;
+        this.oldLayout = new Snapshot<ReportLayout>(oldLayout, true);
+        this.newLayout = new Snapshot<ReportLayout>(newLayout, true);
         this.name = name;
     }
 
+    public long getSize() {
+        return oldLayout.getSize() + newLayout.getSize();
+    }
+
     @Override
 	public String getPresentationName() {
         if (name == null) {
@@ -56,23 +69,22 @@ public class LayoutEdit extends AbstractUndoableEdit {
 	public void undo() throws CannotUndoException {
 		super.undo();
 
-        if (oldLayout == null) {
-            new ClearLayoutAction(true).actionPerformed(null);
-        } else {
-            ReportLayoutUtil.setCurrentGroupIndex(oldLayout);
-            Globals.getMainFrame().getQueryBuilderPanel().loadReport(oldLayout);
-        }
+        load(oldLayout.get());
 	}
 
 	@Override
 	public void redo() throws CannotRedoException {
 		super.redo();
 
-        if (newLayout == null) {
+        load(newLayout.get());
+	}
+
+    private void load(ReportLayout layout) {
+        if (layout == null) {
             new ClearLayoutAction(true).actionPerformed(null);
         } else {
-            ReportLayoutUtil.setCurrentGroupIndex(newLayout);
-            Globals.getMainFrame().getQueryBuilderPanel().loadReport(newLayout);
-        }        
-	}
+            ReportLayoutUtil.setCurrentGroupIndex(layout);
+            Globals.getMainFrame().getQueryBuilderPanel().loadReport(layout);
+        }
+    }
 }
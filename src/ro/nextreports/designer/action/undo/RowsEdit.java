@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.LayoutHelper;
+import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.ReportGridPanel;
+
+import ro.nextreports.engine.band.Band;
+import ro.nextreports.engine.band.RowElement;
+
+/**
+ * Rows inserted or removed in the report grid. Rows must be inserted and removed through this edit,
+ * which records the operations; undo reverts them in place and redo performs them again.
+ * For removed rows, the row elements and the cells (with the spans which cross them) are kept.
+ *
+ * Removing all the rows of the grid resets the layout and must be recorded with a {@link LayoutEdit}.
+ */
+public class RowsEdit extends AbstractUndoableEdit implements SizedEdit {
+
+    private String name;
+    private List<Operation> operations = new ArrayList<Operation>();
+
+    public RowsEdit(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Insert rows before or after a row
+     *
+     * @see ReportGridPanel#insertRows(int, int, int, boolean)
+     */
+    public void insertRows(int row, int column, int rowCount, boolean after) {
+        Insert insert = new Insert(row, column, rowCount, after);
+        insert.perform();
+        operations.add(insert);
+    }
+
+    /**
+     * Remove rows
+     *
+     * @see ReportGridPanel#removeRows(int, int)
+     */
+    public void removeRows(int row, int rowCount) {
+        Remove remove = new Remove(row, rowCount);
+        remove.perform();
+        operations.add(remove);
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public long getSize() {
+        long size = 0;
+        for (Operation operation : operations) {
+            size += operation.getSize();
+        }
+        return size;
+    }
+
+    @Override
+    public String getPresentationName() {
+        if (name == null) {
+            return "";
+        }
+        return name;
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+        super.undo();
+
+        for (int i = operations.size() - 1; i >= 0; i--) {
+            operations.get(i).revert();
+        }
+        Globals.getReportGrid().getSelectionModel().clearSelection();
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+        super.redo();
+
+        for (Operation operation : operations) {
+            operation.perform();
+        }
+        Globals.getReportGrid().getSelectionModel().clearSelection();
+    }
+
+    private static ReportGridPanel getReportGridPanel() {
+        return Globals.getReportLayoutPanel().getReportGridPanel();
+    }
+
+    interface Operation {
+
+        public void perform();
+
+        public void revert();
+
+        public long getSize();
+
+    }
+
+    private static class Insert implements Operation {
+
+        private int row;
+        private int column;
+        private int rowCount;
+        private boolean after;
+        private int insertedRow;
+
+        public Insert(int row, int column, int rowCount, boolean after) {
+            this.row = row;
+            this.column = column;
+            this.rowCount = rowCount;
+            this.after = after;
+        }
+
+        public void perform() {
+            insertedRow = getReportGridPanel().insertRows(row, column, rowCount, after);
+        }
+
+        public void revert() {
+            getReportGridPanel().removeRows(insertedRow, rowCount);
+        }
+
+        public long getSize() {
+            return 0;
+        }
+    }
+
+    private static class Remove implements Operation {
+
+        private int row;
+        private int rowCount;
+        private String bandName;
+        private int bandRow;
+        private Snapshot<ArrayList<RowElement>> rowElements;
+        private CellsState cells;
+
+        public Remove(int row, int rowCount) {
+            this.row = row;
+            this.rowCount = rowCount;
+        }
+
+        public void perform() {
+            ReportGrid grid = Globals.getReportGrid();
+            bandName = grid.getBandName(row);
+            bandRow = grid.getBandLocation(bandName).getRow(row);
+            Band band = LayoutHelper.getReportLayout().getBand(bandName);
+            rowElements = new Snapshot<ArrayList<RowElement>>(
+                    new ArrayList<RowElement>(band.getElements().subList(bandRow, bandRow + rowCount)));
+            cells = new CellsState(grid, row, 0, rowCount, grid.getColumnCount());
+
+            getReportGridPanel().removeRows(row, rowCount);
+        }
+
+        public void revert() {
+            getReportGridPanel().insertRows(bandName, bandRow, rowCount);
+            Band band = LayoutHelper.getReportLayout().getBand(bandName);
+            List<RowElement> list = rowElements.get();
+            for (int i = 0; i < rowCount; i++) {
+                band.getElements().set(bandRow + i, list.get(i));
+            }
+            cells.restore(Globals.getReportGrid());
+        }
+
+        public long getSize() {
+            return rowElements.getSize() + cells.getSize();
+        }
+    }
+
+}
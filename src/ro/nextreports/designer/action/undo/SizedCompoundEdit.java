@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import javax.swing.undo.CompoundEdit;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * Compound edit whose size is the sum of the sizes of its {@link SizedEdit} children.
+ */
+public class SizedCompoundEdit extends CompoundEdit implements SizedEdit {
+
+    public synchronized long getSize() {
+        long size = 0;
+        for (UndoableEdit edit : edits) {
+            if (edit instanceof SizedEdit) {
+                size += ((SizedEdit) edit).getSize();
+            }
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * An undoable edit which knows how much memory it keeps. {@link ro.nextreports.designer.ReportUndoManager}
+ * discards the oldest edits when the sum of their sizes exceeds the configured limit.
+ */
+public interface SizedEdit extends UndoableEdit {
+
+    /**
+     * Get the memory kept by the edit for undo and redo
+     *
+     * @return size in bytes
+     */
+    public long getSize();
+
+}
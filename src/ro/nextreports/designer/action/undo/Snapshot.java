@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.action.undo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Serialized (and optionally compressed) copy of an object kept by an undoable edit.
+ *
+ * The bytes take much less memory than a deep copy of the object, their size is known, and every
+ * {@link #get()} returns a new copy, so an object put back in the layout by undo can be changed
+ * without changing the snapshot.
+ */
+public class Snapshot<T extends Serializable> {
+
+    private static final Log LOG = LogFactory.getLog(Snapshot.class);
+
+    // object size when serialization is not possible
+    private static final int UNKNOWN_SIZE = 1024;
+
+    private byte[] bytes;
+    private boolean compressed;
+    // kept only if the object cannot be serialized
+    private T value;
+
+    public Snapshot(T value) {
+        this(value, false);
+    }
+
+    public Snapshot(T value, boolean compressed) {
+        this.compressed = compressed;
+        if (value == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            OutputStream out = compressed ? new DeflaterOutputStream(bos) : bos;
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.close();
+            bytes = bos.toByteArray();
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            this.value = value;
+        }
+    }
+
+    /**
+     * Get a new copy of the object
+     *
+     * @return copy of the object, or null if the snapshot was created for null
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        if (bytes == null) {
+            return value;
+        }
+        try {
+            InputStream in = new ByteArrayInputStream(bytes);
+            if (compressed) {
+                in = new InflaterInputStream(in);
+            }
+            ObjectInputStream ois = new ObjectInputStream(in);
+            try {
+                return (T) ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the memory used by snapshot
+     *
+     * @return size in bytes
+     */
+    public int getSize() {
+        if (bytes != null) {
+            return bytes.length;
+        }
+        return (value == null) ? 0 : UNKNOWN_SIZE;
+    }
+
+}
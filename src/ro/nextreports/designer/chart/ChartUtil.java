@@ -17,11 +17,7 @@
 package ro.nextreports.designer.chart;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,11 +25,13 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.thoughtworks.xstream.XStream;
-
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.i18n.action.I18nManager;
+import ro.nextreports.designer.persistence.ContentIndex;
 import ro.nextreports.designer.persistence.FileReportPersistence;
+import ro.nextreports.designer.persistence.ReportCache;
+import ro.nextreports.designer.persistence.ReportStore;
+import ro.nextreports.designer.persistence.XStreamPool;
 import ro.nextreports.designer.querybuilder.DBObject;
 import ro.nextreports.designer.querybuilder.ParameterManager;
 import ro.nextreports.designer.querybuilder.SaveEntityDialog;
@@ -42,7 +40,6 @@ import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.engine.ReleaseInfoAdapter;
 import ro.nextreports.engine.Report;
-import ro.nextreports.engine.XStreamFactory;
 import ro.nextreports.engine.chart.Chart;
 import ro.nextreports.engine.chart.ChartType;
 import ro.nextreports.engine.exporter.util.function.FunctionFactory;
@@ -171,30 +168,17 @@ public class ChartUtil {
 	}
 
 	public static Chart loadChart(String path) {
-		FileInputStream fis = null;
 		try {
-			fis = new FileInputStream(path);
-			return loadChart(fis);
+			return ReportCache.loadChart(path);
 		} catch (Exception e1) {
 			e1.printStackTrace();
 			return null;
-		} finally {
-			if (fis != null) {
-				try {
-					fis.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
 		}
 	}
 
 	public static Chart loadChart(InputStream is) {
-		XStream xstream = XStreamFactory.createXStream();
-		InputStreamReader reader = null;
 		try {
-			reader = new InputStreamReader(is, "UTF-8");
-			return (Chart) xstream.fromXML(reader);
+			return (Chart) XStreamPool.ENGINE.fromXML(is);
 		} catch (Exception e1) {
 			e1.printStackTrace();
 			return null;
@@ -234,8 +218,6 @@ public class ChartUtil {
 	}
 
 	private static void saveXStream(File file, Chart chart) throws Exception {
-		XStream xstream = XStreamFactory.createXStream();
-		FileOutputStream fos = new FileOutputStream(file);
 		if (chart == null) {
 			chart = Globals.getChartDesignerPanel().getChart();
 			chart.setVersion(ReleaseInfoAdapter.getVersionNumber());
@@ -248,8 +230,10 @@ public class ChartUtil {
 		System.out.println("----- set Languages = " + I18nManager.getInstance().getLanguages());
 		chart.setI18nkeys(I18nManager.getInstance().getKeys());
 		chart.setLanguages(I18nManager.getInstance().getLanguages());
-		xstream.toXML(chart, fos);
-		fos.close();
+		ReportCache.remove(file.getAbsolutePath());
+		XStreamPool.ENGINE.toXML(chart, file);
+		ReportStore.save(file, chart);
+		ContentIndex.update(file);
 	}
 
 	private static String askSave(String title, Chart chart) {
@@ -302,6 +286,9 @@ public class ChartUtil {
 		File newFile = new File(parentPath + File.separator + newName + CHART_FULL_EXTENSION);
 		boolean result = file.renameTo(newFile);
 		if (result) {
+			ContentIndex.remove(file.getAbsolutePath());
+			ReportCache.remove(file.getAbsolutePath());
+			ReportStore.delete(file.getAbsolutePath());
 			if (file.getAbsolutePath().equals(Globals.getCurrentChartAbsolutePath())) {
 				Globals.setCurrentChartAbsolutePath(newFile.getAbsolutePath());
 			}
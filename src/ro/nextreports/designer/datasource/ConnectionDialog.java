@@ -395,7 +395,8 @@ public class ConnectionDialog extends JDialog implements ActionListener, ItemLis
                         ds.setUrl(mURL.getText());
                         ds.setUser(mUser.getText());
                         ds.setProperties(p);
-                        mConnection = Globals.createTempConnection(ds);
+                        // test the connection properties : do not use a pooled connection
+                        mConnection = Globals.createDirectConnection(ds);
 
                         DBViewer v = new DefaultDBViewer();
                         final DBInfo info = v.getDBInfo(DBInfo.INFO, mConnection);
@@ -0,0 +1,467 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.exception.ConnectionException;
+
+/**
+ * Pool of connections for a data source.
+ *
+ * A connection obtained from the pool is returned to the pool when it is closed. Idle connections are validated
+ * when they are borrowed and are closed if they were not used for more than the idle timeout. If all the
+ * connections are used, a borrower waits at most the borrow timeout for one to be released.
+ * Statements created on a borrowed connection and not closed by the borrower (with their result sets) are
+ * closed when the connection is returned, so open cursors do not pile up on reused connections. Auto commit,
+ * read only, catalog and transaction isolation changed by the borrower are restored too.
+ *
+ * A connection which is never closed is never returned : when a borrower times out, the connections in use
+ * are logged with the stack trace of the code which borrowed them.
+ *
+ * Pools are kept by data source name and must be drained (see {@link #drain(String)}) when a data source is
+ * disconnected or modified.
+ */
+public class ConnectionPool {
+
+    private static final Log LOG = LogFactory.getLog(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT = 2;
+
+    private static final Map<String, ConnectionPool> pools = new HashMap<String, ConnectionPool>();
+
+    private DataSource dataSource;
+    private String signature;
+    private int maxSize;
+    private long idleTimeout;
+    private long borrowTimeout;
+
+    // most recently used connection is the first
+    private LinkedList<IdleConnection> idle = new LinkedList<IdleConnection>();
+    private int active;
+    // borrowed connections, oldest first
+    private Set<PooledConnectionHandler> borrows = new LinkedHashSet<PooledConnectionHandler>();
+    private boolean closed;
+
+    private long created;
+    private long borrowed;
+
+    /**
+     * Create a pool
+     *
+     * @param dataSource data source
+     * @param maxSize maximum number of connections (idle and active)
+     * @param idleTimeout time in seconds after which an idle connection is closed
+     * @param borrowTimeout time in seconds to wait for a connection if all are used
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, int idleTimeout, int borrowTimeout) {
+        this.dataSource = dataSource;
+        this.signature = getSignature(dataSource);
+        this.maxSize = Math.max(1, maxSize);
+        this.idleTimeout = idleTimeout * 1000L;
+        this.borrowTimeout = borrowTimeout * 1000L;
+    }
+
+    /**
+     * Get the pool for a data source. If the data source connection properties were changed
+     * the old pool is drained and a new one is created.
+     *
+     * @param dataSource data source
+     * @return connection pool
+     */
+    public static synchronized ConnectionPool getInstance(DataSource dataSource) {
+        ConnectionPool pool = pools.get(dataSource.getName());
+        if ((pool != null) && !pool.signature.equals(getSignature(dataSource))) {
+            pools.remove(dataSource.getName());
+            pool.close();
+            pool = null;
+        }
+        if (pool == null) {
+            pool = new ConnectionPool(dataSource, Globals.getConnectionPoolSize(),
+                    Globals.getConnectionPoolIdleTimeout(), Globals.getConnectionTimeout());
+            pools.put(dataSource.getName(), pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Close all idle connections of a data source pool. Connections in use are closed when they are released.
+     *
+     * @param dataSourceName data source name
+     */
+    public static synchronized void drain(String dataSourceName) {
+        ConnectionPool pool = pools.remove(dataSourceName);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    public static synchronized void drainAll() {
+        for (ConnectionPool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    private static String getSignature(DataSource dataSource) {
+        return dataSource.getDriver() + "|" + dataSource.getUrl() + "|" + dataSource.getUser() + "|" +
+                dataSource.getPassword() + "|" + dataSource.getProperties();
+    }
+
+    /**
+     * Borrow a connection. The connection must be closed to return it to the pool.
+     *
+     * @return connection
+     * @throws ConnectionException if a connection cannot be created or none is released during borrow timeout
+     */
+    public Connection getConnection() throws ConnectionException {
+        long deadline = System.currentTimeMillis() + borrowTimeout;
+        while (true) {
+            Connection connection = null;
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new ConnectionException("Connection pool for '" + dataSource.getName() + "' is closed.");
+                    }
+                    evictIdleConnections();
+                    if (!idle.isEmpty()) {
+                        connection = idle.removeFirst().connection;
+                        active++;
+                        break;
+                    }
+                    if (active + idle.size() < maxSize) {
+                        active++;
+                        break;
+                    }
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        logBorrows();
+                        throw new ConnectionException("Timeout waiting for a free connection to '" +
+                                dataSource.getName() + "' (" + maxSize + " connections in use).");
+                    }
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ConnectionException("Interrupted while waiting for a connection.", e);
+                    }
+                }
+            }
+
+            if (connection == null) {
+                try {
+                    connection = createConnection();
+                } catch (ConnectionException e) {
+                    releaseSlot();
+                    throw e;
+                }
+                synchronized (this) {
+                    created++;
+                    borrowed++;
+                }
+                return wrap(connection);
+            }
+
+            if (isValid(connection)) {
+                synchronized (this) {
+                    borrowed++;
+                }
+                return wrap(connection);
+            }
+            // stale connection : discard it and try again
+            closeQuietly(connection);
+            releaseSlot();
+        }
+    }
+
+    protected Connection createConnection() throws ConnectionException {
+        return Globals.createDirectConnection(dataSource);
+    }
+
+    private synchronized void releaseSlot() {
+        active--;
+        notifyAll();
+    }
+
+    private void release(PooledConnectionHandler handler, List<Statement> statements) {
+        for (Statement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+        Connection connection = handler.connection;
+        boolean reusable;
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            handler.restoreState();
+            reusable = !connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        synchronized (this) {
+            active--;
+            borrows.remove(handler);
+            if (reusable && !closed) {
+                idle.addFirst(new IdleConnection(connection));
+                connection = null;
+            }
+            notifyAll();
+        }
+        if (connection != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT);
+        } catch (AbstractMethodError e) {
+            // old JDBC 3 driver
+        } catch (SQLException e) {
+            // driver does not support validation
+        }
+        try {
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // must be called with lock held
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (Iterator<IdleConnection> it = idle.descendingIterator(); it.hasNext();) {
+            IdleConnection ic = it.next();
+            if (now - ic.since < idleTimeout) {
+                // remaining connections were used more recently
+                break;
+            }
+            it.remove();
+            closeQuietly(ic.connection);
+        }
+    }
+
+    private void close() {
+        LinkedList<IdleConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = idle;
+            idle = new LinkedList<IdleConnection>();
+            notifyAll();
+        }
+        for (IdleConnection ic : toClose) {
+            closeQuietly(ic.connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.error(e.getMessage(), e);
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        PooledConnectionHandler handler = new PooledConnectionHandler(connection);
+        synchronized (this) {
+            borrows.add(handler);
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, handler);
+    }
+
+    // must be called with lock held
+    private void logBorrows() {
+        long now = System.currentTimeMillis();
+        for (PooledConnectionHandler handler : borrows) {
+            LOG.warn("Connection to '" + dataSource.getName() + "' in use for " + (now - handler.since) + " ms",
+                    handler.borrower);
+        }
+    }
+
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Number of connections that can be borrowed now without waiting (idle or not created yet)
+     */
+    public synchronized int getAvailableCount() {
+        return maxSize - active;
+    }
+
+    public synchronized String getStatistics() {
+        return "Connection pool '" + dataSource.getName() + "' : active=" + active + " idle=" + idle.size() +
+                " created=" + created + " borrowed=" + borrowed;
+    }
+
+    private static class IdleConnection {
+
+        private Connection connection;
+        private long since;
+
+        public IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.since = System.currentTimeMillis();
+        }
+    }
+
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private static final int PRUNE_SIZE = 64;
+
+        private Connection connection;
+        private boolean released;
+        // statements created by the borrower, closed on release
+        private List<Statement> statements = new ArrayList<Statement>();
+
+        private long since = System.currentTimeMillis();
+        private Throwable borrower = new Throwable("Borrowed by thread '" + Thread.currentThread().getName() + "'");
+
+        // values before the first change made by the borrower, restored on release
+        private Boolean readOnly;
+        private boolean catalogSaved;
+        private String catalog;
+        private Integer isolation;
+
+        public PooledConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                List<Statement> open;
+                synchronized (this) {
+                    if (released) {
+                        return null;
+                    }
+                    released = true;
+                    open = statements;
+                }
+                release(this, open);
+                return null;
+            } else if ("isClosed".equals(name)) {
+                synchronized (this) {
+                    if (released) {
+                        return Boolean.TRUE;
+                    }
+                }
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name)) {
+                return "Pooled " + connection;
+            }
+            synchronized (this) {
+                if (released) {
+                    throw new SQLException("Connection is closed.");
+                }
+            }
+            if (name.startsWith("set")) {
+                saveState(name);
+            }
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                // createStatement, prepareStatement, prepareCall
+                track((Statement) result);
+            }
+            return result;
+        }
+
+        private synchronized void track(Statement statement) {
+            if (statements.size() >= PRUNE_SIZE) {
+                // forget statements already closed by the borrower
+                for (Iterator<Statement> it = statements.iterator(); it.hasNext();) {
+                    if (isClosed(it.next())) {
+                        it.remove();
+                    }
+                }
+            }
+            statements.add(statement);
+        }
+
+        private void saveState(String name) throws SQLException {
+            if ("setReadOnly".equals(name) && (readOnly == null)) {
+                readOnly = connection.isReadOnly();
+            } else if ("setCatalog".equals(name) && !catalogSaved) {
+                catalog = connection.getCatalog();
+                catalogSaved = true;
+            } else if ("setTransactionIsolation".equals(name) && (isolation == null)) {
+                isolation = connection.getTransactionIsolation();
+            }
+        }
+
+        private void restoreState() throws SQLException {
+            if (readOnly != null) {
+                connection.setReadOnly(readOnly);
+            }
+            if (catalogSaved && (catalog != null)) {
+                connection.setCatalog(catalog);
+            }
+            if (isolation != null) {
+                connection.setTransactionIsolation(isolation);
+            }
+        }
+
+        private boolean isClosed(Statement statement) {
+            try {
+                return statement.isClosed();
+            } catch (AbstractMethodError e) {
+                // old JDBC 3 driver
+                return false;
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+    }
+
+}
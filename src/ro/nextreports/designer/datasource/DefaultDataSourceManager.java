@@ -25,9 +25,16 @@ import ro.nextreports.engine.ReleaseInfoAdapter;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 
+import ro.nextreports.designer.Cache;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.datasource.exception.*;
+import ro.nextreports.designer.dbviewer.DBCatalogPrefetcher;
+import ro.nextreports.designer.dbviewer.DBCatalogStore;
+import ro.nextreports.designer.dbviewer.DefaultDBViewer;
+import ro.nextreports.designer.persistence.ContentIndex;
 import ro.nextreports.designer.persistence.FileReportPersistence;
+import ro.nextreports.designer.persistence.RepositoryIndex;
+import ro.nextreports.designer.persistence.XStreamPool;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.Show;
 import sun.misc.BASE64Encoder;
@@ -102,6 +109,9 @@ public class DefaultDataSourceManager implements DataSourceManager {
             if (source.getStatus() == DataSourceType.CONNECTED) {
                 throw new ModificationException("Data Source " + source.getName() + " is connected!");
             }
+            Cache.invalidateColumns(source.getName());
+            ConnectionPool.drain(source.getName());
+            DBCatalogStore.delete(source.getName());
             source.setName(newSource.getName());
             source.setType(newSource.getType());
             source.setDriver(newSource.getDriver());
@@ -117,6 +127,7 @@ public class DefaultDataSourceManager implements DataSourceManager {
         DataSource sourceFound = getDataSource(name);
         if (sourceFound != null) {
             sources.remove(sourceFound);
+            DBCatalogStore.delete(sourceFound.getName());
         } else {
             throw new NotFoundException("DataSource " + name + " not found.");
         }
@@ -165,6 +176,9 @@ public class DefaultDataSourceManager implements DataSourceManager {
         source.setStatus(DataSourceType.CONNECTED);
         Globals.getMainFrame().setStatusBarMessage("<html>" + I18NSupport.getString("datasource.active") +
                 " <b>" + source.getName() + "</b></html>");
+        DBCatalogPrefetcher.start(source);
+        RepositoryIndex.start(source);
+        ContentIndex.start(source);
     }
 
     public void disconnect(String name) throws NotFoundException {
@@ -187,6 +201,11 @@ public class DefaultDataSourceManager implements DataSourceManager {
             c = null;
             Globals.setConnection(c);
             Globals.clearDialect();
+            DefaultDBViewer.clearKeyCatalog();
+            DBCatalogPrefetcher.stop();
+            RepositoryIndex.stop();
+            ContentIndex.stop();
+            ConnectionPool.drain(source.getName());
             source.setStatus(DataSourceType.DISCONNECTED);
             Globals.getMainFrame().setStatusBarMessage("");
         }
@@ -201,6 +220,12 @@ public class DefaultDataSourceManager implements DataSourceManager {
         return null;
     }
 
+    private static final XStreamPool XSTREAM_POOL = new XStreamPool() {
+        protected XStream create() {
+            return createXStream();
+        }
+    };
+
     protected static XStream createXStream() {
         XStream xstream = new XStream(new DomDriver("UTF-8"));
         xstream.alias("datasource", DataSource.class);
@@ -282,7 +307,6 @@ public class DefaultDataSourceManager implements DataSourceManager {
     }
 
     public boolean save(String file, List<DataSource> sources) {
-        XStream xstream = createXStream();
         FileOutputStream fos = null;
         try {
             try {
@@ -297,7 +321,7 @@ public class DefaultDataSourceManager implements DataSourceManager {
             }
             encryptSourcePasswords();
             DataSources ds = new DataSources(new ArrayList<DataSource>(sources), ReleaseInfoAdapter.getVersionNumber());
-            xstream.toXML(ds, fos);
+            XSTREAM_POOL.toXML(ds, fos);
             fos.flush();
             decryptSourcePasswords();
             return true;
@@ -321,13 +345,12 @@ public class DefaultDataSourceManager implements DataSourceManager {
     }
     
     public void load() {
-        XStream xstream = createXStream();
         FileInputStream fis = null;
         InputStreamReader reader = null;
         try {
             fis = new FileInputStream(Globals.USER_DATA_DIR + "/" + DATASOURCES_FILE);
             reader = new InputStreamReader(fis, "UTF-8");
-            DataSources ds = (DataSources) xstream.fromXML(reader);
+            DataSources ds = (DataSources) XSTREAM_POOL.fromXML(reader);
             sources = ds.getList();
             version = ds.getVersion();
             if (sources.size() > Globals.getDataSources()) {
@@ -364,13 +387,12 @@ public class DefaultDataSourceManager implements DataSourceManager {
     public List<DataSource> load(String file) {
 
         List<DataSource> result = new ArrayList<DataSource>();
-        XStream xstream = createXStream();
         FileInputStream fis = null;
         InputStreamReader reader = null;
         try {
             fis = new FileInputStream(file);
             reader = new InputStreamReader(fis, "UTF-8");
-            DataSources ds = (DataSources) xstream.fromXML(reader);
+            DataSources ds = (DataSources) XSTREAM_POOL.fromXML(reader);
             result = ds.getList();
             decryptSourcePasswords(result);
         } catch (FileNotFoundException e1) {
@@ -402,7 +424,6 @@ public class DefaultDataSourceManager implements DataSourceManager {
     }
 
     public String getVersion(String file) {        
-        XStream xstream = createXStream();
         FileInputStream fis = null;
         InputStreamReader reader = null;
         String version = "";
@@ -410,7 +431,7 @@ public class DefaultDataSourceManager implements DataSourceManager {
             fis = new FileInputStream(file);
             reader = new InputStreamReader(fis, "UTF-8");
             try {
-                DataSources ds = (DataSources) xstream.fromXML(reader);
+                DataSources ds = (DataSources) XSTREAM_POOL.fromXML(reader);
                 version = ds.getVersion();
             } catch (ClassCastException cce) {
                 // older versions do not have version field!
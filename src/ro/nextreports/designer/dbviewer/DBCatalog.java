@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.dbviewer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ro.nextreports.designer.dbviewer.common.DBColumn;
+import ro.nextreports.designer.dbviewer.common.DBProcedure;
+import ro.nextreports.designer.dbviewer.common.DBTable;
+
+/**
+ * In-memory catalog of the connected data source : tables, views, procedures and table columns by schema.
+ *
+ * It is filled by {@link DBCatalogPrefetcher} (from database or from {@link DBCatalogStore}) and it is read
+ * by {@link DefaultDBViewer}.
+ * Every getter returns null if the information was not loaded yet and a copy otherwise.
+ */
+public class DBCatalog {
+
+    private static DBCatalog instance = new DBCatalog();
+
+    private Map<String, List<DBTable>> tables = new ConcurrentHashMap<String, List<DBTable>>();
+    private Map<String, List<DBTable>> views = new ConcurrentHashMap<String, List<DBTable>>();
+    private Map<String, List<DBProcedure>> procedures = new ConcurrentHashMap<String, List<DBProcedure>>();
+    private Map<String, List<DBColumn>> columns = new ConcurrentHashMap<String, List<DBColumn>>();
+    // columns signature (name, type, size) as found in database metadata when columns were loaded
+    private Map<String, String> signatures = new ConcurrentHashMap<String, String>();
+
+    private DBCatalog() {
+    }
+
+    public static DBCatalog getInstance() {
+        return instance;
+    }
+
+    public void clear() {
+        tables.clear();
+        views.clear();
+        procedures.clear();
+        columns.clear();
+        signatures.clear();
+    }
+
+    public List<DBTable> getTables(String schemaName) {
+        return copy(tables.get(String.valueOf(schemaName)));
+    }
+
+    public void setTables(String schemaName, List<DBTable> list) {
+        tables.put(String.valueOf(schemaName), new ArrayList<DBTable>(list));
+    }
+
+    public List<DBTable> getViews(String schemaName) {
+        return copy(views.get(String.valueOf(schemaName)));
+    }
+
+    public void setViews(String schemaName, List<DBTable> list) {
+        views.put(String.valueOf(schemaName), new ArrayList<DBTable>(list));
+    }
+
+    public List<DBProcedure> getProcedures(String schemaName) {
+        return copy(procedures.get(String.valueOf(schemaName)));
+    }
+
+    public void setProcedures(String schemaName, List<DBProcedure> list) {
+        procedures.put(String.valueOf(schemaName), new ArrayList<DBProcedure>(list));
+    }
+
+    public List<DBColumn> getColumns(String schemaName, String tableName) {
+        return copy(columns.get(key(schemaName, tableName)));
+    }
+
+    public void setColumns(String schemaName, String tableName, List<DBColumn> list) {
+        setColumns(schemaName, tableName, list, null);
+    }
+
+    public void setColumns(String schemaName, String tableName, List<DBColumn> list, String signature) {
+        String key = key(schemaName, tableName);
+        columns.put(key, new ArrayList<DBColumn>(list));
+        if (signature == null) {
+            signatures.remove(key);
+        } else {
+            signatures.put(key, signature);
+        }
+    }
+
+    public String getColumnsSignature(String schemaName, String tableName) {
+        return signatures.get(key(schemaName, tableName));
+    }
+
+    public void removeColumns(String schemaName, String tableName) {
+        String key = key(schemaName, tableName);
+        columns.remove(key);
+        signatures.remove(key);
+    }
+
+    private static String key(String schemaName, String tableName) {
+        return schemaName + "." + tableName;
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        if (list == null) {
+            return null;
+        }
+        return new ArrayList<T>(list);
+    }
+
+}
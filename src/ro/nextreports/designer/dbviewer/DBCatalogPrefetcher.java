@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.dbviewer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.dbviewer.common.DBColumn;
+import ro.nextreports.designer.dbviewer.common.DBInfo;
+import ro.nextreports.designer.dbviewer.common.DBTable;
+import ro.nextreports.designer.util.I18NSupport;
+
+/**
+ * Loads in background the tables, views, procedures and table columns of the default schema into {@link DBCatalog}.
+ *
+ * Work is done on a bounded pool of workers (property 'catalog.prefetch.threads') and every worker uses its own
+ * connection. Progress is shown in the status bar. Prefetch is started after connect if property
+ * 'catalog.prefetch' is true.
+ *
+ * If 'catalog.cache' is true, the catalog is first loaded from {@link DBCatalogStore} and then it is refreshed :
+ * the columns of a table are read again only if the table is new or its columns signature (names, types
+ * and sizes) changed. The refreshed catalog is saved back to disk.
+ */
+public class DBCatalogPrefetcher {
+
+    private static final Log LOG = LogFactory.getLog(DBCatalogPrefetcher.class);
+
+    // minimum time between two status bar updates
+    private static final long PROGRESS_INTERVAL = 250;
+
+    private static DBCatalogPrefetcher current;
+
+    private DataSource dataSource;
+    private boolean force;
+    private ExecutorService executor;
+    private volatile boolean cancelled;
+    private volatile String schemaName;
+    // columns signature by table name, null if it could not be read
+    private volatile Map<String, String> signatures;
+
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private final ThreadLocal<Connection> workerConnection = new ThreadLocal<Connection>();
+    // guarded by connections
+    private boolean closed;
+
+    private AtomicInteger pending = new AtomicInteger();
+    private AtomicInteger loadedTables = new AtomicInteger();
+    private AtomicInteger totalTables = new AtomicInteger();
+    private AtomicInteger unchangedTables = new AtomicInteger();
+    private volatile long lastProgress;
+    private long start;
+
+    private DBCatalogPrefetcher(DataSource dataSource, boolean force) {
+        this.dataSource = dataSource;
+        this.force = force;
+    }
+
+    /**
+     * Start prefetch for the connected data source (if enabled)
+     *
+     * @param dataSource connected data source
+     */
+    public static synchronized void start(DataSource dataSource) {
+        start(dataSource, false);
+    }
+
+    /**
+     * Discard the catalog and read it again from database, ignoring the disk cache
+     *
+     * @param dataSource connected data source
+     */
+    public static synchronized void resync(DataSource dataSource) {
+        start(dataSource, true);
+    }
+
+    private static void start(DataSource dataSource, boolean force) {
+        stop();
+        if ((dataSource == null) || !Globals.isCatalogPrefetch()) {
+            return;
+        }
+        current = new DBCatalogPrefetcher(dataSource, force);
+        current.run();
+    }
+
+    /**
+     * Cancel a running prefetch and clear the catalog
+     */
+    public static synchronized void stop() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+        DBCatalog.getInstance().clear();
+    }
+
+    private void run() {
+        start = System.currentTimeMillis();
+        final int threads = Math.max(1, Globals.getCatalogPrefetchThreads());
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NEXT : Catalog prefetch " + (++count));
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+
+        submit(new Runnable() {
+            public void run() {
+                try {
+                    schemaName = getDefaultSchema(getWorkerConnection());
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                    return;
+                }
+                if (Globals.isCatalogCache()) {
+                    // a forced resync reads all tables, but the signatures are still saved for the next connect
+                    if (!force && DBCatalogStore.load(dataSource, schemaName, DBCatalog.getInstance())) {
+                        LOG.info("Catalog for '" + dataSource.getName() + "' loaded from cache in " +
+                                (System.currentTimeMillis() - start) + " ms.");
+                    }
+                    signatures = getColumnsSignatures(schemaName);
+                }
+                submitTables(schemaName, DBInfo.TABLES);
+                submitTables(schemaName, DBInfo.VIEWS);
+                submitProcedures(schemaName);
+            }
+        });
+    }
+
+    private void submitTables(final String schemaName, final int mask) {
+        submit(new Runnable() {
+            public void run() {
+                DefaultDBViewer viewer = new DefaultDBViewer();
+                try {
+                    List<DBTable> tables = viewer.getDBInfo(schemaName, mask, getWorkerConnection()).getTables();
+                    if (cancelled) {
+                        return;
+                    }
+                    if (mask == DBInfo.TABLES) {
+                        DBCatalog.getInstance().setTables(schemaName, tables);
+                    } else {
+                        DBCatalog.getInstance().setViews(schemaName, tables);
+                    }
+                    totalTables.addAndGet(tables.size());
+                    for (DBTable table : tables) {
+                        if (isUnchanged(schemaName, table.getName())) {
+                            unchangedTables.incrementAndGet();
+                            loadedTables.incrementAndGet();
+                        } else {
+                            submitColumns(schemaName, table.getName());
+                        }
+                    }
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private void submitProcedures(final String schemaName) {
+        submit(new Runnable() {
+            public void run() {
+                DefaultDBViewer viewer = new DefaultDBViewer();
+                try {
+                    DBInfo info = viewer.getDBInfo(schemaName, DBInfo.PROCEDURES, getWorkerConnection());
+                    if (!cancelled) {
+                        DBCatalog.getInstance().setProcedures(schemaName, info.getProcedures());
+                    }
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private void submitColumns(final String schemaName, final String tableName) {
+        submit(new Runnable() {
+            public void run() {
+                DefaultDBViewer viewer = new DefaultDBViewer();
+                try {
+                    List<DBColumn> columns = viewer.getColumns(getWorkerConnection(), schemaName, tableName);
+                    Map<String, String> map = signatures;
+                    DBCatalog.getInstance().setColumns(schemaName, tableName, columns,
+                            (map == null) ? null : map.get(tableName));
+                } catch (Exception e) {
+                    // table with special characters : columns will be read when needed
+                    LOG.error(e.getMessage(), e);
+                }
+                loadedTables.incrementAndGet();
+                showProgress(false);
+            }
+        });
+    }
+
+    private void submit(final Runnable task) {
+        pending.incrementAndGet();
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    if (!cancelled) {
+                        task.run();
+                    }
+                } finally {
+                    if (pending.decrementAndGet() == 0) {
+                        finish();
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean isUnchanged(String schemaName, String tableName) {
+        Map<String, String> map = signatures;
+        if (map == null) {
+            return false;
+        }
+        String signature = map.get(tableName);
+        return (signature != null) &&
+                signature.equals(DBCatalog.getInstance().getColumnsSignature(schemaName, tableName)) &&
+                (DBCatalog.getInstance().getColumns(schemaName, tableName) != null);
+    }
+
+    // read all columns of the schema with a single metadata call (primary / foreign keys and indexes are not
+    // part of the signature, a forced resync is needed to see their changes)
+    private Map<String, String> getColumnsSignatures(String schemaName) {
+        Map<String, StringBuilder> builders = new HashMap<String, StringBuilder>();
+        ResultSet rs = null;
+        try {
+            DatabaseMetaData dbmd = getWorkerConnection().getMetaData();
+            rs = dbmd.getColumns(null, schemaName, "%", "%");
+            while (rs.next()) {
+                if (cancelled) {
+                    return null;
+                }
+                String tableName = rs.getString("TABLE_NAME");
+                StringBuilder sb = builders.get(tableName);
+                if (sb == null) {
+                    sb = new StringBuilder();
+                    builders.put(tableName, sb);
+                }
+                sb.append(rs.getString("COLUMN_NAME")).append(':').append(rs.getString("TYPE_NAME")).append(':').
+                        append(rs.getInt("COLUMN_SIZE")).append(':').append(rs.getInt("DECIMAL_DIGITS")).append(';');
+            }
+        } catch (Exception e) {
+            // all tables will be read again
+            LOG.error(e.getMessage(), e);
+            return null;
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        }
+        Map<String, String> result = new HashMap<String, String>(builders.size());
+        for (Map.Entry<String, StringBuilder> entry : builders.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toString());
+        }
+        return result;
+    }
+
+    // no connection is borrowed after the connections were closed (it would never be returned)
+    private Connection getWorkerConnection() throws Exception {
+        Connection con = workerConnection.get();
+        if (con == null) {
+            synchronized (connections) {
+                if (closed) {
+                    throw new InterruptedException();
+                }
+            }
+            con = Globals.createTempConnection(dataSource);
+            synchronized (connections) {
+                if (closed) {
+                    con.close();
+                    throw new InterruptedException();
+                }
+                connections.add(con);
+            }
+            workerConnection.set(con);
+        }
+        return con;
+    }
+
+    private String getDefaultSchema(Connection con) throws Exception {
+        DefaultDBViewer viewer = new DefaultDBViewer();
+        String schemaName = viewer.getUserSchema(con);
+        if (!viewer.getSchemas(con).contains(schemaName)) {
+            schemaName = DefaultDBViewer.NO_SCHEMA_NAME;
+        }
+        return schemaName;
+    }
+
+    private void finish() {
+        executor.shutdown();
+        closeConnections();
+        if (!cancelled) {
+            LOG.info("Catalog prefetch for '" + dataSource.getName() + "' : " + loadedTables.get() +
+                    " tables and views loaded (" + unchangedTables.get() + " unchanged) in " +
+                    (System.currentTimeMillis() - start) + " ms.");
+            if (Globals.isCatalogCache() && (schemaName != null)) {
+                DBCatalogStore.save(dataSource, schemaName, DBCatalog.getInstance());
+            }
+            showProgress(true);
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        executor.shutdownNow();
+        // wait for running workers outside the caller thread, then release their connections
+        Thread closer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    executor.awaitTermination(Globals.getConnectionTimeout(), TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // close connections anyway
+                }
+                closeConnections();
+            }
+        }, "NEXT : Catalog prefetch cancel");
+        closer.setDaemon(true);
+        closer.start();
+    }
+
+    private void closeConnections() {
+        synchronized (connections) {
+            closed = true;
+            for (Connection con : connections) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+            connections.clear();
+        }
+    }
+
+    private void showProgress(final boolean done) {
+        long now = System.currentTimeMillis();
+        if (!done && (now - lastProgress < PROGRESS_INTERVAL)) {
+            return;
+        }
+        lastProgress = now;
+        final String progress = done ? "" :
+                " &nbsp; " + I18NSupport.getString("catalog.prefetch.progress", loadedTables.get(), totalTables.get());
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                if (cancelled || (Globals.getMainFrame() == null)) {
+                    return;
+                }
+                Globals.getMainFrame().setStatusBarMessage("<html>" + I18NSupport.getString("datasource.active") +
+                        " <b>" + dataSource.getName() + "</b>" + progress + "</html>");
+            }
+        });
+    }
+
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.dbviewer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.dbviewer.common.DBColumn;
+import ro.nextreports.designer.dbviewer.common.DBForeignColumnInfo;
+import ro.nextreports.designer.dbviewer.common.DBProcedure;
+import ro.nextreports.designer.dbviewer.common.DBTable;
+
+/**
+ * Binary on-disk copy of the {@link DBCatalog} for a data source schema, kept in
+ * USER_DATA_DIR/catalog/&lt;data source&gt;/&lt;schema&gt;.cache
+ *
+ * The file is ignored if it was written by another version or for another data source url.
+ */
+public class DBCatalogStore {
+
+    private static final Log LOG = LogFactory.getLog(DBCatalogStore.class);
+
+    private static final int MAGIC = 0x4E524343;
+    private static final int VERSION = 1;
+
+    private static final String CATALOG_DIR = Globals.USER_DATA_DIR + "/catalog";
+    private static final String EXTENSION = ".cache";
+
+    /**
+     * Load the schema from disk into catalog
+     *
+     * @param dataSource data source
+     * @param schemaName schema name
+     * @param catalog catalog to fill
+     * @return true if cache file was found and loaded
+     */
+    public static boolean load(DataSource dataSource, String schemaName, DBCatalog catalog) {
+        File file = getFile(dataSource.getName(), schemaName);
+        if (!file.exists()) {
+            return false;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) ||
+                    !String.valueOf(dataSource.getUrl()).equals(in.readUTF())) {
+                LOG.info("Catalog cache " + file + " is obsolete.");
+                return false;
+            }
+            List<DBTable> tables = readTables(in, schemaName);
+            List<DBTable> views = readTables(in, schemaName);
+            List<DBProcedure> procedures = readProcedures(in, schemaName);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String tableName = in.readUTF();
+                String signature = readString(in);
+                catalog.setColumns(schemaName, tableName, readColumns(in, schemaName, tableName), signature);
+            }
+            catalog.setTables(schemaName, tables);
+            catalog.setViews(schemaName, views);
+            catalog.setProcedures(schemaName, procedures);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Cannot read catalog cache " + file + " : " + e.getMessage(), e);
+            return false;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Save the schema from catalog to disk. Only the columns of current tables and views are saved.
+     *
+     * @param dataSource data source
+     * @param schemaName schema name
+     * @param catalog catalog
+     */
+    public static void save(DataSource dataSource, String schemaName, DBCatalog catalog) {
+        List<DBTable> tables = catalog.getTables(schemaName);
+        List<DBTable> views = catalog.getViews(schemaName);
+        List<DBProcedure> procedures = catalog.getProcedures(schemaName);
+        if ((tables == null) || (views == null) || (procedures == null)) {
+            // incomplete catalog
+            return;
+        }
+        File file = getFile(dataSource.getName(), schemaName);
+        file.getParentFile().mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(String.valueOf(dataSource.getUrl()));
+            writeTables(out, tables);
+            writeTables(out, views);
+            writeProcedures(out, procedures);
+
+            List<DBTable> all = new ArrayList<DBTable>(tables);
+            all.addAll(views);
+            List<String> names = new ArrayList<String>();
+            List<List<DBColumn>> columns = new ArrayList<List<DBColumn>>();
+            for (DBTable table : all) {
+                List<DBColumn> list = catalog.getColumns(schemaName, table.getName());
+                if (list != null) {
+                    names.add(table.getName());
+                    columns.add(list);
+                }
+            }
+            out.writeInt(names.size());
+            for (int i = 0, size = names.size(); i < size; i++) {
+                out.writeUTF(names.get(i));
+                writeString(out, catalog.getColumnsSignature(schemaName, names.get(i)));
+                writeColumns(out, columns.get(i));
+            }
+            out.close();
+            out = null;
+            if (file.exists() && !file.delete()) {
+                LOG.error("Cannot replace catalog cache " + file);
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                LOG.error("Cannot rename catalog cache " + tmp);
+            }
+        } catch (IOException e) {
+            LOG.error("Cannot write catalog cache " + file + " : " + e.getMessage(), e);
+        } finally {
+            close(out);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Delete all cache files of a data source
+     *
+     * @param dataSourceName data source name
+     */
+    public static void delete(String dataSourceName) {
+        File[] files = new File(CATALOG_DIR, encode(dataSourceName)).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static File getFile(String dataSourceName, String schemaName) {
+        return new File(CATALOG_DIR + File.separator + encode(dataSourceName), encode(String.valueOf(schemaName)) + EXTENSION);
+    }
+
+    private static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            return name;
+        }
+    }
+
+    private static void writeTables(DataOutputStream out, List<DBTable> tables) throws IOException {
+        out.writeInt(tables.size());
+        for (DBTable table : tables) {
+            out.writeUTF(table.getName());
+            writeString(out, table.getType());
+        }
+    }
+
+    private static List<DBTable> readTables(DataInputStream in, String schemaName) throws IOException {
+        int size = in.readInt();
+        List<DBTable> tables = new ArrayList<DBTable>(size);
+        for (int i = 0; i < size; i++) {
+            tables.add(new DBTable(schemaName, in.readUTF(), readString(in)));
+        }
+        return tables;
+    }
+
+    private static void writeProcedures(DataOutputStream out, List<DBProcedure> procedures) throws IOException {
+        out.writeInt(procedures.size());
+        for (DBProcedure procedure : procedures) {
+            writeString(out, procedure.getCatalog());
+            out.writeUTF(procedure.getName());
+            out.writeInt(procedure.getResultType());
+        }
+    }
+
+    private static List<DBProcedure> readProcedures(DataInputStream in, String schemaName) throws IOException {
+        int size = in.readInt();
+        List<DBProcedure> procedures = new ArrayList<DBProcedure>(size);
+        for (int i = 0; i < size; i++) {
+            procedures.add(new DBProcedure(schemaName, readString(in), in.readUTF(), in.readInt()));
+        }
+        return procedures;
+    }
+
+    private static void writeColumns(DataOutputStream out, List<DBColumn> columns) throws IOException {
+        out.writeInt(columns.size());
+        for (DBColumn column : columns) {
+            out.writeUTF(column.getName());
+            writeString(out, column.getType());
+            out.writeBoolean(column.isPrimaryKey());
+            out.writeBoolean(column.isForeignKey());
+            out.writeBoolean(column.isIndex());
+            DBForeignColumnInfo fk = column.getFkInfo();
+            out.writeBoolean(fk != null);
+            if (fk != null) {
+                writeString(out, fk.getFkSchema());
+                writeString(out, fk.getFkTable());
+                writeString(out, fk.getFkColumn());
+                writeString(out, fk.getPkSchema());
+                writeString(out, fk.getPkTable());
+                writeString(out, fk.getPkColumn());
+            }
+            out.writeInt(column.getLength());
+            out.writeInt(column.getPrecision());
+            out.writeInt(column.getScale());
+        }
+    }
+
+    private static List<DBColumn> readColumns(DataInputStream in, String schemaName, String tableName) throws IOException {
+        int size = in.readInt();
+        List<DBColumn> columns = new ArrayList<DBColumn>(size);
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            String type = readString(in);
+            boolean pk = in.readBoolean();
+            boolean fk = in.readBoolean();
+            boolean index = in.readBoolean();
+            DBForeignColumnInfo fkInfo = null;
+            if (in.readBoolean()) {
+                fkInfo = new DBForeignColumnInfo(readString(in), readString(in), readString(in),
+                        readString(in), readString(in), readString(in));
+            }
+            columns.add(new DBColumn(schemaName, tableName, name, type, pk, fk, index, fkInfo,
+                    in.readInt(), in.readInt(), in.readInt()));
+        }
+        return columns;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void close(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.dbviewer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.dbviewer.common.DBForeignColumnInfo;
+
+/**
+ * Snapshot of all foreign key relations from a schema.
+ *
+ * All the keys are read in a single bulk <code>getCrossReference</code> call (with a fallback to
+ * one <code>getImportedKeys</code> call per table for drivers which do not accept null table names)
+ * and are indexed by (table, column) both on the foreign key side and on the primary key side.
+ */
+public class DBKeyCatalog {
+
+    private static final Log LOG = LogFactory.getLog(DBKeyCatalog.class);
+
+    private Connection connection;
+    private String schemaName;
+    private Map<String, List<DBForeignColumnInfo>> byForeignKey = new HashMap<String, List<DBForeignColumnInfo>>();
+    private Map<String, List<DBForeignColumnInfo>> byPrimaryKey = new HashMap<String, List<DBForeignColumnInfo>>();
+
+    private DBKeyCatalog(Connection connection, String schemaName) {
+        this.connection = connection;
+        this.schemaName = schemaName;
+    }
+
+    /**
+     * Load the key snapshot for a schema
+     *
+     * @param con connection
+     * @param schemaName schema name
+     * @param tables table names used if the driver does not support the bulk call
+     * @return key snapshot
+     * @throws SQLException if database metadata cannot be read
+     */
+    public static DBKeyCatalog load(Connection con, String schemaName, List<String> tables) throws SQLException {
+        DBKeyCatalog catalog = new DBKeyCatalog(con, schemaName);
+        DatabaseMetaData dbmd = con.getMetaData();
+        long start = System.currentTimeMillis();
+        boolean bulk;
+        try {
+            ResultSet rs = dbmd.getCrossReference(null, schemaName, null, null, schemaName, null);
+            catalog.addKeys(rs);
+            // some drivers (like Oracle) treat a null table name as a value to match and return nothing
+            bulk = (catalog.byForeignKey.size() > 0) || (tables.size() == 0);
+        } catch (SQLException ex) {
+            LOG.info("Bulk cross reference not supported : " + ex.getMessage());
+            bulk = false;
+        }
+        if (!bulk) {
+            catalog.clear();
+            for (String table : tables) {
+                try {
+                    catalog.addKeys(dbmd.getImportedKeys(null, schemaName, table));
+                } catch (SQLException ex) {
+                    // table with special characters
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+        }
+        LOG.info("Loaded foreign keys for schema '" + schemaName + "' in " +
+                (System.currentTimeMillis() - start) + " ms.");
+        return catalog;
+    }
+
+    private void addKeys(ResultSet rs) throws SQLException {
+        try {
+            while (rs.next()) {
+                DBForeignColumnInfo fkInfo = new DBForeignColumnInfo(
+                        rs.getString("FKTABLE_SCHEM"), rs.getString("FKTABLE_NAME"), rs.getString("FKCOLUMN_NAME"),
+                        rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"), rs.getString("PKCOLUMN_NAME"));
+                add(byForeignKey, key(fkInfo.getFkTable(), fkInfo.getFkColumn()), fkInfo);
+                add(byPrimaryKey, key(fkInfo.getPkTable(), fkInfo.getPkColumn()), fkInfo);
+            }
+        } finally {
+            rs.close();
+        }
+    }
+
+    private void add(Map<String, List<DBForeignColumnInfo>> map, String key, DBForeignColumnInfo fkInfo) {
+        List<DBForeignColumnInfo> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<DBForeignColumnInfo>(1);
+            map.put(key, list);
+        }
+        if (!list.contains(fkInfo)) {
+            list.add(fkInfo);
+        }
+    }
+
+    private void clear() {
+        byForeignKey.clear();
+        byPrimaryKey.clear();
+    }
+
+    private static String key(String table, String column) {
+        return table + "." + column;
+    }
+
+    public boolean isFor(Connection con, String schemaName) {
+        if (connection != con) {
+            return false;
+        }
+        return (this.schemaName == null) ? (schemaName == null) : this.schemaName.equals(schemaName);
+    }
+
+    /**
+     * Get the relations in which a column is the foreign key
+     *
+     * @param table foreign key table
+     * @param column foreign key column
+     * @return list of relations, never null
+     */
+    public List<DBForeignColumnInfo> getByForeignKey(String table, String column) {
+        List<DBForeignColumnInfo> list = byForeignKey.get(key(table, column));
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list;
+    }
+
+    /**
+     * Get the relations in which a column is the referenced primary key
+     *
+     * @param table primary key table
+     * @param column primary key column
+     * @return list of relations, never null
+     */
+    public List<DBForeignColumnInfo> getByPrimaryKey(String table, String column) {
+        List<DBForeignColumnInfo> list = byPrimaryKey.get(key(table, column));
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list;
+    }
+
+}
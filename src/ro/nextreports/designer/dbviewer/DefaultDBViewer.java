@@ -48,7 +48,13 @@ public class DefaultDBViewer implements DBViewer {
 
     private static final Log LOG = LogFactory.getLog(DefaultDBViewer.class);
 
+    private static DBKeyCatalog keyCatalog;
+
     public DBInfo getDBInfo(String schemaName, int mask) throws NextSqlException {
+        DBInfo prefetched = getPrefetchedDBInfo(schemaName, mask);
+        if (prefetched != null) {
+            return prefetched;
+        }
         Connection con;
         try {
             con = Globals.getConnection();
@@ -58,6 +64,30 @@ public class DefaultDBViewer implements DBViewer {
         return getDBInfo(schemaName, mask, con);
     }
 
+    // tables, views and procedures already loaded by catalog prefetch (only if no name pattern is used)
+    private DBInfo getPrefetchedDBInfo(String schemaName, int mask) {
+        DBCatalog catalog = DBCatalog.getInstance();
+        List<DBTable> tables = null;
+        List<DBProcedure> procedures = null;
+        if ((mask == DBInfo.TABLES) && (Globals.getTableNamePattern() == null)) {
+            tables = catalog.getTables(schemaName);
+        } else if ((mask == DBInfo.VIEWS) && (Globals.getViewNamePattern() == null)) {
+            tables = catalog.getViews(schemaName);
+        } else if ((mask == DBInfo.PROCEDURES) && (Globals.getProcedureNamePattern() == null)) {
+            procedures = catalog.getProcedures(schemaName);
+        }
+        if ((tables == null) && (procedures == null)) {
+            return null;
+        }
+        if (tables == null) {
+            tables = new ArrayList<DBTable>();
+        }
+        if (procedures == null) {
+            procedures = new ArrayList<DBProcedure>();
+        }
+        return new DBInfo("", tables, procedures, new ArrayList<String>());
+    }
+
     public DBInfo getDBInfo(int mask) throws NextSqlException {
         Connection con;
         try {
@@ -253,15 +283,23 @@ public class DefaultDBViewer implements DBViewer {
     }
 
     public List<DBColumn> getColumns(String schema, String table) throws NextSqlException, MalformedTableNameException {
+        if (schema != null) {
+            List<DBColumn> prefetched = DBCatalog.getInstance().getColumns(schema, table);
+            if (prefetched != null) {
+                return prefetched;
+            }
+        }
+        return getColumns(Globals.getConnection(), schema, table);
+    }
+
+    public List<DBColumn> getColumns(Connection con, String schema, String table) throws NextSqlException, MalformedTableNameException {
 
-        Connection con;
         List<DBColumn> columns = new ArrayList<DBColumn>();
         String schemaName;
         String escapedTableName;
         try {
-            con = Globals.getConnection();
             if (schema == null) {
-                schemaName = Globals.getConnection().getMetaData().getUserName();
+                schemaName = con.getMetaData().getUserName();
             } else {
                 schemaName = schema;
             }
@@ -648,66 +686,58 @@ public class DefaultDBViewer implements DBViewer {
     }
 
     public DBColumn getPrimaryKeyColumn(DBColumn foreignKeyColumn) throws NextSqlException {
-        DBColumn column = null;
-        DBInfo info = getDBInfo(foreignKeyColumn.getSchema(), DBInfo.TABLES);
-        List<DBTable> tables = info.getTables();
-        for (DBTable table : tables) {
-
-            List<DBColumn> columns = null;
-            try {
-                columns = getColumns(foreignKeyColumn.getSchema(), table.getName());
-            } catch (MalformedTableNameException e) {
-                // table with special characters
-                LOG.error(e.getMessage(), e);
-                e.printStackTrace();
-                continue;
-            }
-            for (DBColumn col : columns) {
-                if (col.isForeignKey()) {
-                    DBForeignColumnInfo fkInfo = col.getFkInfo();
-                    if (fkInfo.getFkTable().equals(foreignKeyColumn.getTable()) &&
-                            fkInfo.getFkColumn().equals(foreignKeyColumn.getName())) {
-                        column = new DBColumn(foreignKeyColumn.getSchema(), fkInfo.getPkTable(), fkInfo.getPkColumn(), foreignKeyColumn.getType(),
-                                true, false, false, fkInfo, foreignKeyColumn.getLength(), foreignKeyColumn.getPrecision(), foreignKeyColumn.getScale());
-                        return column;
-                    }
-                }
-            }
+        DBKeyCatalog catalog = getKeyCatalog(foreignKeyColumn.getSchema());
+        for (DBForeignColumnInfo fkInfo : catalog.getByForeignKey(foreignKeyColumn.getTable(), foreignKeyColumn.getName())) {
+            return new DBColumn(foreignKeyColumn.getSchema(), fkInfo.getPkTable(), fkInfo.getPkColumn(), foreignKeyColumn.getType(),
+                    true, false, false, fkInfo, foreignKeyColumn.getLength(), foreignKeyColumn.getPrecision(), foreignKeyColumn.getScale());
         }
-        return column;
+        return null;
     }
 
     // here we get foreign keys just from the tables from the same schema !!!
-    // getDBInfo(null, DBInfo.TABLES) may take too long (so let it be like this from now)
     public List<DBColumn> getForeignKeyColumns(DBColumn primaryKeyColumn) throws NextSqlException {
         List<DBColumn> list = new ArrayList<DBColumn>();
-        DBInfo info = getDBInfo(primaryKeyColumn.getSchema(), DBInfo.TABLES);
-        List<DBTable> tables = info.getTables();
-        for (DBTable table : tables) {
-            List<DBColumn> columns = null;
-            try {
-                columns = getColumns(table.getSchema(), table.getName());
-            } catch (MalformedTableNameException e) {
-                // table with special characters
-                LOG.error(e.getMessage(), e);
-                e.printStackTrace();
-                continue;
+        DBKeyCatalog catalog = getKeyCatalog(primaryKeyColumn.getSchema());
+        for (DBForeignColumnInfo fkInfo : catalog.getByPrimaryKey(primaryKeyColumn.getTable(), primaryKeyColumn.getName())) {
+            DBColumn column = new DBColumn(primaryKeyColumn.getSchema(), fkInfo.getFkTable(), fkInfo.getFkColumn(), primaryKeyColumn.getType(),
+                    true, false, false, fkInfo, primaryKeyColumn.getLength(), primaryKeyColumn.getPrecision(), primaryKeyColumn.getScale());
+            list.add(column);
+        }
+        return list;
+    }
+
+    // the foreign keys snapshot is kept for the current connection and schema
+    private static DBKeyCatalog getKeyCatalog(String schemaName) throws NextSqlException {
+        Connection con = Globals.getConnection();
+        synchronized (DefaultDBViewer.class) {
+            if ((keyCatalog != null) && keyCatalog.isFor(con, schemaName)) {
+                return keyCatalog;
             }
-            for (DBColumn col : columns) {
-                if (col.isForeignKey()) {
-                    DBForeignColumnInfo fkInfo = col.getFkInfo();
-                    if (fkInfo.getPkTable().equals(primaryKeyColumn.getTable()) &&
-                            fkInfo.getPkColumn().equals(primaryKeyColumn.getName())) {
-                        DBColumn column = new DBColumn(primaryKeyColumn.getSchema(), fkInfo.getFkTable(), fkInfo.getFkColumn(), primaryKeyColumn.getType(),
-                                true, false, false, fkInfo, primaryKeyColumn.getLength(), primaryKeyColumn.getPrecision(), primaryKeyColumn.getScale());
-                        list.add(column);
-                    }
-                }
+        }
+        List<String> tableNames = new ArrayList<String>();
+        for (DBTable table : new DefaultDBViewer().getDBInfo(schemaName, DBInfo.TABLES).getTables()) {
+            tableNames.add(table.getName());
+        }
+        try {
+            DBKeyCatalog catalog = DBKeyCatalog.load(con, schemaName, tableNames);
+            synchronized (DefaultDBViewer.class) {
+                keyCatalog = catalog;
             }
+            return catalog;
+        } catch (SQLException e) {
+            LOG.error(e.getMessage(), e);
+            e.printStackTrace();
+            throw new NextSqlException("SQL Exception: " + e.getMessage(), e);
         }
-        return list;
     }
-    
+
+    /**
+     * Discard the foreign keys snapshot (must be called when connection is closed or schema has changed)
+     */
+    public static synchronized void clearKeyCatalog() {
+        keyCatalog = null;
+    }
+
     public String isValidSql(Report report) {
     	return ReportUtil.isValidSqlWithMessage(Globals.getConnection(), report);    	    	
     }               
@@ -41,6 +41,8 @@ public interface DBViewer {
 
 	public List<DBColumn> getColumns(String schema, String table) throws NextSqlException, MalformedTableNameException;
 
+	public List<DBColumn> getColumns(Connection connection, String schema, String table) throws NextSqlException, MalformedTableNameException;
+
     public List<DBProcedureColumn> getProcedureColumns(String schema, String catalog, String procedure) throws NextSqlException;
 
     public boolean isValidProcedure(DBProcedure proc);
@@ -50,6 +50,12 @@ public abstract class AbstractGridModel implements GridModel {
 	 */
 	protected EventListenerList listenerList = new EventListenerList();
 
+	// nested beginUpdate calls
+	private int updateLevel;
+	
+	// cells updated since beginUpdate : firstRow, firstColumn, lastRow, lastColumn
+	private int[] updatedRange;
+
 	public void addGridModelListener(GridModelListener listener) {
 		listenerList.add(GridModelListener.class, listener);
 	}
@@ -83,6 +89,10 @@ public abstract class AbstractGridModel implements GridModel {
 	 * @see EventListenerList
 	 */
 	public void fireGridChanged(GridModelEvent event) {
+		// updated cells are notified before a structure change which can move them
+		if ((updatedRange != null) && (event.getType() != GridModelEvent.CELLS_UPDATED)) {
+			fireUpdatedRange();
+		}
 		// Guaranteed to return a non-null array
 		Object[] listeners = listenerList.getListenerList();
 		// Process the listeners last to first, notifying
@@ -100,6 +110,17 @@ public abstract class AbstractGridModel implements GridModel {
 	 * <code>column</code> has been updated
 	 */
 	public void fireGridCellUpdated(int row, int column) {
+		if (updateLevel > 0) {
+			if (updatedRange == null) {
+				updatedRange = new int[] {row, column, row, column};
+			} else {
+				updatedRange[0] = Math.min(updatedRange[0], row);
+				updatedRange[1] = Math.min(updatedRange[1], column);
+				updatedRange[2] = Math.max(updatedRange[2], row);
+				updatedRange[3] = Math.max(updatedRange[3], column);
+			}
+			return;
+		}
 		GridModelEvent event = new GridModelEvent(this,
 				GridModelEvent.CELLS_UPDATED, row, column, row, column);
 		fireGridChanged(event);
@@ -188,6 +209,39 @@ public abstract class AbstractGridModel implements GridModel {
 		fireGridChanged(event);
 	}
 
+	/**
+	 * Start a bulk update : until the matching <code>endUpdate</code> cell updates are not
+	 * notified one by one, but with a single <code>CELLS_UPDATED</code> event for the range
+	 * which contains all of them. Calls can be nested.
+	 */
+	public void beginUpdate() {
+		updateLevel++;
+	}
+
+	/**
+	 * End a bulk update started with <code>beginUpdate</code>. Should be called in a finally block.
+	 */
+	public void endUpdate() {
+		if (updateLevel == 0) {
+			throw new IllegalStateException("endUpdate without beginUpdate");
+		}
+		updateLevel--;
+		if ((updateLevel == 0) && (updatedRange != null)) {
+			fireUpdatedRange();
+		}
+	}
+
+	public boolean isUpdating() {
+		return updateLevel > 0;
+	}
+
+	private void fireUpdatedRange() {
+		int[] range = updatedRange;
+		updatedRange = null;
+		fireGridChanged(new GridModelEvent(this, GridModelEvent.CELLS_UPDATED,
+				range[0], range[1], range[2], range[3]));
+	}
+
     //@todo fire for bulk selection
     public void fireGridColumnResized(int row, int column) {
 		GridModelEvent event = new GridModelEvent(this,
@@ -16,9 +16,6 @@
  */
 package ro.nextreports.designer.grid;
 
-import ro.nextreports.engine.ReportLayout;
-import ro.nextreports.engine.util.ObjectCloner;
-
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
@@ -30,8 +27,7 @@ import javax.swing.JComboBox;
 import javax.swing.JTextField;
 
 import ro.nextreports.designer.Globals;
-import ro.nextreports.designer.LayoutHelper;
-import ro.nextreports.designer.action.undo.LayoutEdit;
+import ro.nextreports.designer.action.undo.CellsEdit;
 
 /**
  * Generic implementation of <code>GridCellEditor</code> that uses the
@@ -126,33 +122,33 @@ public class DefaultGridCellEditor extends DefaultCellEditor implements
 		return editorComponent;
 	}
 
-    private ReportLayout getLayoutBeforeInsert() {
-        return (ReportLayout) grid.getClientProperty("layoutBeforeInsert");
+    private CellsEdit getEditBeforeInsert() {
+        return (CellsEdit) grid.getClientProperty("editBeforeInsert");
     }
 
-    protected ReportLayout getOldLayout() {
+    protected CellsEdit getCellsEdit() {
         // get the variable shared with the insert text action
-		ReportLayout layoutBeforeInsert = getLayoutBeforeInsert();
+		CellsEdit editBeforeInsert = getEditBeforeInsert();
 
-		ReportLayout oldLayout;
-		if (layoutBeforeInsert == null) {
-			oldLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
+		CellsEdit cellsEdit;
+		if (editBeforeInsert == null) {
+			cellsEdit = new CellsEdit(grid.getEditingRow(), grid.getEditingColumn(), 1, 1);
 		} else {
-			oldLayout = layoutBeforeInsert;
+			cellsEdit = editBeforeInsert;
 		}
-        return oldLayout;
+        return cellsEdit;
     }
 
-    protected void registerUndoRedo(ReportLayout oldLayout, String editPresentationName, String insertPresentationName) {
-        ReportLayout newLayout = ObjectCloner.silenceDeepCopy(LayoutHelper.getReportLayout());
-        if (getLayoutBeforeInsert() == null) {
-        	Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, editPresentationName));
+    protected void registerUndoRedo(CellsEdit cellsEdit, String editPresentationName, String insertPresentationName) {
+        if (getEditBeforeInsert() == null) {
+        	cellsEdit.end(editPresentationName);
         } else {
-        	Globals.getReportUndoManager().addEdit(new LayoutEdit(oldLayout, newLayout, insertPresentationName));
+        	cellsEdit.end(insertPresentationName);
         }
+        Globals.getReportUndoManager().addEdit(cellsEdit);
 
         // reset the variable shared with the insert text action
-        grid.putClientProperty("layoutBeforeInsert", null);
+        grid.putClientProperty("editBeforeInsert", null);
     }
 
 }
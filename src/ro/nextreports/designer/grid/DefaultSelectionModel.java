@@ -17,61 +17,86 @@
 package ro.nextreports.designer.grid;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.BitSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * Default implementation of <code>SelectionModel</code>.
  * 
+ * Selected cells are also kept in a bit set for every row and counted by row and by column,
+ * so selection tests do not depend on the number of selected cells and selected cells are
+ * read in (row, column) order without sorting.
+ * 
  * @author Decebal Suiu
  */
 public class DefaultSelectionModel extends AbstractSelectionModel {
 	
+	// selection order (first and last selected cells)
 	private LinkedHashSet<Cell> selectedCells;
 	private LinkedHashSet<Integer> selectedRows;
 
+	// selected columns for every row : cellRows.get(row)
+	private List<BitSet> cellRows;
+	private int[] rowCounts;
+	private int[] columnCounts;
+	
+	// selected cells in (row, column) order, built when needed
+	private List<Cell> sortedCells;
+
 	public DefaultSelectionModel() {
 		selectedCells = new LinkedHashSet<Cell>();
 		selectedRows = new LinkedHashSet<Integer>();
+		cellRows = new ArrayList<BitSet>();
+		rowCounts = new int[0];
+		columnCounts = new int[0];
 	}
 
 	public boolean isSelected(int row, int column) {
-		for (Cell cell : selectedCells) {
-			if ((row == cell.getRow()) && (column == cell.getColumn())) {
-				return true;
-			}
-		}		
-		return false;
+		if ((row < 0) || (column < 0)) {
+			return selectedCells.contains(new Cell(row, column));
+		}
+		if (row >= cellRows.size()) {
+			return false;
+		}
+		BitSet columns = cellRows.get(row);
+		return (columns != null) && columns.get(column);
 	}
 
     public boolean isRowSelected(int row) {
-        for (Cell cell : selectedCells) {
-			if (row == cell.getRow()) {
-                return true;
-            }
-        }
-        return false;
+    	if (row < 0) {
+    		for (Cell cell : selectedCells) {
+    			if (row == cell.getRow()) {
+    				return true;
+    			}
+    		}
+    		return false;
+    	}
+        return (row < rowCounts.length) && (rowCounts[row] > 0);
     }
 
     public boolean isColumnSelected(int column) {
-        for (Cell cell : selectedCells) {
-			if (column == cell.getColumn()) {
-                return true;
-            }
-        }
-        return false;
+    	if (column < 0) {
+    		for (Cell cell : selectedCells) {
+    			if (column == cell.getColumn()) {
+    				return true;
+    			}
+    		}
+    		return false;
+    	}
+        return (column < columnCounts.length) && (columnCounts[column] > 0);
     }
 
     public void clearSelection() {
 		selectedCells.clear();
 		selectedRows.clear();
+		clearIndex();
 	}
 
     public void emptySelection() {
         selectedCells.clear();
         selectedRows.clear();
+        clearIndex();
         fireEmptySelection();
     }
 
@@ -80,7 +105,7 @@ public class DefaultSelectionModel extends AbstractSelectionModel {
     }
 
     public void addSelectionCell(Cell cell) {    	
-        selectedCells.add(cell);
+        add(cell);
         fireSelectionChanged();
 	}
     
@@ -90,7 +115,9 @@ public class DefaultSelectionModel extends AbstractSelectionModel {
 	}
 
     public void removeSelectionCell(Cell cell) {
-        selectedCells.remove(cell);
+        if (selectedCells.remove(cell)) {
+        	index(cell, false);
+        }
         fireSelectionChanged();
     }
     
@@ -100,7 +127,9 @@ public class DefaultSelectionModel extends AbstractSelectionModel {
     }
 
     public void addSelectionCells(List<Cell> cells) {    	
-        selectedCells.addAll(cells);
+        for (Cell cell : cells) {
+        	add(cell);
+        }
         fireSelectionChanged();
 	}
     
@@ -110,81 +139,114 @@ public class DefaultSelectionModel extends AbstractSelectionModel {
 	}
 	
 	public List<Cell> getSelectedCells() {
-        List<Cell> cells = new ArrayList<Cell>();
-        cells.addAll(selectedCells);
-        List<Cell> result = clone(cells);
-        Collections.sort(result, new Comparator<Cell>() {
-        	
-            public int compare(Cell c1, Cell c2) {
-                 if (c1.getRow() == c2.getRow()) {
-                     if (c1.getColumn() == c2.getColumn()) {
-                         return 0;
-                     } else {
-                         return c1.getColumn() - c2.getColumn();
-                     }
-                 } else {
-                     return c1.getRow() - c2.getRow();
-                 }
-            }
-            
-        });
-
-        return result;
-    }
-
-    private List<Cell> clone(List<Cell> list) {
-        List<Cell> result = new ArrayList<Cell>();
-        for(Cell cell : list) {
-            Cell newCell = new Cell(cell.getRow(), cell.getColumn());
-            result.add(cell);
-        }
-        return result;
+		if (sortedCells == null) {
+			sortedCells = new ArrayList<Cell>(selectedCells.size());
+			// cells outside grid (not indexed)
+			for (Cell cell : selectedCells) {
+				if ((cell.getRow() < 0) || (cell.getColumn() < 0)) {
+					sortedCells.add(new Cell(cell.getRow(), cell.getColumn()));
+				}
+			}
+			for (int row = 0, n = cellRows.size(); row < n; row++) {
+				BitSet columns = cellRows.get(row);
+				if (columns == null) {
+					continue;
+				}
+				for (int column = columns.nextSetBit(0); column >= 0; column = columns.nextSetBit(column + 1)) {
+					sortedCells.add(new Cell(row, column));
+				}
+			}
+		}
+        return new ArrayList<Cell>(sortedCells);
     }
 
     public Cell getLastSelectedCell() {        
-        if (selectedCells.size() != 0) {            
-            List<Cell> cells = new ArrayList<Cell>();
-            cells.addAll(selectedCells);
-            return cells.get(cells.size()-1);
-		}
-        return null;
+        Cell last = null;
+        for (Cell cell : selectedCells) {
+        	last = cell;
+        }
+        return last;
     }
 	
     public Cell getSelectedCell() {
 		if (selectedCells.size() != 0) {
-            List<Cell> cells = new ArrayList<Cell>();
-            cells.addAll(selectedCells);
-            return cells.get(0);
+            return selectedCells.iterator().next();
 		} 
 		
 		return null;
 	}
 
     public void setFirstCell(Cell cell) {
-        selectedCells.remove(cell);
+        boolean selected = selectedCells.remove(cell);
         LinkedHashSet<Cell> result = new LinkedHashSet<Cell>();
         result.add(cell);
         result.addAll(selectedCells);
         selectedCells = result;
+        if (!selected) {
+        	index(cell, true);
+        }
     }
 
     public void setLastCell(Cell cell) {
-        selectedCells.remove(cell);
-        selectedCells.add(cell);        
+        boolean selected = selectedCells.remove(cell);
+        selectedCells.add(cell);
+        if (!selected) {
+        	index(cell, true);
+        }
     }
     
     public boolean isFullRowSelected(int row) {
-    	for (Integer i : selectedRows) {
-    		if (row == i.intValue()) {
-    			return true;
-    		}
-    	}
-    	return false;
+    	return selectedRows.contains(row);
     }
     
     public List<Integer> getSelectedRows() {
     	return new ArrayList<Integer>(selectedRows);
     }
-        
+
+    private void add(Cell cell) {
+    	if (selectedCells.add(cell)) {
+    		index(cell, true);
+    	}
+    }
+
+    private void index(Cell cell, boolean selected) {
+    	sortedCells = null;
+    	int row = cell.getRow();
+    	int column = cell.getColumn();
+    	if ((row < 0) || (column < 0)) {
+    		return;
+    	}
+    	while (cellRows.size() <= row) {
+    		cellRows.add(null);
+    	}
+    	BitSet columns = cellRows.get(row);
+    	if (columns == null) {
+    		columns = new BitSet();
+    		cellRows.set(row, columns);
+    	}
+    	columns.set(column, selected);
+    	
+    	int delta = selected ? 1 : -1;
+    	rowCounts = ensureSize(rowCounts, row);
+    	rowCounts[row] += delta;
+    	columnCounts = ensureSize(columnCounts, column);
+    	columnCounts[column] += delta;
+    }
+
+    private void clearIndex() {
+    	sortedCells = null;
+    	cellRows.clear();
+    	rowCounts = new int[0];
+    	columnCounts = new int[0];
+    }
+
+    private static int[] ensureSize(int[] counts, int index) {
+    	if (index < counts.length) {
+    		return counts;
+    	}
+    	int[] result = new int[Math.max(index + 1, counts.length * 2)];
+    	System.arraycopy(counts, 0, result, 0, counts.length);
+    	return result;
+    }
 	
 }
@@ -17,14 +17,20 @@
 package ro.nextreports.designer.grid;
 
 
-import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import ro.nextreports.designer.BandUtil;
 
 /**
+ * Spans are indexed by cell : every cell covered by a (non-atomic) span keeps a reference to its span,
+ * so getSpanOver and isCellSpan do not depend on the number of spans. The index is updated only for
+ * the spans changed by add, remove, insert or delete.
+ *
  * @author Decebal Suiu
  */
 public class DefaultSpanModel extends AbstractSpanModel implements
@@ -33,34 +39,36 @@ public class DefaultSpanModel extends AbstractSpanModel implements
 	// used to specially paint spanned cells by BasicGridUI
 	private HashSet<CellSpan> spanSet = new HashSet<CellSpan>();
 
-	// set of cells that are part of (non-atomic) spans
-	private HashSet<Point> spanCellSet = new HashSet<Point>();
+	// span over every cell that is part of a (non-atomic) span : spanCells.get(row)[column]
+	private List<CellSpan[]> spanCells = new ArrayList<CellSpan[]>();
 
-	private Point cell = new Point();
+	// atomic spans returned for the other cells; they depend only on position, so they are kept
+	// when rows or columns are inserted or removed
+	private List<CellSpan[]> atomicSpans = new ArrayList<CellSpan[]>();
 
 	public DefaultSpanModel() {
 	}
 
 	public CellSpan getSpanOver(int row, int column) {
-		Iterator<CellSpan> it = getSpanIterator();
-		while (it.hasNext()) {
-			CellSpan span = it.next();
-			if (row >= span.getFirstRow() && row <= span.getLastRow()
-					&& column >= span.getFirstColumn()
-					&& column <= span.getLastColumn()) {
-				return span;
-			}
+		CellSpan span = getSpan(spanCells, row, column);
+		if (span != null) {
+			return span;
 		}
 		
 		// Return atomic span
-		return new CellSpan(row, column, 1, 1);
+		if ((row < 0) || (column < 0)) {
+			return new CellSpan(row, column, 1, 1);
+		}
+		span = getSpan(atomicSpans, row, column);
+		if (span == null) {
+			span = new CellSpan(row, column, 1, 1);
+			setSpan(atomicSpans, row, column, span);
+		}
+		return span;
 	}
 
 	public boolean isCellSpan(int row, int column) {
-		cell.x = column;
-		cell.y = row;
-		
-		return spanCellSet.contains(cell);
+		return getSpan(spanCells, row, column) != null;
 	}
 
 	public Iterator<CellSpan> getSpanIterator() {
@@ -68,84 +76,66 @@ public class DefaultSpanModel extends AbstractSpanModel implements
 	}
 
 	public void addSpan(CellSpan span) {
-		for (int row = span.getFirstRow(); row <= span.getLastRow(); row++) {
-			for (int column = span.getFirstColumn(); column <= span
-					.getLastColumn(); column++) {
-				spanCellSet.add(new Point(column, row));
-			}
-		}
+		mark(span);
 		spanSet.add(span);
 		fireCellSpanAdded(span);
 	}
 
 	public void removeSpan(CellSpan span) {
-		for (int row = span.getFirstRow(); row <= span.getLastRow(); row++) {
-			for (int column = span.getFirstColumn(); column <= span
-					.getLastColumn(); column++) {
-				spanCellSet.remove(new Point(column, row));
-			}
-		}
+		unmark(span);
 		spanSet.remove(span);
 		fireCellSpanRemoved(span);
 	}
 
-	private void rebuildSpanCellSet() {
-		spanCellSet.clear();
-		Iterator<CellSpan> it = spanSet.iterator();
-		while (it.hasNext()) {
-			CellSpan span = (CellSpan) it.next();
-			for (int rowIndex = span.getFirstRow(); rowIndex <= span
-					.getLastRow(); rowIndex++) {
-				for (int colIndex = span.getFirstColumn(); colIndex <= span
-						.getLastColumn(); colIndex++) {
-					spanCellSet.add(new Point(colIndex, rowIndex));
-				}
-			}
-		}
-	}
-
 	public void insertRows(int row, int rowCount) {
-		Set<CellSpan> oldSpanSet = spanSet;
-		spanSet = new HashSet<CellSpan>();
-		Iterator<CellSpan> it = oldSpanSet.iterator();
+		List<CellSpan> newSpans = new ArrayList<CellSpan>();
+		Iterator<CellSpan> it = spanSet.iterator();
 		while (it.hasNext()) {
-			CellSpan span = (CellSpan) it.next();
+			CellSpan span = it.next();
 			if (span.getLastRow() < row) {
 				// leave span unchanged
-				spanSet.add(span);
-			} else if (span.getFirstRow() >= row) {
+				continue;
+			}
+			it.remove();
+			unmark(span);
+			if (span.getFirstRow() >= row) {
 				// move span down
 				CellSpan newSpan = new CellSpan(span.getRow() + rowCount, span.getColumn(),
                         span.getRowCount(), span.getColumnCount());
-				spanSet.add(newSpan);
+				newSpans.add(newSpan);
 			} else {
 				// increase span
 				CellSpan newSpan = new CellSpan(span.getRow(), span.getColumn(),
                         span.getRowCount() + rowCount, span.getColumnCount());
                 // todo outside span model??
                 BandUtil.updateBandElement(newSpan);
-                spanSet.add(newSpan);
+                newSpans.add(newSpan);
 			}
 		}
 
-		rebuildSpanCellSet();
+		if (row < spanCells.size()) {
+			spanCells.addAll(row, Collections.<CellSpan[]>nCopies(rowCount, null));
+		}
+		addSpans(newSpans);
 	}
 
 	public void removeRows(int row, int rowCount) {
-		Set<CellSpan> oldSpanSet = spanSet;
-		spanSet = new HashSet<CellSpan>();
-		Iterator<CellSpan> it = oldSpanSet.iterator();
+		List<CellSpan> newSpans = new ArrayList<CellSpan>();
+		Iterator<CellSpan> it = spanSet.iterator();
 		while (it.hasNext()) {
-			CellSpan span = (CellSpan) it.next();
+			CellSpan span = it.next();
             if (span.getLastRow() < row) {
 				// leave span unchanged
-                spanSet.add(span);
-            } else if (row < span.getFirstRow()) {
+                continue;
+            }
+            it.remove();
+            unmark(span);
+            if (row < span.getFirstRow()) {
                  // move span up
                 if (span.getRow() >= rowCount) {
                     CellSpan newSpan = new CellSpan(span.getRow() - rowCount, span.getColumn(),
                             span.getRowCount(), span.getColumnCount());
-                    spanSet.add(newSpan);
+                    newSpans.add(newSpan);
                 }
             } else if ((span.getFirstRow() <= row) && (span.getLastRow() >= row)) {
 				// decrease span                
@@ -154,54 +144,72 @@ public class DefaultSpanModel extends AbstractSpanModel implements
                 // todo outside span model??
                 BandUtil.updateBandElement(newSpan);
                 if ((newSpan.getRowCount() > 1) || (newSpan.getColumnCount() > 1)) {
-					spanSet.add(newSpan);
+					newSpans.add(newSpan);
 				}
             }
 		}
-		rebuildSpanCellSet();
+
+		if (row < spanCells.size()) {
+			spanCells.subList(row, Math.min(row + rowCount, spanCells.size())).clear();
+		}
+		addSpans(newSpans);
 	}
 
 	public void insertColumns(int column, int columnCount) {
-		Set<CellSpan> oldSpanSet = spanSet;
-		spanSet = new HashSet<CellSpan>();
-		Iterator<CellSpan> it = oldSpanSet.iterator();
+		List<CellSpan> newSpans = new ArrayList<CellSpan>();
+		Iterator<CellSpan> it = spanSet.iterator();
 		while (it.hasNext()) {
-			CellSpan span = (CellSpan) it.next();
+			CellSpan span = it.next();
 			if (span.getLastColumn() < column) {
 				// leave span unchanged
-				spanSet.add(span);
-			} else if (span.getFirstColumn() >= column) {
+				continue;
+			}
+			it.remove();
+			unmark(span);
+			if (span.getFirstColumn() >= column) {
 				// move span right
 				CellSpan newSpan = new CellSpan(span.getRow(), span.getColumn()	+ columnCount,
                         span.getRowCount(), span.getColumnCount());
-				spanSet.add(newSpan);
+				newSpans.add(newSpan);
 			} else {
 				// increase span
 				CellSpan newSpan = new CellSpan(span.getRow(), span.getColumn(),
                         span.getRowCount(), span.getColumnCount() + columnCount);                
                 // todo outside span model??
                 BandUtil.updateBandElement(newSpan);
-                spanSet.add(newSpan);
+                newSpans.add(newSpan);
+			}
+		}
+
+		for (int i = 0, size = spanCells.size(); i < size; i++) {
+			CellSpan[] cells = spanCells.get(i);
+			if ((cells != null) && (column < cells.length)) {
+				CellSpan[] newCells = new CellSpan[cells.length + columnCount];
+				System.arraycopy(cells, 0, newCells, 0, column);
+				System.arraycopy(cells, column, newCells, column + columnCount, cells.length - column);
+				spanCells.set(i, newCells);
 			}
 		}
-		rebuildSpanCellSet();
+		addSpans(newSpans);
 	}
 
 	public void removeColumns(int column, int columnCount) {
-		Set<CellSpan> oldSpanSet = spanSet;
-		spanSet = new HashSet<CellSpan>();
-		Iterator<CellSpan> it = oldSpanSet.iterator();
+		List<CellSpan> newSpans = new ArrayList<CellSpan>();
+		Iterator<CellSpan> it = spanSet.iterator();
 		while (it.hasNext()) {
-			CellSpan span = (CellSpan) it.next();
+			CellSpan span = it.next();
 			if (span.getLastColumn() < column) {
 				// leave span unchanged
-				spanSet.add(span);
-			} else if (column < span.getFirstColumn()) {
+				continue;
+			}
+			it.remove();
+			unmark(span);
+			if (column < span.getFirstColumn()) {
 				// move span left
                 if (span.getColumn() >= columnCount) {
                     CellSpan newSpan = new CellSpan(span.getRow(), span.getColumn() - columnCount,
                             span.getRowCount(), span.getColumnCount());
-                    spanSet.add(newSpan);
+                    newSpans.add(newSpan);
                 }
             } else if ((span.getFirstColumn() <= column) && (span.getLastColumn() >= column)){
 				// decrease span
@@ -210,11 +218,88 @@ public class DefaultSpanModel extends AbstractSpanModel implements
                 // todo outside span model??
                 BandUtil.updateBandElement(newSpan);
                 if (newSpan.getColumnCount() > 1) {
-					spanSet.add(newSpan);
+					newSpans.add(newSpan);
 				}
 			}
 		}
-		rebuildSpanCellSet();
+
+		for (int i = 0, size = spanCells.size(); i < size; i++) {
+			CellSpan[] cells = spanCells.get(i);
+			if ((cells != null) && (column < cells.length)) {
+				int end = Math.min(column + columnCount, cells.length);
+				CellSpan[] newCells = new CellSpan[cells.length - (end - column)];
+				System.arraycopy(cells, 0, newCells, 0, column);
+				System.arraycopy(cells, end, newCells, column, cells.length - end);
+				spanCells.set(i, newCells);
+			}
+		}
+		addSpans(newSpans);
+	}
+
+	private void addSpans(List<CellSpan> spans) {
+		for (CellSpan span : spans) {
+			mark(span);
+			spanSet.add(span);
+		}
+	}
+
+	private void mark(CellSpan span) {
+		for (int row = span.getFirstRow(); row <= span.getLastRow(); row++) {
+			for (int column = span.getFirstColumn(); column <= span
+					.getLastColumn(); column++) {
+				setSpan(spanCells, row, column, span);
+			}
+		}
+	}
+
+	// only cells covered by this span are cleared
+	private void unmark(CellSpan span) {
+		for (int row = span.getFirstRow(); row <= span.getLastRow(); row++) {
+			for (int column = span.getFirstColumn(); column <= span
+					.getLastColumn(); column++) {
+				if (getSpan(spanCells, row, column) == span) {
+					setSpan(spanCells, row, column, null);
+				}
+			}
+		}
+	}
+
+	private static CellSpan getSpan(List<CellSpan[]> index, int row, int column) {
+		if ((row < 0) || (column < 0) || (row >= index.size())) {
+			return null;
+		}
+		CellSpan[] cells = index.get(row);
+		if ((cells == null) || (column >= cells.length)) {
+			return null;
+		}
+		return cells[column];
+	}
+
+	private static void setSpan(List<CellSpan[]> index, int row, int column, CellSpan span) {
+		if ((row < 0) || (column < 0)) {
+			return;
+		}
+		if (row >= index.size()) {
+			if (span == null) {
+				return;
+			}
+			while (index.size() <= row) {
+				index.add(null);
+			}
+		}
+		CellSpan[] cells = index.get(row);
+		if ((cells == null) || (column >= cells.length)) {
+			if (span == null) {
+				return;
+			}
+			CellSpan[] newCells = new CellSpan[Math.max(column + 1, (cells == null) ? 0 : cells.length * 2)];
+			if (cells != null) {
+				System.arraycopy(cells, 0, newCells, 0, cells.length);
+			}
+			cells = newCells;
+			index.set(row, cells);
+		}
+		cells[column] = span;
 	}
 	
 }
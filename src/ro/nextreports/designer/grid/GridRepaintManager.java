@@ -16,6 +16,12 @@
  */
 package ro.nextreports.designer.grid;
 
+import java.awt.Rectangle;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
 import ro.nextreports.designer.grid.event.GridModelEvent;
 import ro.nextreports.designer.grid.event.GridModelListener;
 import ro.nextreports.designer.grid.event.HeaderModelEvent;
@@ -28,6 +34,10 @@ import ro.nextreports.designer.grid.event.SpanModelListener;
 /**
  * Handles repainting of grid.
  * 
+ * Only the cells changed by grid, selection and span events are repainted : their bounds are joined
+ * until the events of the current event loop are processed and then a single repaint is requested.
+ * Header changes and whole model changes still repaint the entire grid.
+ * 
  * @author Decebal Suiu
  */
 public class GridRepaintManager implements GridModelListener,
@@ -35,23 +45,42 @@ public class GridRepaintManager implements GridModelListener,
 	
 	private JGrid grid = null;
 
+	// region to repaint at the end of current event loop
+	private Rectangle dirtyRegion;
+	private boolean fullRepaint;
+	private boolean scheduled;
+
+	// cells of last painted selection : firstRow, firstColumn, lastRow, lastColumn
+	private int[] selectionRange;
+
+	// counters used to check how much is repainted
+	private int repaintCount;
+	private int fullRepaintCount;
+	private long repaintedArea;
+
 	public GridRepaintManager(JGrid grid) {
 		this.grid = grid;
 	}
 	
-	// Repaint listeners. The implementation of repainting should be improved
-	// and only repaint the regions which have changed.
 	public void gridChanged(GridModelEvent event) {
 		if (event.getType() == GridModelEvent.CELLS_UPDATED
 				|| event.getType() == GridModelEvent.ROWS_UPDATED
-				|| event.getType() == GridModelEvent.COLUMNS_UPDATED
-				|| event.getType() == GridModelEvent.MODEL_CHANGED) {
+				|| event.getType() == GridModelEvent.COLUMNS_UPDATED) {
+			repaint(event.getFirstRow(), event.getFirstColumn(), event.getLastRow(), event.getLastColumn());
+		} else if (event.getType() == GridModelEvent.MODEL_CHANGED) {
 			repaint();
 		}
 	}
 
 	public void selectionChanged(SelectionModelEvent event) {
-		repaint();
+		// old selection must be erased
+		if (selectionRange != null) {
+			repaint(selectionRange[0], selectionRange[1], selectionRange[2], selectionRange[3]);
+		}
+		selectionRange = event.isEmpty() ? null : getSelectionRange(event.getSelectionModel());
+		if (selectionRange != null) {
+			repaint(selectionRange[0], selectionRange[1], selectionRange[2], selectionRange[3]);
+		}
 	}
 
 	public void headerChanged(HeaderModelEvent event) {
@@ -59,16 +88,147 @@ public class GridRepaintManager implements GridModelListener,
 	}
 
 	public void spanChanged(SpanModelEvent event) {
-		repaint();
+		if (event.getType() == SpanModelEvent.MODEL_CHANGED) {
+			repaint();
+			return;
+		}
+		int rowCount = Math.max(event.getOldRowCount(), event.getNewRowCount());
+		int columnCount = Math.max(event.getOldColumnCount(), event.getNewColumnCount());
+		repaint(event.getAnchorRow(), event.getAnchorColumn(),
+				event.getAnchorRow() + Math.max(rowCount, 1) - 1,
+				event.getAnchorColumn() + Math.max(columnCount, 1) - 1);
 	}
 	
 	protected void repaint() {
-		grid.repaint();
+		fullRepaint = true;
+		schedule();
 	}
 
 	protected void resizeAndRepaint() {
 		grid.revalidate();
-		grid.repaint();
+		repaint();
+	}
+
+	/**
+	 * Repaint the cells between (firstRow, firstColumn) and (lastRow, lastColumn) and the spans over them.
+	 */
+	protected void repaint(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		if (fullRepaint) {
+			return;
+		}
+		Rectangle bounds = getBounds(firstRow, firstColumn, lastRow, lastColumn);
+		if (bounds == null) {
+			fullRepaint = true;
+		} else if (dirtyRegion == null) {
+			dirtyRegion = bounds;
+		} else {
+			dirtyRegion.add(bounds);
+		}
+		schedule();
+	}
+
+	public int getRepaintCount() {
+		return repaintCount;
+	}
+
+	public int getFullRepaintCount() {
+		return fullRepaintCount;
+	}
+
+	/**
+	 * Total area (in pixels) requested to be repainted
+	 */
+	public long getRepaintedArea() {
+		return repaintedArea;
+	}
+
+	public void resetCounters() {
+		repaintCount = 0;
+		fullRepaintCount = 0;
+		repaintedArea = 0;
+	}
+
+	private void schedule() {
+		if (scheduled) {
+			return;
+		}
+		scheduled = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	private void flush() {
+		scheduled = false;
+		repaintCount++;
+		if (fullRepaint) {
+			fullRepaintCount++;
+			repaintedArea += (long) grid.getWidth() * grid.getHeight();
+			grid.repaint();
+		} else if (dirtyRegion != null) {
+			repaintedArea += (long) dirtyRegion.width * dirtyRegion.height;
+			grid.repaint(dirtyRegion);
+		}
+		fullRepaint = false;
+		dirtyRegion = null;
+	}
+
+	// null if cells are not inside grid
+	private Rectangle getBounds(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		int rowCount = grid.getRowCount();
+		int columnCount = grid.getColumnCount();
+		if ((rowCount == 0) || (columnCount == 0) || (firstRow < 0) || (firstColumn < 0)
+				|| (lastRow < firstRow) || (lastColumn < firstColumn)) {
+			return null;
+		}
+		firstRow = Math.min(firstRow, rowCount - 1);
+		lastRow = Math.min(lastRow, rowCount - 1);
+		firstColumn = Math.min(firstColumn, columnCount - 1);
+		lastColumn = Math.min(lastColumn, columnCount - 1);
+
+		// spans which intersect the region are painted entirely
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			Iterator<CellSpan> it = grid.getSpanModel().getSpanIterator();
+			while (it.hasNext()) {
+				CellSpan span = it.next();
+				if ((span.getLastRow() >= firstRow) && (span.getFirstRow() <= lastRow)
+						&& (span.getLastColumn() >= firstColumn) && (span.getFirstColumn() <= lastColumn)
+						&& ((span.getFirstRow() < firstRow) || (span.getLastRow() > lastRow)
+							|| (span.getFirstColumn() < firstColumn) || (span.getLastColumn() > lastColumn))) {
+					firstRow = Math.max(0, Math.min(firstRow, span.getFirstRow()));
+					lastRow = Math.min(rowCount - 1, Math.max(lastRow, span.getLastRow()));
+					firstColumn = Math.max(0, Math.min(firstColumn, span.getFirstColumn()));
+					lastColumn = Math.min(columnCount - 1, Math.max(lastColumn, span.getLastColumn()));
+					changed = true;
+				}
+			}
+		}
+
+		int x = grid.getColumnPosition(firstColumn);
+		int y = grid.getRowPosition(firstRow);
+		int width = grid.getColumnPosition(lastColumn) + grid.getColumnWidth(lastColumn) - x;
+		int height = grid.getRowPosition(lastRow) + grid.getRowHeight(lastRow) - y;
+		// grid lines are drawn on cell margins
+		return new Rectangle(x - 1, y - 1, width + 3, height + 3);
+	}
+
+	private int[] getSelectionRange(SelectionModel selectionModel) {
+		List<Cell> cells = selectionModel.getSelectedCells();
+		if (cells.isEmpty()) {
+			return null;
+		}
+		int[] range = {Integer.MAX_VALUE, Integer.MAX_VALUE, -1, -1};
+		for (Cell cell : cells) {
+			range[0] = Math.min(range[0], cell.getRow());
+			range[1] = Math.min(range[1], cell.getColumn());
+			range[2] = Math.max(range[2], cell.getRow());
+			range[3] = Math.max(range[3], cell.getColumn());
+		}
+		return range;
 	}
 
 }
@@ -438,6 +438,10 @@ public class JGrid extends JComponent implements Scrollable,
 		repaintManager.resizeAndRepaint();
 	}
 
+	public GridRepaintManager getRepaintManager() {
+		return repaintManager;
+	}
+
 	public SelectionModel getSelectionModel() {
 		return selectionModel;
 	}
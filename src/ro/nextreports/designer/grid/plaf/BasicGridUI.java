@@ -272,6 +272,7 @@ public class BasicGridUI extends GridUI {
             return;
         }
 
+        paintedCellCount++;
         GridCellRenderer renderer = grid.getCellRenderer(row, column);
         Component rendererComp = grid.prepareRenderer(renderer, row, column);
         rendererPane.paintComponent(g, rendererComp, grid, cellBounds.x,
@@ -34,6 +34,10 @@ import ro.nextreports.designer.grid.JGrid;
 public abstract class GridUI extends ComponentUI {
 	
 	protected JGrid grid;
+
+	// counters used to check how much is painted
+	protected int paintCount;
+	protected int paintedCellCount;
 	
 	@Override
 	public void paint(Graphics g, JComponent c) {
@@ -41,6 +45,7 @@ public abstract class GridUI extends ComponentUI {
 			return; // nothing to paint
 		}
 
+		paintCount++;
 		Rectangle clip = g.getClipBounds();
 		Point minLocation = clip.getLocation();
 		Point maxLocation = new Point(clip.x + clip.width - 1, clip.y
@@ -84,6 +89,22 @@ public abstract class GridUI extends ComponentUI {
 		paintEditor(g);
 	}
 
+	public int getPaintCount() {
+		return paintCount;
+	}
+
+	/**
+	 * Number of cells painted by renderers
+	 */
+	public int getPaintedCellCount() {
+		return paintedCellCount;
+	}
+
+	public void resetPaintCounters() {
+		paintCount = 0;
+		paintedCellCount = 0;
+	}
+
 	public abstract void paintEditor(Graphics g);
 	
 	public abstract void paintCells(Graphics g, int rowMin, int rowMax, int colMin, int colMax);
@@ -0,0 +1,502 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import ro.nextreports.designer.FormSaver;
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.chart.ChartUtil;
+import ro.nextreports.designer.datasource.DataSource;
+
+
+/**
+ * Inverted index over the contents of queries, reports and charts from the output folder of the connected
+ * data source : sql, parameter sources, expressions, band element texts (all element texts of the xml file).
+ *
+ * The index is built in background after connect (if property 'content.index' is true). It is updated when
+ * a file is saved, renamed or deleted from designer, and before every search the files with a changed
+ * modification time (taken from {@link RepositoryIndex}) are indexed again.
+ *
+ * A search looks up the words of the text in the index (exact words, the last one also as prefix) and then
+ * checks the text only in candidate files.
+ */
+public class ContentIndex {
+
+    private static final Log LOG = LogFactory.getLog(ContentIndex.class);
+
+    private static final String[] EXTENSIONS = {
+            FileReportPersistence.REPORT_FULL_EXTENSION, FormSaver.REPORT_FULL_EXTENSION, ChartUtil.CHART_FULL_EXTENSION
+    };
+
+    private static ContentIndex current;
+
+    private File root;
+    // indexed files by path
+    private Map<String, Document> documents = new HashMap<String, Document>();
+    // file paths by word (sorted for prefix search)
+    private TreeMap<String, Set<String>> words = new TreeMap<String, Set<String>>();
+    private volatile boolean stopped;
+
+    private ContentIndex(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Start indexing the output folder of a data source (if enabled)
+     *
+     * @param dataSource connected data source
+     */
+    public static synchronized void start(DataSource dataSource) {
+        stop();
+        if ((dataSource == null) || !Globals.isContentIndex()) {
+            return;
+        }
+        File root = new File(FileReportPersistence.CONNECTIONS_DIR + File.separator + dataSource.getName()).getAbsoluteFile();
+        current = new ContentIndex(root);
+        final ContentIndex index = current;
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                long start = System.currentTimeMillis();
+                int count = index.sync();
+                LOG.info("Content of '" + index.root.getName() + "' indexed : " + count + " files, " +
+                        index.words.size() + " words in " + (System.currentTimeMillis() - start) + " ms.");
+            }
+        }, "NEXT : Content index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public static synchronized void stop() {
+        if (current != null) {
+            current.stopped = true;
+            current = null;
+        }
+    }
+
+    /**
+     * Index again a saved file
+     *
+     * @param file saved query, report or chart
+     */
+    public static void update(File file) {
+        ContentIndex index = current;
+        if ((index != null) && isIndexed(file)) {
+            index.index(file.getAbsoluteFile());
+        }
+    }
+
+    /**
+     * Remove a deleted (or renamed) file from index
+     *
+     * @param path file path
+     */
+    public static void remove(String path) {
+        ContentIndex index = current;
+        if (index != null) {
+            index.removeDocument(new File(path).getAbsolutePath());
+        }
+    }
+
+    /**
+     * Find the queries, reports and charts which contain a text. The text must start at the beginning of a word
+     * (for example 'cust' finds 'customer' but not 'acust').
+     *
+     * @param text text to search
+     * @param caseSensitive true for case sensitive search
+     * @param wholeWord true if the text must also end at the end of a word (for example a table name)
+     * @param folderPath search only in this folder, null to search in all folders
+     * @return files which contain the text, sorted by path
+     */
+    public static List<File> search(String text, boolean caseSensitive, boolean wholeWord, String folderPath) {
+        ContentIndex index = current;
+        if (index == null) {
+            // index is disabled : read all files now
+            index = new ContentIndex(new File(FileReportPersistence.getConnectedDataSourceAbsolutePath()));
+        }
+        return index.find(text, caseSensitive, wholeWord, folderPath);
+    }
+
+    /**
+     * Replace a text in the element texts of many files in parallel; files are indexed again
+     *
+     * @param files files to change
+     * @param oldText old text
+     * @param newText new text
+     * @param caseSensitive true for case sensitive replace
+     * @param wholeWord true to replace only whole words
+     * @throws InterruptedException if current thread was interrupted
+     */
+    public static void replace(List<File> files, final String oldText, final String newText,
+                               final boolean caseSensitive, final boolean wholeWord) throws InterruptedException {
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NEXT : Content replace " + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        replace(file, oldText, newText, caseSensitive, wholeWord);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replace a text in the element texts of a file (xml tags are not changed); the file is indexed again
+     *
+     * @param file file to change
+     * @param oldText old text
+     * @param newText new text
+     * @param caseSensitive true for case sensitive replace
+     * @param wholeWord true to replace only whole words
+     * @throws IOException if file cannot be read or written
+     */
+    public static void replace(File file, String oldText, String newText, boolean caseSensitive, boolean wholeWord)
+            throws IOException {
+        LOG.info("  --> replace file '" + file.getAbsolutePath() + "' " + oldText + " -> " + newText);
+        replaceText(file, oldText, newText, caseSensitive, wholeWord);
+        ReportCache.remove(file.getAbsolutePath());
+        update(file);
+    }
+
+    private static boolean isIndexed(File file) {
+        for (String extension : EXTENSIONS) {
+            if (file.getName().endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<File> find(String text, boolean caseSensitive, boolean wholeWord, String folderPath) {
+        sync();
+        String prefix = (folderPath == null) ? null : new File(folderPath).getAbsolutePath() + File.separator;
+        List<File> result = new ArrayList<File>();
+        synchronized (this) {
+            for (String path : getCandidates(text, wholeWord)) {
+                if ((prefix != null) && !path.startsWith(prefix)) {
+                    continue;
+                }
+                if (indexOf(documents.get(path).content, text, 0, caseSensitive, wholeWord) >= 0) {
+                    result.add(new File(path));
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    // files which contain all words of the text : every word of the text is an indexed word, only the last one
+    // can be the start of an indexed word if the text does not end a word
+    private Set<String> getCandidates(String text, boolean wholeWord) {
+        List<String> textWords = splitList(text);
+        boolean lastIsPrefix = !wholeWord && (text.length() > 0) && isWordPart(text.charAt(text.length() - 1));
+        Set<String> candidates = null;
+        for (int i = 0, n = textWords.size(); i < n; i++) {
+            String word = textWords.get(i);
+            Set<String> paths = new HashSet<String>();
+            if (lastIsPrefix && (i == n - 1)) {
+                for (Set<String> set : words.subMap(word, word + Character.MAX_VALUE).values()) {
+                    paths.addAll(set);
+                }
+            } else {
+                Set<String> set = words.get(word);
+                if (set != null) {
+                    paths.addAll(set);
+                }
+            }
+            if (candidates == null) {
+                candidates = paths;
+            } else {
+                candidates.retainAll(paths);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return (candidates == null) ? new HashSet<String>(documents.keySet()) : candidates;
+    }
+
+    /**
+     * Find a text which starts at the beginning of a word (and ends at the end of a word if wholeWord is true)
+     *
+     * @return index of text in content or -1
+     */
+    static int indexOf(String content, String text, int from, boolean caseSensitive, boolean wholeWord) {
+        int length = text.length();
+        if (length == 0) {
+            return -1;
+        }
+        boolean checkStart = isWordPart(text.charAt(0));
+        boolean checkEnd = wholeWord && isWordPart(text.charAt(length - 1));
+        for (int i = from, n = content.length() - length; i <= n; i++) {
+            if (!content.regionMatches(!caseSensitive, i, text, 0, length)) {
+                continue;
+            }
+            if (checkStart && (i > 0) && isWordPart(content.charAt(i - 1))) {
+                continue;
+            }
+            if (checkEnd && (i + length < content.length()) && isWordPart(content.charAt(i + length))) {
+                continue;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // plain (not word) search
+    private static int indexOf(String content, String text, int from, boolean caseSensitive) {
+        int length = text.length();
+        if (length == 0) {
+            return -1;
+        }
+        for (int i = from, n = content.length() - length; i <= n; i++) {
+            if (content.regionMatches(!caseSensitive, i, text, 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // replace only in element texts : tags and entities are copied unchanged
+    private static void replaceText(File file, String oldText, String newText, boolean caseSensitive,
+                                    boolean wholeWord) throws IOException {
+        String content = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+        StringBuilder sb = new StringBuilder(content.length());
+        boolean changed = false;
+        int i = 0;
+        int n = content.length();
+        while (i < n) {
+            char c = content.charAt(i);
+            if ((c == '<') || (c == '&')) {
+                int end = content.indexOf((c == '<') ? '>' : ';', i);
+                end = (end < 0) ? n : end + 1;
+                sb.append(content, i, end);
+                i = end;
+                continue;
+            }
+            int end = i;
+            while ((end < n) && (content.charAt(end) != '<') && (content.charAt(end) != '&')) {
+                end++;
+            }
+            String segment = content.substring(i, end);
+            int from = 0;
+            int index;
+            while ((index = wholeWord ? indexOf(segment, oldText, from, caseSensitive, true) :
+                    indexOf(segment, oldText, from, caseSensitive)) >= 0) {
+                sb.append(segment, from, index).append(newText);
+                from = index + oldText.length();
+                changed = true;
+            }
+            sb.append(segment, from, segment.length());
+            i = end;
+        }
+        if (changed) {
+            Files.write(file.toPath(), sb.toString().getBytes("UTF-8"));
+        }
+    }
+
+    // index new and changed files, remove deleted files
+    private int sync() {
+        Set<String> found = new HashSet<String>();
+        sync(root, found);
+        List<String> deleted = new ArrayList<String>();
+        synchronized (this) {
+            for (String path : documents.keySet()) {
+                if (!found.contains(path)) {
+                    deleted.add(path);
+                }
+            }
+        }
+        for (String path : deleted) {
+            removeDocument(path);
+        }
+        return found.size();
+    }
+
+    private void sync(File folder, Set<String> found) {
+        for (RepositoryIndex.Entry entry : RepositoryIndex.list(folder.getPath())) {
+            if (stopped) {
+                return;
+            }
+            if (entry.isDirectory()) {
+                sync(entry.getFile(), found);
+            } else if (isIndexed(entry.getFile())) {
+                String path = entry.getFile().getAbsolutePath();
+                found.add(path);
+                Document document;
+                synchronized (this) {
+                    document = documents.get(path);
+                }
+                if ((document == null) || (document.modified != entry.getModified())) {
+                    index(entry.getFile().getAbsoluteFile());
+                }
+            }
+        }
+    }
+
+    private void index(File file) {
+        long modified = file.lastModified();
+        String content = readContent(file);
+        if (content == null) {
+            removeDocument(file.getPath());
+            return;
+        }
+        Document document = new Document(modified, content, split(content));
+        synchronized (this) {
+            removeDocument(file.getPath());
+            documents.put(file.getPath(), document);
+            for (String word : document.words) {
+                Set<String> paths = words.get(word);
+                if (paths == null) {
+                    paths = new HashSet<String>();
+                    words.put(word, paths);
+                }
+                paths.add(file.getPath());
+            }
+        }
+    }
+
+    private synchronized void removeDocument(String path) {
+        Document document = documents.remove(path);
+        if (document == null) {
+            return;
+        }
+        for (String word : document.words) {
+            Set<String> paths = words.get(word);
+            if (paths != null) {
+                paths.remove(path);
+                if (paths.isEmpty()) {
+                    words.remove(word);
+                }
+            }
+        }
+    }
+
+    // texts of all xml elements (element and attribute names are not indexed)
+    private static String readContent(File file) {
+        final StringBuilder sb = new StringBuilder();
+        final StringBuilder text = new StringBuilder();
+        try {
+            SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+            parser.parse(file, new DefaultHandler() {
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    text.setLength(0);
+                }
+
+                public void characters(char[] ch, int start, int length) {
+                    text.append(ch, start, length);
+                }
+
+                public void endElement(String uri, String localName, String qName) {
+                    String value = text.toString().trim();
+                    if (value.length() > 0) {
+                        sb.append(value).append('\n');
+                    }
+                    text.setLength(0);
+                }
+            });
+            return sb.toString();
+        } catch (Exception e) {
+            LOG.error("Cannot index '" + file + "' : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // lower case words (letters, digits, '_', '$' and '#')
+    private static Set<String> split(String text) {
+        return new HashSet<String>(splitList(text));
+    }
+
+    private static List<String> splitList(String text) {
+        List<String> result = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            boolean part = (i < n) && isWordPart(text.charAt(i));
+            if (part && (start < 0)) {
+                start = i;
+            } else if (!part && (start >= 0)) {
+                result.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || (c == '_') || (c == '$') || (c == '#');
+    }
+
+    private static class Document {
+
+        private long modified;
+        private String content;
+        private Set<String> words;
+
+        private Document(long modified, String content, Set<String> words) {
+            this.modified = modified;
+            this.content = content;
+            this.words = words;
+        }
+    }
+
+}
@@ -17,15 +17,10 @@
 package ro.nextreports.designer.persistence;
 
 import ro.nextreports.engine.Report;
-import ro.nextreports.engine.XStreamFactory;
-import com.thoughtworks.xstream.XStream;
 
 import java.io.*;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.text.Collator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -58,12 +53,6 @@ public class FileReportPersistence  implements ReportPersistence {
     private static Log LOG = LogFactory.getLog(FileReportPersistence.class);
 
     public boolean saveReport(Report report, String path) {
-
-		XStream xstream = XStreamFactory.createXStream();
-		DataSourceManager manager = DefaultDataSourceManager.getInstance();
-		DataSource ds = manager.getConnectedDataSource();
-
-		FileOutputStream fos = null;
 		try {
             File parent = new File(getConnectedDataSourceRelativePath());
             if (!parent.exists()) {
@@ -71,52 +60,27 @@ public class FileReportPersistence  implements ReportPersistence {
                 new File(getQueriesRelativePath()).mkdirs();
                 new File(getReportsRelativePath()).mkdirs();
                 new File(getChartsRelativePath()).mkdirs();
-            }            
-            fos = new FileOutputStream(path);
-			xstream.toXML(report, fos);
-			fos.flush();
+            }
+            ReportCache.remove(path);
+            XStreamPool.ENGINE.toXML(report, new File(path));
+            ReportStore.save(new File(path), report);
+			ContentIndex.update(new File(path));
 			return true;
 		} catch (Exception e1) {
 			e1.printStackTrace();
             LOG.error(e1.getMessage(), e1);
             return false;
-		} finally {
-			if (fos != null) {
-				try {
-					fos.close();
-				} catch (IOException e1) {
-					e1.printStackTrace();
-				}
-			}
 		}
 	}
 
 	public Report loadReport(String path) {
-
-		XStream xstream = XStreamFactory.createXStream();
-		DataSourceManager manager = DefaultDataSourceManager.getInstance();
-		DataSource ds = manager.getConnectedDataSource();
-
-		FileInputStream fis = null;
-        InputStreamReader reader = null;
-        try {			
-            fis = new FileInputStream(path);
-            reader = new InputStreamReader(fis, "UTF-8");
-            return (Report)xstream.fromXML(reader);
+        try {
+            return ReportCache.loadReport(path);
 		} catch (Exception e1) {
 			e1.printStackTrace();
             LOG.error(e1.getMessage(), e1);
             return null;
-		} finally {
-			if (fis != null) {
-				try {
-					fis.close();
-				} catch (IOException e1) {
-					e1.printStackTrace();
-				}
-			}
 		}
-
 	}
 
     public List<File> getReportFiles(String folderPath) {
@@ -124,41 +88,19 @@ public class FileReportPersistence  implements ReportPersistence {
         DataSourceManager manager = DefaultDataSourceManager.getInstance();
         DataSource ds = manager.getConnectedDataSource();
         if (ds != null) {
-            File file = new File(folderPath);
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (int i = 0, size = files.length; i < size; i++) {
-                    int index = files[i].getName().indexOf(REPORT_EXTENSION_SEPARATOR + REPORT_EXTENSION);
-                    if (index != -1) {
-                        if (files[i].getName().endsWith(REPORT_EXTENSION_SEPARATOR + REPORT_EXTENSION)) {
-                            result.add(files[i]);
-                        }
-                    } else {
-                        if (file.isDirectory()) {
-                            result.add(files[i]);
-                        }
-                    }
-                }
+            // already sorted with folders first
+            for (RepositoryIndex.Entry entry : RepositoryIndex.list(folderPath, REPORT_FULL_EXTENSION)) {
+                result.add(entry.getFile());
             }
         }
-        Collections.sort(result, new Comparator<File>() {
-            public int compare(File o1, File o2) {
-                if ((o1.isDirectory() && o2.isDirectory()) || (o1.isFile() && o2.isFile())) {
-                    return Collator.getInstance().compare(o1.getName(), o2.getName());
-                } else {
-                    if (o1.isDirectory()) {
-                        return -1;
-                    } else {
-                        return 1;
-                    }
-                }
-            }
-        });
         return result;
     }
 
 	public boolean deleteReport(String path) {		
 		File file = new File(path);
+		ContentIndex.remove(path);
+		ReportCache.remove(path);
+		ReportStore.delete(path);
 		return file.delete();
 	}
 
@@ -169,6 +111,9 @@ public class FileReportPersistence  implements ReportPersistence {
 		File newFile = new File(parentPath + File.separator + newName + REPORT_EXTENSION_SEPARATOR + REPORT_EXTENSION);
 		boolean result = file.renameTo(newFile);
         if (result) {
+            ContentIndex.remove(file.getAbsolutePath());
+            ReportCache.remove(file.getAbsolutePath());
+            ReportStore.delete(file.getAbsolutePath());
             if (file.getAbsolutePath().equals(Globals.getCurrentQueryAbsolutePath())) {
                 Globals.setCurrentQueryAbsolutePath(newFile.getAbsolutePath());
             }
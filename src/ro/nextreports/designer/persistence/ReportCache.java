@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.chart.Chart;
+import ro.nextreports.engine.util.ObjectCloner;
+import ro.nextreports.engine.util.converter.ConverterUtil;
+
+/**
+ * Bounded LRU cache for the reports and charts read from disk.
+ *
+ * An entry is valid while the file has the same modified time and size. Every caller receives its own deep copy
+ * of the cached object, so the cached one is never changed. Saving, renaming or deleting a file removes its entry.
+ */
+public class ReportCache {
+
+	private static final Log LOG = LogFactory.getLog(ReportCache.class);
+
+	private static final int DEFAULT_REPORT_CACHE_SIZE = 20;
+
+	private static Map<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > getReportCacheSize();
+		}
+
+	};
+
+	// file version for which xml conversion was already done
+	private static Map<String, Version> converted = new ConcurrentHashMap<String, Version>();
+
+	private static long hits;
+	private static long misses;
+
+	public static Report loadReport(String path) throws IOException {
+		return (Report) load(path);
+	}
+
+	public static Chart loadChart(String path) throws IOException {
+		return (Chart) load(path);
+	}
+
+	private static Object load(String path) throws IOException {
+		File file = new File(path);
+		String key = file.getAbsolutePath();
+		// read version before content : if file is changed meanwhile, the entry will not be valid
+		Version version = new Version(file);
+		if (getReportCacheSize() <= 0) {
+			return read(file);
+		}
+		Object object = null;
+		synchronized (ReportCache.class) {
+			Entry entry = cache.get(key);
+			if ((entry != null) && entry.version.equals(version)) {
+				object = entry.object;
+				hits++;
+			} else {
+				misses++;
+			}
+		}
+		if (object == null) {
+			object = read(file);
+			synchronized (ReportCache.class) {
+				cache.put(key, new Entry(version, object));
+			}
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(getStatistics());
+		}
+		Object copy = ObjectCloner.silenceDeepCopy(object);
+		if (copy == null) {
+			return XStreamPool.ENGINE.fromXML(file);
+		}
+		return copy;
+	}
+
+	// binary copy is faster to read than xml
+	private static Object read(File file) throws IOException {
+		Object object = ReportStore.load(file);
+		if (object == null) {
+			object = XStreamPool.ENGINE.fromXML(file);
+			ReportStore.save(file, object);
+		}
+		return object;
+	}
+
+	/**
+	 * Convert report xml if needed. Conversion is tested only once for a file version.
+	 *
+	 * @param path report path
+	 * @return conversion result
+	 */
+	public static byte convertIfNeeded(String path) {
+		File file = new File(path);
+		String key = file.getAbsolutePath();
+		Version version = converted.get(key);
+		if ((version != null) && version.equals(new Version(file))) {
+			return version.conversion;
+		}
+		byte result = ConverterUtil.convertIfNeeded(path);
+		if (result != ConverterUtil.TYPE_CONVERSION_EXCEPTION) {
+			version = new Version(file);
+			version.conversion = result;
+			converted.put(key, version);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove cached entry for a file (also for all the files inside if it is a folder)
+	 *
+	 * @param path file or folder path
+	 */
+	public static void remove(String path) {
+		String key = new File(path).getAbsolutePath();
+		String prefix = key + File.separator;
+		synchronized (ReportCache.class) {
+			for (Iterator<String> it = cache.keySet().iterator(); it.hasNext();) {
+				String s = it.next();
+				if (s.equals(key) || s.startsWith(prefix)) {
+					it.remove();
+				}
+			}
+		}
+		for (Iterator<String> it = converted.keySet().iterator(); it.hasNext();) {
+			String s = it.next();
+			if (s.equals(key) || s.startsWith(prefix)) {
+				it.remove();
+			}
+		}
+	}
+
+	public static synchronized void clear() {
+		cache.clear();
+		converted.clear();
+	}
+
+	public static synchronized String getStatistics() {
+		return "Report cache : size=" + cache.size() + " hits=" + hits + " misses=" + misses;
+	}
+
+	private static int getReportCacheSize() {
+		return Globals.getConfig().getInt("report.cache.size", DEFAULT_REPORT_CACHE_SIZE);
+	}
+
+	private static class Version {
+
+		private long modified;
+		private long size;
+		private byte conversion;
+
+		public Version(File file) {
+			modified = file.lastModified();
+			size = file.length();
+		}
+
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			Version that = (Version) o;
+			return (modified == that.modified) && (size == that.size);
+		}
+
+		public int hashCode() {
+			return 31 * (int) (modified ^ (modified >>> 32)) + (int) (size ^ (size >>> 32));
+		}
+
+	}
+
+	private static class Entry {
+
+		private Version version;
+		private Object object;
+
+		public Entry(Version version, Object object) {
+			this.version = version;
+			this.object = object;
+		}
+
+	}
+
+}
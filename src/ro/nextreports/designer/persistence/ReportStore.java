@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.engine.ReleaseInfoAdapter;
+import ro.nextreports.engine.Report;
+import ro.nextreports.engine.ReportLayout;
+import ro.nextreports.engine.chart.Chart;
+import ro.nextreports.engine.queryexec.QueryParameter;
+
+/**
+ * Binary copy of a report or chart xml file, kept in USER_DATA_DIR/binary/&lt;data source&gt;/&lt;path&gt;.bin
+ *
+ * The file has three sections : a plain header (name, sql, data source, parameter names), the serialized
+ * report without its layout and the serialized layout. So the header and the report without layout can be read
+ * without reading the layout. The binary file is ignored if it was written by another format or engine version,
+ * or if the xml file was changed after it.
+ */
+public class ReportStore {
+
+    private static final Log LOG = LogFactory.getLog(ReportStore.class);
+
+    private static final int MAGIC = 0x4E524250;
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_REPORT = 1;
+    private static final byte TYPE_CHART = 2;
+
+    private static final String BINARY_DIR = Globals.USER_DATA_DIR + "/binary";
+    private static final String EXTENSION = ".bin";
+
+    /**
+     * Write the binary copy after the xml file was saved
+     *
+     * @param file xml file
+     * @param object report or chart
+     */
+    public static void save(File file, Object object) {
+        if (!Globals.isReportBinary()) {
+            return;
+        }
+        File binaryFile = getBinaryFile(file);
+        if (binaryFile == null) {
+            return;
+        }
+        try {
+            write(object, file, binaryFile);
+        } catch (IOException e) {
+            LOG.error("Cannot write binary file " + binaryFile + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read report or chart from the binary copy
+     *
+     * @param file xml file
+     * @return report or chart, null if there is no valid binary copy
+     */
+    public static Object load(File file) {
+        return read(file, true);
+    }
+
+    /**
+     * Read report without layout from the binary copy
+     *
+     * @param file xml file
+     * @return report without layout, null if there is no valid binary copy or file is not a report
+     */
+    public static Report loadHeader(File file) {
+        Object object = read(file, false);
+        return (object instanceof Report) ? (Report) object : null;
+    }
+
+    /**
+     * Read only the header from the binary copy
+     *
+     * @param file xml file
+     * @return header, null if there is no valid binary copy
+     */
+    public static Header loadInfo(File file) {
+        File binaryFile = getBinaryFile(file);
+        if ((binaryFile == null) || !binaryFile.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)));
+            return readHeader(in, file);
+        } catch (IOException e) {
+            LOG.error("Cannot read binary file " + binaryFile + " : " + e.getMessage(), e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Delete the binary copy of a file (of all files inside if it is a folder)
+     *
+     * @param path xml file or folder path
+     */
+    public static void delete(String path) {
+        File file = new File(path);
+        File binaryFile = getBinaryFile(file);
+        if (binaryFile == null) {
+            return;
+        }
+        binaryFile.delete();
+        deleteFolder(new File(binaryFile.getParentFile(), file.getName()));
+    }
+
+    private static Object read(File file, boolean layout) {
+        if (!Globals.isReportBinary()) {
+            return null;
+        }
+        File binaryFile = getBinaryFile(file);
+        if ((binaryFile == null) || !binaryFile.exists()) {
+            return null;
+        }
+        try {
+            return read(binaryFile, file, layout);
+        } catch (IOException e) {
+            LOG.error("Cannot read binary file " + binaryFile + " : " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a report or chart to a binary file
+     *
+     * @param object report or chart
+     * @param source xml file of the object (must be already saved)
+     * @param binaryFile binary file
+     * @throws IOException if binary file cannot be written
+     */
+    public static void write(Object object, File source, File binaryFile) throws IOException {
+        byte type;
+        Report report;
+        ReportLayout layout = null;
+        String name;
+        if (object instanceof Chart) {
+            type = TYPE_CHART;
+            report = ((Chart) object).getReport();
+            name = ((Chart) object).getName();
+        } else {
+            type = TYPE_REPORT;
+            report = (Report) object;
+            layout = report.getLayout();
+            name = report.getName();
+        }
+        byte[] header = serialize(object, layout);
+        byte[] layoutBytes = (layout == null) ? new byte[0] : serialize(layout, null);
+
+        binaryFile.getParentFile().mkdirs();
+        // more threads can write the same file
+        File tmp = File.createTempFile(binaryFile.getName(), ".tmp", binaryFile.getParentFile());
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(String.valueOf(ReleaseInfoAdapter.getVersionNumber()));
+            out.writeLong(source.lastModified());
+            out.writeLong(source.length());
+            out.writeByte(type);
+            writeString(out, name);
+            writeString(out, (report == null) ? null : report.getSql());
+            writeString(out, getDataSourceName(source));
+            List<QueryParameter> parameters = (report == null) ? null : report.getParameters();
+            if (parameters == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(parameters.size());
+                for (QueryParameter parameter : parameters) {
+                    writeString(out, parameter.getName());
+                }
+            }
+            out.writeInt(header.length);
+            out.write(header);
+            out.writeInt(layoutBytes.length);
+            out.write(layoutBytes);
+            out.close();
+            out = null;
+            if (binaryFile.exists() && !binaryFile.delete()) {
+                throw new IOException("Cannot replace binary file " + binaryFile);
+            }
+            if (!tmp.renameTo(binaryFile)) {
+                throw new IOException("Cannot rename binary file " + tmp);
+            }
+        } finally {
+            close(out);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Read a report or chart from a binary file
+     *
+     * @param binaryFile binary file
+     * @param source xml file of the object
+     * @param layout true to read also the report layout
+     * @return report or chart, null if the binary file is obsolete
+     * @throws IOException if binary file cannot be read
+     */
+    public static Object read(File binaryFile, File source, boolean layout) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)));
+            if (readHeader(in, source) == null) {
+                return null;
+            }
+            Object object = deserialize(in);
+            if (layout && (object instanceof Report)) {
+                ((Report) object).setLayout((ReportLayout) deserialize(in));
+            }
+            return object;
+        } finally {
+            close(in);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, File source) throws IOException {
+        if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) ||
+                !String.valueOf(ReleaseInfoAdapter.getVersionNumber()).equals(in.readUTF()) ||
+                (in.readLong() != source.lastModified()) || (in.readLong() != source.length())) {
+            LOG.info("Binary file for " + source + " is obsolete.");
+            return null;
+        }
+        Header header = new Header();
+        header.chart = (in.readByte() == TYPE_CHART);
+        header.name = readString(in);
+        header.sql = readString(in);
+        header.dataSource = readString(in);
+        int size = in.readInt();
+        List<String> names = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(readString(in));
+        }
+        header.parameterNames = Collections.unmodifiableList(names);
+        return header;
+    }
+
+    // the skipped object (report layout) is written as null
+    private static byte[] serialize(Object object, final Object skip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        ObjectOutputStream out = new ObjectOutputStream(bytes) {
+            {
+                enableReplaceObject(skip != null);
+            }
+
+            protected Object replaceObject(Object obj) {
+                return (obj == skip) ? null : obj;
+            }
+        };
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            ois.close();
+        }
+    }
+
+    private static File getBinaryFile(File file) {
+        String root = new File(FileReportPersistence.CONNECTIONS_DIR).getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        if (!path.startsWith(root)) {
+            return null;
+        }
+        return new File(BINARY_DIR, path.substring(root.length()) + EXTENSION);
+    }
+
+    private static String getDataSourceName(File file) {
+        String root = new File(FileReportPersistence.CONNECTIONS_DIR).getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        if (!path.startsWith(root)) {
+            return null;
+        }
+        int index = path.indexOf(File.separator, root.length());
+        return (index == -1) ? null : path.substring(root.length(), index);
+    }
+
+    private static void deleteFolder(File folder) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                deleteFolder(file);
+            } else {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    // writeUTF is limited to 64K and sql can be longer
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Report or chart information read without deserializing the object
+     */
+    public static class Header {
+
+        private boolean chart;
+        private String name;
+        private String sql;
+        private String dataSource;
+        private List<String> parameterNames;
+
+        public boolean isChart() {
+            return chart;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getDataSource() {
+            return dataSource;
+        }
+
+        public List<String> getParameterNames() {
+            return parameterNames;
+        }
+
+    }
+
+}
@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.datasource.DataSource;
+
+/**
+ * Index of the files from the output folder of the connected data source (queries, reports and charts).
+ *
+ * The index is built in background after connect (if property 'repository.index' is true) and it is kept
+ * current with a {@link WatchService}. Entries of a folder are kept sorted (folders first, then by name
+ * collation key), so listing a folder does not touch the disk.
+ *
+ * Watch events may be lost (for example on some network shares), so a folder whose modification time changed
+ * is read again when it is listed.
+ */
+public class RepositoryIndex {
+
+    private static final Log LOG = LogFactory.getLog(RepositoryIndex.class);
+
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        public int compare(Entry o1, Entry o2) {
+            if (o1.directory != o2.directory) {
+                return o1.directory ? -1 : 1;
+            }
+            return o1.key.compareTo(o2.key);
+        }
+    };
+
+    private static final Collator collator = Collator.getInstance();
+
+    private static RepositoryIndex current;
+
+    private File root;
+    private Map<String, Folder> folders = new ConcurrentHashMap<String, Folder>();
+    private Map<WatchKey, File> keys = new HashMap<WatchKey, File>();
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean stopped;
+    private volatile boolean ready;
+
+    private RepositoryIndex(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Start indexing the output folder of a data source (if enabled)
+     *
+     * @param dataSource connected data source
+     */
+    public static synchronized void start(DataSource dataSource) {
+        stop();
+        if ((dataSource == null) || !Globals.isRepositoryIndex()) {
+            return;
+        }
+        File root = new File(FileReportPersistence.CONNECTIONS_DIR + File.separator + dataSource.getName()).getAbsoluteFile();
+        current = new RepositoryIndex(root);
+        current.run();
+    }
+
+    /**
+     * Stop watching and clear the index
+     */
+    public static synchronized void stop() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    /**
+     * Files and folders of a folder, sorted with folders first.
+     * If the folder is not indexed yet, it is read from disk.
+     *
+     * @param folderPath folder path
+     * @return entries of the folder, empty list if folder does not exist
+     */
+    public static List<Entry> list(String folderPath) {
+        File folder = new File(folderPath).getAbsoluteFile();
+        RepositoryIndex index = current;
+        if (index != null) {
+            List<Entry> entries = index.getEntries(folder);
+            if (entries != null) {
+                return entries;
+            }
+        }
+        Folder f = read(folder);
+        return (f == null) ? Collections.<Entry>emptyList() : f.entries;
+    }
+
+    /**
+     * Folders and files with an extension from a folder, sorted with folders first
+     *
+     * @param folderPath folder path
+     * @param extension file extension (with separator)
+     * @return entries
+     */
+    public static List<Entry> list(String folderPath, String extension) {
+        List<Entry> result = new ArrayList<Entry>();
+        for (Entry entry : list(folderPath)) {
+            if (entry.directory || entry.name.endsWith(extension)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count recursively the folders and the files with an extension (case insensitive)
+     *
+     * @param folderPath folder path
+     * @param extension file extension (with separator)
+     * @return number of folders and files
+     */
+    public static int count(String folderPath, String extension) {
+        String ext = extension.toUpperCase();
+        int count = 0;
+        for (Entry entry : list(folderPath)) {
+            if (entry.directory) {
+                count += 1 + count(entry.file.getPath(), extension);
+            } else if (entry.name.toUpperCase().endsWith(ext)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<Entry> getEntries(File folder) {
+        if (!ready || !isUnderRoot(folder)) {
+            return null;
+        }
+        Folder f = folders.get(folder.getPath());
+        if ((f == null) || (f.modified != folder.lastModified())) {
+            // new folder or lost events : read it again
+            f = read(folder);
+            if (f == null) {
+                folders.remove(folder.getPath());
+                return null;
+            }
+            folders.put(folder.getPath(), f);
+        }
+        return f.entries;
+    }
+
+    private boolean isUnderRoot(File file) {
+        String path = file.getPath();
+        return path.equals(root.getPath()) || path.startsWith(root.getPath() + File.separator);
+    }
+
+    private void run() {
+        // created before the thread starts, so close() always finds it
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            public void run() {
+                long start = System.currentTimeMillis();
+                try {
+                    int count = index(root);
+                    ready = true;
+                    LOG.info("Repository '" + root.getName() + "' indexed : " + count + " entries in " +
+                            (System.currentTimeMillis() - start) + " ms.");
+                    watch();
+                } catch (ClosedWatchServiceException e) {
+                    // stopped
+                } catch (InterruptedException e) {
+                    // stopped
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        }, "NEXT : Repository index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // index a folder and all its sub-folders
+    private int index(File folder) throws IOException {
+        if (stopped) {
+            return 0;
+        }
+        register(folder);
+        Folder f = read(folder);
+        if (f == null) {
+            return 0;
+        }
+        folders.put(folder.getPath(), f);
+        int count = f.entries.size();
+        for (Entry entry : f.entries) {
+            if (entry.directory) {
+                count += index(entry.file);
+            }
+        }
+        return count;
+    }
+
+    private void register(File folder) throws IOException {
+        WatchKey key = folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        synchronized (keys) {
+            keys.put(key, folder);
+        }
+    }
+
+    private void watch() throws InterruptedException {
+        while (!stopped) {
+            WatchKey key = watcher.take();
+            File folder;
+            synchronized (keys) {
+                folder = keys.get(key);
+            }
+            if (folder == null) {
+                key.cancel();
+                continue;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        index(folder);
+                        continue;
+                    }
+                    File file = new File(folder, ((Path) event.context()).toString());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        remove(folder, file);
+                    } else {
+                        update(folder, file, event.kind() == StandardWatchEventKinds.ENTRY_CREATE);
+                    }
+                } catch (IOException e) {
+                    // file deleted meanwhile : the folder is read again when it is listed
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+            if (!key.reset()) {
+                synchronized (keys) {
+                    keys.remove(key);
+                }
+                folders.remove(folder.getPath());
+            }
+        }
+    }
+
+    // a file was created or modified : replace its entry in the sorted folder list
+    private void update(File folder, File file, boolean created) throws IOException {
+        Folder f = folders.get(folder.getPath());
+        if ((f == null) || !file.exists()) {
+            return;
+        }
+        Entry entry = createEntry(file);
+        List<Entry> entries = new ArrayList<Entry>(f.entries);
+        removeEntry(entries, file);
+        int index = Collections.binarySearch(entries, entry, ORDER);
+        entries.add((index < 0) ? -index - 1 : index, entry);
+        folders.put(folder.getPath(), new Folder(folder.lastModified(), entries));
+        if (created && entry.directory) {
+            index(file);
+        }
+    }
+
+    private void remove(File folder, File file) {
+        Folder f = folders.get(folder.getPath());
+        if (f != null) {
+            List<Entry> entries = new ArrayList<Entry>(f.entries);
+            removeEntry(entries, file);
+            folders.put(folder.getPath(), new Folder(folder.lastModified(), entries));
+        }
+        // a deleted folder : remove it and its sub-folders
+        String prefix = file.getPath() + File.separator;
+        for (String path : new ArrayList<String>(folders.keySet())) {
+            if (path.equals(file.getPath()) || path.startsWith(prefix)) {
+                folders.remove(path);
+            }
+        }
+    }
+
+    private void removeEntry(List<Entry> entries, File file) {
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            if (entries.get(i).file.equals(file)) {
+                entries.remove(i);
+                return;
+            }
+        }
+    }
+
+    private void close() {
+        stopped = true;
+        ready = false;
+        try {
+            if (watcher != null) {
+                watcher.close();
+            }
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        folders.clear();
+    }
+
+    // read a folder from disk
+    private static Folder read(File folder) {
+        long modified = folder.lastModified();
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return null;
+        }
+        List<Entry> entries = new ArrayList<Entry>(files.length);
+        for (File file : files) {
+            entries.add(createEntry(file));
+        }
+        Collections.sort(entries, ORDER);
+        return new Folder(modified, entries);
+    }
+
+    private static Entry createEntry(File file) {
+        CollationKey key;
+        // collator is not thread safe
+        synchronized (collator) {
+            key = collator.getCollationKey(file.getName());
+        }
+        boolean directory = file.isDirectory();
+        return new Entry(file, directory, file.lastModified(), directory ? 0 : file.length(), key);
+    }
+
+    private static class Folder {
+
+        private long modified;
+        private List<Entry> entries;
+
+        private Folder(long modified, List<Entry> entries) {
+            this.modified = modified;
+            this.entries = Collections.unmodifiableList(entries);
+        }
+    }
+
+    /**
+     * A file or a folder from repository
+     */
+    public static class Entry {
+
+        private File file;
+        private String name;
+        private boolean directory;
+        private long modified;
+        private long size;
+        private CollationKey key;
+
+        private Entry(File file, boolean directory, long modified, long size, CollationKey key) {
+            this.file = file;
+            this.name = file.getName();
+            this.directory = directory;
+            this.modified = modified;
+            this.size = size;
+            this.key = key;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFolder() {
+            return file.getParent();
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public CollationKey getKey() {
+            return key;
+        }
+    }
+
+}
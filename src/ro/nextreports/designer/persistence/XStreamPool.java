@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ro.nextreports.engine.XStreamFactory;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Pool of configured XStream instances.
+ *
+ * Creating and configuring an XStream (aliases, converters, reflection caches) costs much more than the
+ * serialization of a report, so the instances are reused between loads and saves instead of being created
+ * every time. At most one idle instance per processor is kept.
+ */
+public abstract class XStreamPool {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+	/** Pool for reports, charts and everything else serialized by the engine */
+	public static final XStreamPool ENGINE = new XStreamPool() {
+		protected XStream create() {
+			return XStreamFactory.createXStream();
+		}
+	};
+
+	private final Queue<XStream> idle = new ConcurrentLinkedQueue<XStream>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	protected abstract XStream create();
+
+	public XStream borrow() {
+		XStream xstream = idle.poll();
+		if (xstream == null) {
+			return create();
+		}
+		idleCount.decrementAndGet();
+		return xstream;
+	}
+
+	public void release(XStream xstream) {
+		if (idleCount.incrementAndGet() <= MAX_IDLE) {
+			idle.offer(xstream);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	public Object fromXML(Reader reader) {
+		XStream xstream = borrow();
+		try {
+			return xstream.fromXML(reader);
+		} finally {
+			release(xstream);
+		}
+	}
+
+	public Object fromXML(String xml) {
+		XStream xstream = borrow();
+		try {
+			return xstream.fromXML(xml);
+		} finally {
+			release(xstream);
+		}
+	}
+
+	/**
+	 * Read an utf-8 xml stream. The stream is not closed.
+	 */
+	public Object fromXML(InputStream is) throws IOException {
+		return fromXML(new InputStreamReader(new BufferedInputStream(is, BUFFER_SIZE), "UTF-8"));
+	}
+
+	public Object fromXML(File file) throws IOException {
+		InputStream is = new FileInputStream(file);
+		try {
+			return fromXML(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Write an object as xml. The stream is flushed, but it is not closed.
+	 */
+	public void toXML(Object object, OutputStream os) throws IOException {
+		OutputStream bos = new BufferedOutputStream(os, BUFFER_SIZE);
+		XStream xstream = borrow();
+		try {
+			xstream.toXML(object, bos);
+		} finally {
+			release(xstream);
+		}
+		bos.flush();
+	}
+
+	public void toXML(Object object, File file) throws IOException {
+		OutputStream os = new FileOutputStream(file);
+		try {
+			toXML(object, os);
+		} finally {
+			os.close();
+		}
+	}
+
+}
@@ -36,6 +36,18 @@ public class CustomLineBorder extends AbstractBorder {
 		this.border = border;
 	}
 
+	/**
+	 * Border which does not depend on a (mutable) engine border, so it can be shared between cells
+	 */
+	public CustomLineBorder(int left, int right, int top, int bottom,
+			Color leftColor, Color rightColor, Color topColor, Color bottomColor) {
+		border = new Border(left, right, top, bottom);
+		border.setLeftColor(leftColor);
+		border.setRightColor(rightColor);
+		border.setTopColor(topColor);
+		border.setBottomColor(bottomColor);
+	}
+
 	public void paintBorder(Component c, Graphics g, int x, int y, int width, int height) {
 		boolean hasLeft = false;
 		boolean hasTop = false;
@@ -111,6 +123,11 @@ public class CustomLineBorder extends AbstractBorder {
 		return new Insets(3, 3, 3, 3);
 	}
 
+	public Insets getBorderInsets(Component c, Insets insets) {
+		insets.set(3, 3, 3, 3);
+		return insets;
+	}
+
 	public boolean isBorderOpaque() {
 		return false;
 	}
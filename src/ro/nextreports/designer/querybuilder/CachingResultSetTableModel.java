@@ -16,9 +16,6 @@
  */
 package ro.nextreports.designer.querybuilder;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -28,6 +25,7 @@ import ro.nextreports.engine.queryexec.QueryResult;
 /**
  * This class caches the result set data; it can be used
  * if scrolling cursors are not supported.
+ * Data is kept in a {@link ColumnarResultStore}.
  *
  * @author Decebal Suiu
  */
@@ -35,7 +33,7 @@ public class CachingResultSetTableModel extends ResultSetTableModel {
 
     private static final Log LOG = LogFactory.getLog(CachingResultSetTableModel.class);
     
-	private List<Object[]> cache;
+	private ColumnarResultStore cache;
     private volatile boolean stop = false;
 
     public CachingResultSetTableModel(QueryResult result) {
@@ -44,7 +42,7 @@ public class CachingResultSetTableModel extends ResultSetTableModel {
 
     public CachingResultSetTableModel(QueryResult result, boolean stop) {
 		super(result);
-		cache = new ArrayList<Object[]>();
+		cache = new ColumnarResultStore((result == null) ? 0 : result.getColumnCount());
         this.stop =  stop;
 	}
 
@@ -70,7 +68,7 @@ public class CachingResultSetTableModel extends ResultSetTableModel {
 		}
 		
 		if (row < cache.size()) {
-	         return cache.get(row)[column];
+	         return cache.get(row, column);
 		} else {
 	         return null;
 		}
@@ -90,15 +88,14 @@ public class CachingResultSetTableModel extends ResultSetTableModel {
 		}
 		
 		/* 
-		 * place all data in an array list of Object[] arrays
-         * I don't use an Object[][] because we don't know
+		 * place all data in a columnar store : we don't know
          * how many rows are in the result set
 		 */		
+        Object[] row = new Object[result.getColumnCount()];
 		while (result.hasNext()) {
             if (stop) {
                 break;
             }
-            Object[] row = new Object[result.getColumnCount()];
 			for (int i = 0; i < row.length; i++) {
 				row[i] = result.nextValue(i);
 			}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.querybuilder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column oriented storage for result rows.
+ *
+ * Rows are kept in chunks. Inside a chunk every column uses a primitive array chosen by its first not null
+ * value (int, long, double, unscaled decimal, date millis) or a dictionary for strings, and a bitmap for nulls.
+ * If a value does not fit the chunk type, the column chunk falls back to an object array.
+ * Values are created only when they are read.
+ *
+ * This class is not thread safe.
+ */
+public class ColumnarResultStore {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private int columnCount;
+    private int chunkSize;
+    private int size;
+    private List<Block> blocks = new ArrayList<Block>();
+
+    public ColumnarResultStore(int columnCount) {
+        this(columnCount, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ColumnarResultStore(int columnCount, int chunkSize) {
+        this.columnCount = columnCount;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Add a row. Values are copied, so the array can be reused.
+     *
+     * @param row row values
+     */
+    public void add(Object[] row) {
+        Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if ((block == null) || (block.size == chunkSize)) {
+            if (block != null) {
+                block.seal();
+            }
+            block = new Block(columnCount, chunkSize);
+            blocks.add(block);
+        }
+        block.add(row);
+        size++;
+    }
+
+    /**
+     * Release the structures needed only while adding (string lookup indexes) after the last row was added.
+     * Rows added after seal are still accepted, but string values are kept as objects.
+     */
+    public void seal() {
+        for (Block block : blocks) {
+            block.seal();
+        }
+    }
+
+    public Object get(int row, int column) {
+        return blocks.get(row / chunkSize).get(row % chunkSize, column);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public void clear() {
+        blocks.clear();
+        size = 0;
+    }
+
+    private static class Block {
+
+        private Chunk[] columns;
+        private long[][] nulls;
+        private int capacity;
+        private int size;
+
+        Block(int columnCount, int capacity) {
+            this.columns = new Chunk[columnCount];
+            this.nulls = new long[columnCount][];
+            this.capacity = capacity;
+        }
+
+        void add(Object[] row) {
+            for (int i = 0; i < columns.length; i++) {
+                Object value = row[i];
+                if (value == null) {
+                    if (nulls[i] == null) {
+                        nulls[i] = new long[(capacity + 63) >> 6];
+                    }
+                    nulls[i][size >> 6] |= 1L << size;
+                    continue;
+                }
+                Chunk chunk = columns[i];
+                if (chunk == null) {
+                    chunk = Chunk.create(value, capacity);
+                    columns[i] = chunk;
+                }
+                if (!chunk.set(size, value)) {
+                    chunk = toObjects(i);
+                    chunk.set(size, value);
+                }
+            }
+            size++;
+        }
+
+        Object get(int row, int column) {
+            if ((nulls[column] != null) && ((nulls[column][row >> 6] & (1L << row)) != 0)) {
+                return null;
+            }
+            return columns[column].get(row);
+        }
+
+        void seal() {
+            for (Chunk chunk : columns) {
+                if (chunk != null) {
+                    chunk.seal();
+                }
+            }
+        }
+
+        private Chunk toObjects(int column) {
+            ObjectChunk chunk = new ObjectChunk(capacity);
+            for (int i = 0; i < size; i++) {
+                chunk.set(i, get(i, column));
+            }
+            columns[column] = chunk;
+            return chunk;
+        }
+    }
+
+    private static abstract class Chunk {
+
+        static Chunk create(Object value, int capacity) {
+            Class type = value.getClass();
+            if (type == Integer.class) {
+                return new IntChunk(capacity);
+            } else if (type == Long.class) {
+                return new LongChunk(capacity);
+            } else if (type == Double.class) {
+                return new DoubleChunk(capacity);
+            } else if (type == BigDecimal.class) {
+                return new DecimalChunk(capacity);
+            } else if (type == String.class) {
+                return new StringChunk(capacity);
+            } else if ((type == Timestamp.class) || (type == java.sql.Date.class) ||
+                    (type == java.sql.Time.class) || (type == java.util.Date.class)) {
+                return new DateChunk(type, capacity);
+            }
+            return new ObjectChunk(capacity);
+        }
+
+        /**
+         * @return false if value cannot be kept by this chunk
+         */
+        abstract boolean set(int row, Object value);
+
+        abstract Object get(int row);
+
+        // no more values will be added
+        void seal() {
+        }
+    }
+
+    private static class IntChunk extends Chunk {
+
+        private int[] values;
+
+        IntChunk(int capacity) {
+            values = new int[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if (value.getClass() != Integer.class) {
+                return false;
+            }
+            values[row] = (Integer) value;
+            return true;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    private static class LongChunk extends Chunk {
+
+        private long[] values;
+
+        LongChunk(int capacity) {
+            values = new long[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if (value.getClass() != Long.class) {
+                return false;
+            }
+            values[row] = (Long) value;
+            return true;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    private static class DoubleChunk extends Chunk {
+
+        private double[] values;
+
+        DoubleChunk(int capacity) {
+            values = new double[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if (value.getClass() != Double.class) {
+                return false;
+            }
+            values[row] = (Double) value;
+            return true;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    // BigDecimal with an unscaled value that fits a long (most NUMBER columns)
+    private static class DecimalChunk extends Chunk {
+
+        private long[] unscaled;
+        private byte[] scales;
+
+        DecimalChunk(int capacity) {
+            unscaled = new long[capacity];
+            scales = new byte[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if (value.getClass() != BigDecimal.class) {
+                return false;
+            }
+            BigDecimal decimal = (BigDecimal) value;
+            BigInteger unscaledValue = decimal.unscaledValue();
+            int scale = decimal.scale();
+            if ((unscaledValue.bitLength() > 63) || (scale < Byte.MIN_VALUE) || (scale > Byte.MAX_VALUE)) {
+                return false;
+            }
+            unscaled[row] = unscaledValue.longValue();
+            scales[row] = (byte) scale;
+            return true;
+        }
+
+        Object get(int row) {
+            return BigDecimal.valueOf(unscaled[row], scales[row]);
+        }
+    }
+
+    private static class DateChunk extends Chunk {
+
+        private Class type;
+        private long[] millis;
+        // only for timestamps with sub-millisecond precision
+        private int[] nanos;
+
+        DateChunk(Class type, int capacity) {
+            this.type = type;
+            millis = new long[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if (value.getClass() != type) {
+                return false;
+            }
+            millis[row] = ((java.util.Date) value).getTime();
+            if (type == Timestamp.class) {
+                int n = ((Timestamp) value).getNanos();
+                if (n % 1000000 != 0) {
+                    if (nanos == null) {
+                        nanos = new int[millis.length];
+                    }
+                    nanos[row] = n;
+                } else if (nanos != null) {
+                    nanos[row] = 0;
+                }
+            }
+            return true;
+        }
+
+        Object get(int row) {
+            long time = millis[row];
+            if (type == Timestamp.class) {
+                Timestamp t = new Timestamp(time);
+                if ((nanos != null) && (nanos[row] != 0)) {
+                    t.setNanos(nanos[row]);
+                }
+                return t;
+            } else if (type == java.sql.Date.class) {
+                return new java.sql.Date(time);
+            } else if (type == java.sql.Time.class) {
+                return new java.sql.Time(time);
+            }
+            return new java.util.Date(time);
+        }
+    }
+
+    // dictionary encoded strings : every distinct string is kept once
+    private static class StringChunk extends Chunk {
+
+        private int[] codes;
+        private List<String> dictionary = new ArrayList<String>();
+        private Map<String, Integer> index = new HashMap<String, Integer>();
+        private String[] sealed;
+
+        StringChunk(int capacity) {
+            codes = new int[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            if ((value.getClass() != String.class) || (index == null)) {
+                return false;
+            }
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add((String) value);
+                index.put((String) value, code);
+            }
+            codes[row] = code;
+            return true;
+        }
+
+        Object get(int row) {
+            if (sealed != null) {
+                return sealed[codes[row]];
+            }
+            return dictionary.get(codes[row]);
+        }
+
+        void seal() {
+            if (sealed != null) {
+                return;
+            }
+            // lookup index is needed only while adding
+            sealed = dictionary.toArray(new String[dictionary.size()]);
+            dictionary = null;
+            index = null;
+        }
+    }
+
+    private static class ObjectChunk extends Chunk {
+
+        private Object[] values;
+
+        ObjectChunk(int capacity) {
+            values = new Object[capacity];
+        }
+
+        boolean set(int row, Object value) {
+            values[row] = value;
+            return true;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+}
@@ -41,11 +41,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
@@ -104,6 +106,7 @@ import ro.nextreports.designer.action.query.OpenQueryAction;
 import ro.nextreports.designer.action.query.RenameQueryAction;
 import ro.nextreports.designer.action.query.ValidateProceduresAction;
 import ro.nextreports.designer.action.query.ValidateSqlsAction;
+import ro.nextreports.designer.action.query.WhereUsedAction;
 import ro.nextreports.designer.action.query.ViewProcedureColumnsInfoAction;
 import ro.nextreports.designer.action.query.ViewTableColumnsInfoAction;
 import ro.nextreports.designer.action.report.DeleteReportAction;
@@ -113,10 +116,12 @@ import ro.nextreports.designer.action.report.NewReportFromQueryAction;
 import ro.nextreports.designer.action.report.OpenReportAction;
 import ro.nextreports.designer.action.report.PublishReportAction;
 import ro.nextreports.designer.action.report.RenameReportAction;
+import ro.nextreports.designer.action.report.layout.export.ExportJobsAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToCsvAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToDocxAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToExcelAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToExcelXAction;
+import ro.nextreports.designer.action.report.layout.export.ExportToFormatsAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToHtmlAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToJSONFullAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToJSONSimpleAction;
@@ -125,6 +130,7 @@ import ro.nextreports.designer.action.report.layout.export.ExportToRtfAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToTsvAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToTxtAction;
 import ro.nextreports.designer.action.report.layout.export.ExportToXmlAction;
+import ro.nextreports.designer.action.report.layout.export.QueueExportAction;
 import ro.nextreports.designer.chart.ChartUtil;
 import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.datasource.DataSourceManager;
@@ -327,6 +333,7 @@ public class DBBrowserTree extends JXTree {
 		popupMenu.add(menuItem2);
 		JMenuItem menuItem3 = new JMenuItem(new ValidateSqlsAction(selectedNode.getDBObject()));
 		popupMenu.add(menuItem3);
+		popupMenu.add(new JMenuItem(new WhereUsedAction(selectedNode.getDBObject())));
 
 		popupMenu.show((Component) e.getSource(), e.getX(), e.getY());
 	}
@@ -388,6 +395,9 @@ public class DBBrowserTree extends JXTree {
 		popupMenu.add(menuItem2);
 		JMenuItem menuItem3 = new JMenuItem(new ValidateSqlsAction(selectedNode.getDBObject()));
 		popupMenu.add(menuItem3);
+		popupMenu.add(new JMenuItem(new WhereUsedAction(selectedNode.getDBObject())));
+		popupMenu.add(new JMenuItem(new QueueExportAction(selectedNode.getDBObject())));
+		popupMenu.add(new JMenuItem(new ExportJobsAction()));
 		JMenuItem menuItem4 = new JMenuItem(new PublishBulkReportAction());
 		popupMenu.add(menuItem4);
 		JMenuItem menuItem5 = new JMenuItem(
@@ -438,6 +448,11 @@ public class DBBrowserTree extends JXTree {
 			runMenu.add(new JMenuItem(new ExportToTxtAction(report)));
 			runMenu.add(new JMenuItem(new ExportToJSONSimpleAction(report)));
 			runMenu.add(new JMenuItem(new ExportToJSONFullAction(report)));
+			runMenu.addSeparator();
+			runMenu.add(new JMenuItem(new ExportToFormatsAction(report)));
+			runMenu.addSeparator();
+			runMenu.add(new JMenuItem(new QueueExportAction(selectedNode.getDBObject())));
+			runMenu.add(new JMenuItem(new ExportJobsAction()));
 			popupMenu.add(runMenu);
 
 			PublishReportAction publishAction = new PublishReportAction(selectedNode.getDBObject().getAbsolutePath());
@@ -466,6 +481,7 @@ public class DBBrowserTree extends JXTree {
 		popupMenu.add(menuItem2);
 		JMenuItem menuItem3 = new JMenuItem(new ValidateSqlsAction(selectedNode.getDBObject()));
 		popupMenu.add(menuItem3);
+		popupMenu.add(new JMenuItem(new WhereUsedAction(selectedNode.getDBObject())));
 		JMenuItem menuItem4 = new JMenuItem(new PublishBulkChartAction());
 		popupMenu.add(menuItem4);
 		JMenuItem menuItem5 = new JMenuItem(new DownloadBulkChartAction(FileReportPersistence.getChartsAbsolutePath()));
@@ -609,6 +625,7 @@ public class DBBrowserTree extends JXTree {
 			JPopupMenu popupMenu = new JPopupMenu();
 			JMenuItem menuItem = new JMenuItem(infoAction);
 			popupMenu.add(menuItem);
+			popupMenu.add(new JMenuItem(new WhereUsedAction(selectedNode.getDBObject())));
 			popupMenu.show((Component) e.getSource(), e.getX(), e.getY());
 		}
 	}
@@ -702,6 +719,11 @@ public class DBBrowserTree extends JXTree {
 		if (testSql) {
 			JMenuItem menuItem4 = new JMenuItem(new ValidateSqlsAction(selectedNode.getDBObject()));
 			popupMenu.add(menuItem4);
+			popupMenu.add(new JMenuItem(new WhereUsedAction(selectedNode.getDBObject())));
+		}
+		if (selectedNode.getDBObject().getType() == DBObject.FOLDER_REPORT) {
+			popupMenu.add(new JMenuItem(new QueueExportAction(selectedNode.getDBObject())));
+			popupMenu.add(new JMenuItem(new ExportJobsAction()));
 		}
 
 		popupMenu.show((Component) e.getSource(), e.getX(), e.getY());
@@ -910,6 +932,68 @@ public class DBBrowserTree extends JXTree {
 		selectNode(object.getName(), object.getAbsolutePath(), object.getType());
 	}
 
+	/**
+	 * Search the node of a query, report or chart file. Only the folders from the file path are expanded.
+	 *
+	 * @param file query, report or chart file
+	 * @return tree node or null if not found
+	 */
+	public DBBrowserNode searchNode(File file) {
+		String path = file.getAbsolutePath();
+		byte[] groups = { DBObject.QUERIES_GROUP, DBObject.REPORTS_GROUP, DBObject.CHARTS_GROUP };
+		for (byte group : groups) {
+			String root = getRootAbsolutePath(group);
+			if (!path.startsWith(root + File.separator)) {
+				continue;
+			}
+			DBBrowserNode node = searchNode(getRootName(group));
+			if (node == null) {
+				return null;
+			}
+			String current = root;
+			String[] names = path.substring(root.length() + 1).split(Pattern.quote(File.separator));
+			for (String name : names) {
+				current = current + File.separator + name;
+				if (node.getChildCount() == 0) {
+					startExpandingTree(node, false, null);
+				}
+				DBBrowserNode child = null;
+				for (int i = 0, size = node.getChildCount(); i < size; i++) {
+					DBBrowserNode n = (DBBrowserNode) node.getChildAt(i);
+					if (current.equals(n.getDBObject().getAbsolutePath())) {
+						child = n;
+						break;
+					}
+				}
+				if (child == null) {
+					return null;
+				}
+				node = child;
+			}
+			return node;
+		}
+		return null;
+	}
+
+	/**
+	 * Select the nodes of some query, report or chart files
+	 *
+	 * @param files query, report or chart files
+	 */
+	public void selectFiles(List<File> files) {
+		List<TreePath> paths = new ArrayList<TreePath>();
+		for (File file : files) {
+			DBBrowserNode node = searchNode(file);
+			if (node != null) {
+				paths.add(new TreePath(node.getPath()));
+			}
+		}
+		if (paths.size() > 0) {
+			setSelectionPaths(paths.toArray(new TreePath[paths.size()]));
+			scrollPathToVisible(paths.get(0));
+		}
+	}
+
 	public void loadQueries() {
 
 		DBBrowserNode node = searchNode(DBNodeExpander.QUERIES);
@@ -50,6 +50,8 @@ import ro.nextreports.designer.WorkspaceManager;
 import ro.nextreports.designer.action.query.OpenQueryPerspectiveAction;
 import ro.nextreports.designer.chart.ChartPropertyPanel;
 import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.datasource.DefaultDataSourceManager;
+import ro.nextreports.designer.dbviewer.DBCatalogPrefetcher;
 import ro.nextreports.designer.dbviewer.common.DBProcedure;
 import ro.nextreports.designer.dbviewer.common.DBProcedureColumn;
 import ro.nextreports.designer.i18n.action.I18nManager;
@@ -166,6 +168,9 @@ public class QueryBuilderPanel extends JXPanel {
                         return;
                     }
 
+                    // read again the catalog (columns signatures do not show key or index changes)
+                    DBCatalogPrefetcher.resync(DefaultDataSourceManager.getInstance().getConnectedDataSource());
+
                     // refresh tables, views, procedures
                     TreeUtil.refreshDatabase();
 
@@ -1059,6 +1064,19 @@ public class QueryBuilderPanel extends JXPanel {
         return sqlView.runQuery(con, pBean, useMaxRows);
     }
 
+    /**
+     * Run a query registered in {@link QueryExecutionService} (the caller must unregister it)
+     *
+     * @param query registered query
+     * @param pBean parameters bean
+     * @param useMaxRows true if max rows from sql editor status panel is used
+     * @return query result
+     * @throws Exception if query fails
+     */
+    public QueryResult runQuery(RunningQuery query, ParametersBean pBean, boolean useMaxRows) throws Exception {
+        return sqlView.runQuery(query, pBean, useMaxRows);
+    }
+
     public ParametersBean selectParameters(Report report, DataSource runDS) {
         return sqlView.selectParameters(report, runDS);
     }
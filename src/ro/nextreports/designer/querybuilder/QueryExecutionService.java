@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.querybuilder;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+
+import ro.nextreports.designer.Globals;
+
+/**
+ * Keeps the queries which are executed or fetched by the designer, so they can be watched and cancelled
+ * (see {@link RunningQueriesPanel}).
+ *
+ * A query is registered before execution and must be unregistered when its result was read.
+ */
+public class QueryExecutionService {
+
+    private static QueryExecutionService instance = new QueryExecutionService();
+
+    private final List<RunningQuery> queries = new ArrayList<RunningQuery>();
+    private EventListenerList listenerList = new EventListenerList();
+
+    private QueryExecutionService() {
+    }
+
+    public static QueryExecutionService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Register a query. The query must be executed on {@link RunningQuery#getConnection()}.
+     *
+     * @param name name shown to user
+     * @param sql sql
+     * @param connection connection used to run the query
+     * @return running query
+     */
+    public RunningQuery register(String name, String sql, Connection connection) {
+        RunningQuery query = new RunningQuery(name, sql, connection, Globals.getQueryTimeout());
+        synchronized (queries) {
+            queries.add(query);
+        }
+        fireStateChanged();
+        return query;
+    }
+
+    public void unregister(RunningQuery query) {
+        boolean removed;
+        synchronized (queries) {
+            removed = queries.remove(query);
+        }
+        if (removed) {
+            fireStateChanged();
+        }
+    }
+
+    public List<RunningQuery> getRunningQueries() {
+        synchronized (queries) {
+            return new ArrayList<RunningQuery>(queries);
+        }
+    }
+
+    public void cancelAll() {
+        for (RunningQuery query : getRunningQueries()) {
+            query.cancel();
+        }
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listenerList.remove(ChangeListener.class, listener);
+    }
+
+    // listeners are notified in event dispatch thread
+    private void fireStateChanged() {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                ChangeEvent event = new ChangeEvent(QueryExecutionService.this);
+                for (ChangeListener listener : listenerList.getListeners(ChangeListener.class)) {
+                    listener.stateChanged(event);
+                }
+            }
+        });
+    }
+
+}
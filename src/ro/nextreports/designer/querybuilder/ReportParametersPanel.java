@@ -97,7 +97,7 @@ public class ReportParametersPanel extends JPanel {
                             Globals.getReportPersistenceType());
                 	report = repPersist.loadReport(selectedNode.getDBObject().getAbsolutePath());
                 } else if (selectedNode.getDBObject().getType() == DBObject.REPORTS) {
-                	report = FormLoader.getInstance().load(selectedNode.getDBObject().getAbsolutePath(), false);
+                	report = FormLoader.getInstance().loadHeader(selectedNode.getDBObject().getAbsolutePath());
                 } else if(selectedNode.getDBObject().getType() == DBObject.CHARTS) {
                 	report = ChartUtil.loadChart(selectedNode.getDBObject().getAbsolutePath()).getReport();
                 } else {
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.querybuilder;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JToolBar;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+
+import org.jdesktop.swingx.JXTable;
+
+import ro.nextreports.designer.util.I18NSupport;
+import ro.nextreports.designer.util.ImageUtil;
+
+/**
+ * Shows the queries registered in {@link QueryExecutionService} with elapsed time and fetched rows,
+ * and allows to cancel them.
+ */
+public class RunningQueriesPanel extends JPanel {
+
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private JXTable table;
+    private RunningQueriesTableModel model;
+    private Timer timer;
+    private ChangeListener serviceListener;
+
+    public RunningQueriesPanel() {
+        super();
+        initUI();
+    }
+
+    private void initUI() {
+        model = new RunningQueriesTableModel();
+        table = new JXTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnExt(3).setPreferredWidth(300);
+
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        toolBar.add(new CancelQueryAction());
+
+        setLayout(new BorderLayout());
+        add(toolBar, BorderLayout.NORTH);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(550, 150));
+        add(scroll, BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                model.refresh();
+            }
+        });
+        serviceListener = new ChangeListener() {
+            public void stateChanged(ChangeEvent e) {
+                model.reload();
+            }
+        };
+    }
+
+    public void addNotify() {
+        super.addNotify();
+        QueryExecutionService.getInstance().addChangeListener(serviceListener);
+        model.reload();
+        timer.start();
+    }
+
+    public void removeNotify() {
+        timer.stop();
+        QueryExecutionService.getInstance().removeChangeListener(serviceListener);
+        super.removeNotify();
+    }
+
+    class CancelQueryAction extends AbstractAction {
+
+        public CancelQueryAction() {
+            putValue(Action.SMALL_ICON, ImageUtil.getImageIcon("stop_execution"));
+            putValue(Action.SHORT_DESCRIPTION, I18NSupport.getString("queries.running.cancel"));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            int row = table.getSelectedRow();
+            if (row < 0) {
+                return;
+            }
+            model.getQuery(table.convertRowIndexToModel(row)).cancel();
+        }
+    }
+
+    static class RunningQueriesTableModel extends AbstractTableModel {
+
+        private final DecimalFormat timeFormat = new DecimalFormat("0.0 sec");
+        private final String[] columnNames = {
+                I18NSupport.getString("queries.running.name"),
+                I18NSupport.getString("queries.running.elapsed"),
+                I18NSupport.getString("queries.running.rows"),
+                "SQL"
+        };
+
+        private List<RunningQuery> queries = new ArrayList<RunningQuery>();
+
+        public void reload() {
+            queries = QueryExecutionService.getInstance().getRunningQueries();
+            fireTableDataChanged();
+        }
+
+        // only values changed : keep selection
+        public void refresh() {
+            if (queries.size() > 0) {
+                fireTableRowsUpdated(0, queries.size() - 1);
+            }
+        }
+
+        public RunningQuery getQuery(int row) {
+            return queries.get(row);
+        }
+
+        public int getRowCount() {
+            return queries.size();
+        }
+
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            RunningQuery query = queries.get(row);
+            switch (column) {
+                case 0:
+                    return query.getName();
+                case 1:
+                    return timeFormat.format(query.getElapsedTime() / 1000.0);
+                case 2:
+                    return query.getRows();
+                default:
+                    return query.getSql().replaceAll("\\s+", " ");
+            }
+        }
+    }
+
+}
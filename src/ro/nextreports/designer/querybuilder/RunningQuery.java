@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.querybuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A query registered in {@link QueryExecutionService}.
+ *
+ * The query must be executed on the connection returned by {@link #getConnection()} : every statement created
+ * on it receives the query timeout and is cancelled with Statement.cancel() when the query is cancelled, so the
+ * server stops working even if the driver did not return yet.
+ */
+public class RunningQuery {
+
+    private static final Log LOG = LogFactory.getLog(RunningQuery.class);
+
+    private String name;
+    private String sql;
+    private long startTime;
+    private int timeout;
+    private Connection connection;
+    private final List<Statement> statements = new ArrayList<Statement>();
+    private volatile int rows;
+    private volatile boolean cancelled;
+    private Runnable cancelAction;
+
+    RunningQuery(String name, String sql, Connection connection, int timeout) {
+        this.name = name;
+        this.sql = sql;
+        this.timeout = timeout;
+        this.startTime = System.currentTimeMillis();
+        this.connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, new StatementTrackingHandler(connection));
+        final Thread owner = Thread.currentThread();
+        this.cancelAction = new Runnable() {
+            public void run() {
+                owner.interrupt();
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getElapsedTime() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Set what the owner of the query must do on cancel (by default the thread which registered the query
+     * is interrupted)
+     *
+     * @param cancelAction cancel action
+     */
+    public void setCancelAction(Runnable cancelAction) {
+        this.cancelAction = cancelAction;
+    }
+
+    /**
+     * Cancel all statements of this query. Statements are cancelled on a separate thread because
+     * some drivers block in cancel until the server answers.
+     */
+    public void cancel() {
+        final List<Statement> toCancel;
+        synchronized (statements) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toCancel = new ArrayList<Statement>(statements);
+        }
+        if (cancelAction != null) {
+            cancelAction.run();
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                for (Statement stmt : toCancel) {
+                    try {
+                        stmt.cancel();
+                    } catch (Throwable t) {
+                        // statement already closed or cancel not supported by driver
+                        LOG.warn("Cannot cancel statement : " + t.getMessage());
+                    }
+                }
+            }
+        }, "NEXT : Cancel query");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private class StatementTrackingHandler implements InvocationHandler {
+
+        private Connection target;
+
+        public StatementTrackingHandler(Connection target) {
+            this.target = target;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if ("equals".equals(methodName)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(methodName)) {
+                return System.identityHashCode(proxy);
+            }
+            Object value;
+            try {
+                value = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (value instanceof Statement) {
+                Statement stmt = (Statement) value;
+                if (timeout > 0) {
+                    try {
+                        stmt.setQueryTimeout(timeout);
+                    } catch (SQLException e) {
+                        // driver does not support query timeout
+                    } catch (AbstractMethodError e) {
+                        // old driver
+                    }
+                }
+                boolean added = false;
+                synchronized (statements) {
+                    if (!cancelled) {
+                        statements.add(stmt);
+                        added = true;
+                    }
+                }
+                if (!added) {
+                    // cancelled before statement was created
+                    stmt.close();
+                    throw new SQLException("Query '" + name + "' was cancelled.");
+                }
+            }
+            return value;
+        }
+    }
+
+}
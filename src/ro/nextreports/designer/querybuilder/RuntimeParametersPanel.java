@@ -65,6 +65,7 @@ import java.util.*;
 import java.util.List;
 import java.io.Serializable;
 import java.sql.Connection;
+import java.sql.SQLException;
 
 /**
  * @author Decebal Suiu
@@ -108,7 +109,19 @@ public class RuntimeParametersPanel extends JPanel {
         }
                
         paramList = new ArrayList<QueryParameter>(params.values());        
-        initUI();
+        try {
+            initUI();
+        } catch (RuntimeException e) {
+            // nobody else can return the temporary connection
+            if (isTempConnection) {
+                try {
+                    con.close();
+                } catch (SQLException ex) {
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+            throw e;
+        }
     }
 
     private void initUI() {
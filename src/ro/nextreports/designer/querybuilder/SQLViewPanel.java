@@ -32,6 +32,7 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
@@ -54,6 +55,8 @@ import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
@@ -71,18 +74,21 @@ import org.jdesktop.swingx.decorator.HighlighterFactory;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.datasource.DataSource;
 import ro.nextreports.designer.datasource.DefaultDataSourceManager;
+import ro.nextreports.designer.ui.BaseDialog;
 import ro.nextreports.designer.ui.IntegerTextField;
 import ro.nextreports.designer.ui.JLine;
 import ro.nextreports.designer.ui.TextHighlighter;
 import ro.nextreports.designer.ui.sqleditor.BaseEditorKit;
 import ro.nextreports.designer.ui.sqleditor.Editor;
 import ro.nextreports.designer.ui.table.TableRowHeader;
+import ro.nextreports.designer.ui.table.TableRowHeaderModel;
 import ro.nextreports.designer.util.ColorUtil;
 import ro.nextreports.designer.util.CopyTableMouseAdapter;
 import ro.nextreports.designer.util.I18NSupport;
 import ro.nextreports.designer.util.ImageUtil;
 import ro.nextreports.designer.util.MessageUtil;
 import ro.nextreports.designer.util.NextReportsUtil;
+import ro.nextreports.designer.util.ProgressPublisher;
 import ro.nextreports.designer.util.ShortcutsUtil;
 import ro.nextreports.designer.util.Show;
 import ro.nextreports.designer.util.SwingUtil;
@@ -118,6 +124,7 @@ public class SQLViewPanel extends JPanel {
     private JCheckBox maxRowsCheckBox;
     private SQLStatusPanel statusPanel;
     private Thread executorThread;
+    private volatile RunningQuery runningQuery;
     private Editor sqlEditor;
     private javax.swing.text.Highlighter.HighlightPainter errorPainter;
     private Object errorTag = null;
@@ -216,6 +223,29 @@ public class SQLViewPanel extends JPanel {
         // runAction is globally registered in QueryBuilderPanel !
         toolBar.add(runAction);
 
+        // add running queries action
+        toolBar.add(new AbstractAction() {
+
+            public Object getValue(String key) {
+                if (AbstractAction.SMALL_ICON.equals(key)) {
+                    return ImageUtil.getImageIcon("queries_running");
+                } else if (AbstractAction.SHORT_DESCRIPTION.equals(key)) {
+                    return I18NSupport.getString("queries.running");
+                }
+                return super.getValue(key);
+            }
+
+            public void actionPerformed(ActionEvent e) {
+                BaseDialog dialog = new BaseDialog(new RunningQueriesPanel(),
+                        I18NSupport.getString("queries.running"), false) {
+                    protected Action[] getButtonActions() {
+                        return new Action[]{closeAction};
+                    }
+                };
+                dialog.setVisible(true);
+            }
+        });
+
 //        ro.nextreports.designer.util.SwingUtil.registerButtonsForFocus(buttonsPanel);
 
         // create the table
@@ -303,7 +333,8 @@ public class SQLViewPanel extends JPanel {
             sql = "";
             queryArea.setText("");
 //			tableModel = new ScrollingResultSetTableModel(null);
-            tableModel = new CachingResultSetTableModel(null);
+            disposeTableModel();
+            tableModel = new StreamingResultSetTableModel(null);
             resultTable.setModel(tableModel);
             statusPanel.clear();
         } catch (Exception e) {
@@ -354,10 +385,21 @@ public class SQLViewPanel extends JPanel {
     }
 
     protected QueryResult runQuery(Connection con, ParametersBean pBean, boolean useMaxRows) throws Exception {
+        // query can be cancelled from running queries panel while it is executed
+        RunningQuery query = QueryExecutionService.getInstance().register(
+                I18NSupport.getString("queries.running.report"), pBean.getQuery().getText(), con);
+        try {
+            return runQuery(query, pBean, useMaxRows);
+        } finally {
+            QueryExecutionService.getInstance().unregister(query);
+        }
+    }
+
+    protected QueryResult runQuery(RunningQuery query, ParametersBean pBean, boolean useMaxRows) throws Exception {
     	DataSource runDS = DefaultDataSourceManager.getInstance().getConnectedDataSource();    	
     	boolean isCsv = runDS.getDriver().equals(CSVDialect.DRIVER_CLASS);    	    	
         QueryExecutor executor = new QueryExecutor(pBean.getQuery(), pBean.getParams(),
-                pBean.getParamValues(), con, true, true, isCsv);
+                pBean.getParamValues(), query.getConnection(), true, true, isCsv);
         executor.setTimeout(Globals.getQueryTimeout());
         if (useMaxRows) {
             executor.setMaxRows(maxRowsCheckBox.isSelected() ? statusPanel.getMaxRows() : 0);
@@ -367,6 +409,13 @@ public class SQLViewPanel extends JPanel {
         return executor.execute();
     }
 
+    // stop fetching rows for previous result and release its temporary file
+    private void disposeTableModel() {
+        if (tableModel instanceof StreamingResultSetTableModel) {
+            ((StreamingResultSetTableModel) tableModel).dispose();
+        }
+    }
+
     class SQLRunAction extends AbstractAction {
 
         public void actionPerformed(ActionEvent ev) {
@@ -381,6 +430,9 @@ public class SQLViewPanel extends JPanel {
                     }
 
                     final UIActivator activator = new UIActivator(Globals.getMainFrame(), I18NSupport.getString("running.query"));
+                    boolean released = false;
+                    Connection con = null;
+                    RunningQuery query = null;
                     try {
                         runAction.setEnabled(false);
 
@@ -421,7 +473,12 @@ public class SQLViewPanel extends JPanel {
 
                         activator.start(new SQLStopAction());
 
-                        final QueryResult result = runQuery(pBean, true);
+                        // every run has its own connection, so a new query can be run while rows are fetched
+                        con = Globals.createTempConnection(DefaultDataSourceManager.getInstance().getConnectedDataSource());
+                        query = QueryExecutionService.getInstance().register(
+                                I18NSupport.getString("queries.running.sqleditor"), pBean.getQuery().getText(), con);
+                        runningQuery = query;
+                        final QueryResult result = runQuery(query, pBean, true);
                         if (result == null) {
                             if (activator != null) {
                                 SwingUtilities.invokeLater(new Runnable() {
@@ -433,30 +490,64 @@ public class SQLViewPanel extends JPanel {
                             return;
                         }
 
-                        // TODO ??
-                        // first reset model
-                        // tableModel = new ScrollingResultSetTableModel(null);
-                        tableModel = new CachingResultSetTableModel(null, executorThread.isInterrupted());
-                        resultTable.setModel(tableModel);
+                        // stop fetching previous result
+                        disposeTableModel();
 
                         //tableModel = new ScrollingResultSetTableModel(result);
-                        tableModel = new CachingResultSetTableModel(result, executorThread.isInterrupted());
-                        ((CachingResultSetTableModel)tableModel).init();
-                        resultTable.setModel(tableModel);
+                        final StreamingResultSetTableModel model =
+                                new StreamingResultSetTableModel(result, executorThread.isInterrupted());
+                        tableModel = model;
+                        boolean more = model.fetch(StreamingResultSetTableModel.PAGE_SIZE);
+                        query.setRows(model.getFetchedRows());
+                        resultTable.setModel(model);
                         //resultTable.packAll();
                         statusPanel.setExecuteTime(result.getExecuteTime());
-                        statusPanel.setRows(result.getRowCount());
-                        TableRowHeader trh = TableUtil.setRowHeader(resultTable);
+                        statusPanel.setRows(model.getFetchedRows());
+                        final TableRowHeader trh = TableUtil.setRowHeader(resultTable);
                         trh.setBackground(ColorUtil.PANEL_BACKROUND_COLOR);
+                        model.addTableModelListener(new TableModelListener() {
+                            public void tableChanged(TableModelEvent e) {
+                                ((TableRowHeaderModel) trh.getModel()).tableChanged();
+                            }
+                        });
 
-                        if (result.getRowCount() == 0) {
+                        if (model.getFetchedRows() == 0) {
                             Show.info(I18NSupport.getString("run.query.nodata"));
                         }
 
+                        // first page is shown : user can work while the other rows are fetched
+                        released = true;
+                        release(activator);
+                        ProgressPublisher publisher = new ProgressPublisher(null, null, 0) {
+                            protected void publish(long records, long rate, long bytes, long elapsed) {
+                                statusPanel.setRows(records, rate);
+                            }
+                        };
+                        publisher.setCount(model.getFetchedRows());
+                        publisher.start();
+                        try {
+                            while (more && !query.isCancelled()) {
+                                more = model.fetch(StreamingResultSetTableModel.PAGE_SIZE);
+                                query.setRows(model.getFetchedRows());
+                                publisher.setCount(model.getFetchedRows());
+                            }
+                        } finally {
+                            publisher.stop();
+                        }
+                        if (query.isCancelled()) {
+                            model.setStop(true);
+                            model.fetch(0);
+                        }
+
                     } catch (InterruptedException e) {
                         Show.dispose();  // close a possible previous dialog message
                         Show.info(Globals.getMainFrame(), I18NSupport.getString("query.cancelled"));
                     } catch (Exception e) {
+                        if ((query != null) && query.isCancelled()) {
+                            Show.dispose();  // close a possible previous dialog message
+                            Show.info(Globals.getMainFrame(), I18NSupport.getString("query.cancelled"));
+                            return;
+                        }
                     	highlightErrorLine(e);                    	
                         e.printStackTrace();
                         Show.error(Globals.getMainFrame(), I18NSupport.getString("error"), e);
@@ -464,14 +555,18 @@ public class SQLViewPanel extends JPanel {
                     	t.printStackTrace();
                     	LOG.error(t.getMessage(), t);
                     } finally {
-                        stop = false;
-                        runAction.setEnabled(true);
-                        if (activator != null) {
-                            SwingUtilities.invokeLater(new Runnable() {
-                                public void run() {
-                                    activator.stop();
-                                }
-                            });
+                        if (query != null) {
+                            QueryExecutionService.getInstance().unregister(query);
+                        }
+                        if (con != null) {
+                            try {
+                                con.close();
+                            } catch (SQLException e) {
+                                LOG.error(e.getMessage(), e);
+                            }
+                        }
+                        if (!released) {
+                            release(activator);
                         }
                     }
                 }
@@ -480,6 +575,18 @@ public class SQLViewPanel extends JPanel {
             executorThread.setPriority(EngineProperties.getRunPriority());
             executorThread.start();
         }
+
+        private void release(final UIActivator activator) {
+            stop = false;
+            runAction.setEnabled(true);
+            if (activator != null) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        activator.stop();
+                    }
+                });
+            }
+        }
     }
     
     private void highlightErrorLine(Exception e) {
@@ -532,8 +639,14 @@ public class SQLViewPanel extends JPanel {
             }
             if (executorThread != null) {
                 stop = true;
+                if (runningQuery != null) {
+                    // stop the statement on server
+                    runningQuery.cancel();
+                }
                 executorThread.interrupt();
-                ((CachingResultSetTableModel)tableModel).setStop(true);
+                if (tableModel instanceof StreamingResultSetTableModel) {
+                    ((StreamingResultSetTableModel) tableModel).setStop(true);
+                }
             }
         }
 
@@ -559,6 +672,21 @@ public class SQLViewPanel extends JPanel {
             rowsLabel.setText(rows + " " + I18NSupport.getString("rows"));
         }
 
+        /**
+         * Show rows while they are fetched
+         *
+         * @param rows fetched rows
+         * @param rate fetched rows per second, -1 if not known
+         */
+        public void setRows(long rows, long rate) {
+            if (rate < 0) {
+                setRows(rows);
+            } else {
+                rowsLabel.setText(rows + " " + I18NSupport.getString("rows") + " (" +
+                        I18NSupport.getString("progress.rate", rate) + ")");
+            }
+        }
+
         public int getMaxRows() {
             int rows;
             try {
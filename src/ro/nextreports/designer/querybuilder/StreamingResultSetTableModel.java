@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.querybuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ro.nextreports.designer.Globals;
+import ro.nextreports.engine.queryexec.QueryException;
+import ro.nextreports.engine.queryexec.QueryResult;
+
+/**
+ * Table model which reads the result set in pages. Every call of {@link #fetch(int)} reads more rows and
+ * publishes the new row count to the table, so the first page can be shown while the rest of the rows are
+ * fetched in background.
+ *
+ * Only a window of pages (property 'query.result.window' rows) is kept in memory, every page in a
+ * {@link ColumnarResultStore}. Pages out of window are written column by column to a temporary file and are
+ * read back when the table needs them.
+ *
+ * The result is closed when all rows were fetched or fetching was stopped, so column information is kept
+ * by the model.
+ */
+public class StreamingResultSetTableModel extends ResultSetTableModel {
+
+    private static final Log LOG = LogFactory.getLog(StreamingResultSetTableModel.class);
+
+    public static final int PAGE_SIZE = 500;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte BIG_DECIMAL = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BOOLEAN = 10;
+    private static final byte TIMESTAMP = 11;
+    private static final byte SQL_DATE = 12;
+    private static final byte SQL_TIME = 13;
+    private static final byte DATE = 14;
+
+    private int columnCount;
+    private String[] columnNames;
+    private Class[] columnClasses;
+    private boolean[] blobColumns;
+    private boolean[] clobColumns;
+
+    private int maxPages;
+    // completed pages in memory, least recently used first
+    private LinkedHashMap<Integer, ColumnarResultStore> pages =
+            new LinkedHashMap<Integer, ColumnarResultStore>(16, 0.75f, true);
+    // file offset for every spilled page
+    private List<Long> offsets = new ArrayList<Long>();
+    private File file;
+    private RandomAccessFile raf;
+
+    // page being fetched
+    private ColumnarResultStore current;
+    private Object[] rowValues;
+    private int currentIndex;
+
+    private volatile int fetched;
+    private volatile boolean stop;
+    private volatile boolean done;
+    private boolean disposed;
+    // row count seen by table (changed only in event dispatch thread)
+    private int rowCount;
+    private AtomicBoolean publishScheduled = new AtomicBoolean(false);
+
+    public StreamingResultSetTableModel(QueryResult result) {
+        this(result, false);
+    }
+
+    public StreamingResultSetTableModel(QueryResult result, boolean stop) {
+        super(result);
+        this.stop = stop;
+        maxPages = Math.max(2, Globals.getQueryResultWindow() / PAGE_SIZE);
+        if (result == null) {
+            done = true;
+            return;
+        }
+        columnCount = result.getColumnCount();
+        columnNames = new String[columnCount];
+        columnClasses = new Class[columnCount];
+        blobColumns = new boolean[columnCount];
+        clobColumns = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = result.getColumnName(i);
+            blobColumns[i] = super.isBlobColumn(i);
+            clobColumns[i] = super.isClobColumn(i);
+            columnClasses[i] = super.getColumnClass(i);
+        }
+        current = new ColumnarResultStore(columnCount, PAGE_SIZE);
+        rowValues = new Object[columnCount];
+    }
+
+    /**
+     * Read more rows from result. Must be called always from the same thread.
+     *
+     * @param maxRows maximum number of rows to read
+     * @return true if there can be more rows to read
+     * @throws QueryException if rows cannot be read
+     */
+    public boolean fetch(int maxRows) throws QueryException {
+        if (done) {
+            return false;
+        }
+        boolean more = false;
+        try {
+            int n = 0;
+            while (!stop && (n < maxRows) && result.hasNext()) {
+                for (int i = 0; i < columnCount; i++) {
+                    Object value = result.nextValue(i);
+                    // large objects are not shown
+                    rowValues[i] = (blobColumns[i] || clobColumns[i]) ? null : value;
+                }
+                addRow();
+                n++;
+            }
+            more = !stop && (n == maxRows);
+        } finally {
+            if (!more) {
+                finish();
+            }
+            publish();
+        }
+        return more;
+    }
+
+    /**
+     * Stop fetching. Rows already fetched remain available.
+     *
+     * @param stop stop
+     */
+    public void setStop(boolean stop) {
+        this.stop = stop;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Number of rows read until now (can be greater than row count seen by table)
+     *
+     * @return number of rows read
+     */
+    public int getFetchedRows() {
+        return fetched;
+    }
+
+    /**
+     * Stop fetching and release the temporary file. Model cannot be used anymore.
+     */
+    public synchronized void dispose() {
+        stop = true;
+        disposed = true;
+        pages.clear();
+        closeFile();
+    }
+
+    public Object getValueAt(int row, int column) {
+        if (result == null) {
+            return null;
+        }
+
+        if (isBlobColumn(column)) {
+            return BLOB_VALUE;
+        } else if (isClobColumn(column)) {
+            return CLOB_VALUE;
+        }
+
+        if (row >= fetched) {
+            return null;
+        }
+        return getValue(row, column);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public String getColumnName(int column) {
+        if (result == null) {
+            return "";
+        }
+        return columnNames[column];
+    }
+
+    public Class getColumnClass(int column) {
+        if (result == null) {
+            return Object.class;
+        }
+        return columnClasses[column];
+    }
+
+    protected boolean isBlobColumn(int column) {
+        return blobColumns[column];
+    }
+
+    protected boolean isClobColumn(int column) {
+        return clobColumns[column];
+    }
+
+    private synchronized void addRow() {
+        current.add(rowValues);
+        fetched++;
+        if ((current.size() == PAGE_SIZE) && !disposed) {
+            current.seal();
+            pages.put(currentIndex, current);
+            offsets.add(null);
+            currentIndex++;
+            current = new ColumnarResultStore(columnCount, PAGE_SIZE);
+            evictPages();
+        }
+    }
+
+    private synchronized Object getValue(int row, int column) {
+        ColumnarResultStore page = getPage(row / PAGE_SIZE);
+        if (page == null) {
+            return null;
+        }
+        return page.get(row % PAGE_SIZE, column);
+    }
+
+    // must be called with lock held
+    private ColumnarResultStore getPage(int index) {
+        if (index == currentIndex) {
+            return current;
+        }
+        ColumnarResultStore page = pages.get(index);
+        if ((page == null) && !disposed) {
+            try {
+                page = readPage(index);
+                pages.put(index, page);
+                evictPages();
+            } catch (IOException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+        return page;
+    }
+
+    // must be called with lock held
+    private void evictPages() {
+        for (Iterator<Map.Entry<Integer, ColumnarResultStore>> it = pages.entrySet().iterator();
+             (pages.size() > maxPages) && it.hasNext();) {
+            Map.Entry<Integer, ColumnarResultStore> entry = it.next();
+            int index = entry.getKey();
+            if (offsets.get(index) == null) {
+                try {
+                    offsets.set(index, writePage(entry.getValue()));
+                } catch (IOException e) {
+                    // keep what we have in memory and do not read more
+                    LOG.error("Cannot write result page to temporary file : " + e.getMessage(), e);
+                    stop = true;
+                    return;
+                }
+            }
+            it.remove();
+        }
+    }
+
+    private long writePage(ColumnarResultStore page) throws IOException {
+        if (raf == null) {
+            file = File.createTempFile("next-result", ".tmp");
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(PAGE_SIZE * columnCount * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < columnCount; i++) {
+            for (int j = 0; j < PAGE_SIZE; j++) {
+                writeValue(out, page.get(j, i));
+            }
+        }
+        out.flush();
+        long offset = raf.length();
+        raf.seek(offset);
+        raf.writeInt(bytes.size());
+        raf.write(bytes.toByteArray());
+        return offset;
+    }
+
+    private ColumnarResultStore readPage(int index) throws IOException {
+        raf.seek(offsets.get(index));
+        byte[] bytes = new byte[raf.readInt()];
+        raf.readFully(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        Object[][] values = new Object[PAGE_SIZE][columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            for (int j = 0; j < PAGE_SIZE; j++) {
+                values[j][i] = readValue(in);
+            }
+        }
+        ColumnarResultStore page = new ColumnarResultStore(columnCount, PAGE_SIZE);
+        for (Object[] row : values) {
+            page.add(row);
+        }
+        page.seal();
+        return page;
+    }
+
+    private void finish() {
+        done = true;
+        synchronized (this) {
+            // last page is not full
+            current.seal();
+        }
+        try {
+            result.close();
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+        }
+    }
+
+    private synchronized void closeFile() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                LOG.error(e.getMessage(), e);
+            }
+            raf = null;
+            file.delete();
+        }
+    }
+
+    // coalesce row count updates : at most one pending update in the event queue
+    private void publish() {
+        if (publishScheduled.getAndSet(true)) {
+            return;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                publishScheduled.set(false);
+                int count = fetched;
+                if (count > rowCount) {
+                    int first = rowCount;
+                    rowCount = count;
+                    fireTableRowsInserted(first, count - 1);
+                }
+            }
+        });
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof java.sql.Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((java.sql.Timestamp) value).getTime());
+            out.writeInt(((java.sql.Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof java.sql.Time) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(((java.sql.Time) value).getTime());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte(DATE);
+            out.writeLong(((java.util.Date) value).getTime());
+        } else {
+            // other types are only displayed
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case BOOLEAN:
+                return in.readBoolean();
+            case TIMESTAMP:
+                java.sql.Timestamp t = new java.sql.Timestamp(in.readLong());
+                t.setNanos(in.readInt());
+                return t;
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case SQL_TIME:
+                return new java.sql.Time(in.readLong());
+            case DATE:
+                return new java.util.Date(in.readLong());
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    // writeUTF is limited to 64K bytes
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+}
@@ -20,7 +20,6 @@ import java.text.Collator;
 import java.util.*;
 import java.io.File;
 
-import ro.nextreports.designer.FormLoader;
 import ro.nextreports.designer.FormSaver;
 import ro.nextreports.designer.Globals;
 import ro.nextreports.designer.chart.ChartUtil;
@@ -32,8 +31,7 @@ import ro.nextreports.designer.dbviewer.common.DBInfo;
 import ro.nextreports.designer.dbviewer.common.DBProcedure;
 import ro.nextreports.designer.dbviewer.common.DBTable;
 import ro.nextreports.designer.persistence.FileReportPersistence;
-import ro.nextreports.designer.persistence.ReportPersistence;
-import ro.nextreports.designer.persistence.ReportPersistenceFactory;
+import ro.nextreports.designer.persistence.RepositoryIndex;
 import ro.nextreports.designer.querybuilder.DBBrowserNode;
 import ro.nextreports.designer.querybuilder.DBObject;
 import ro.nextreports.designer.util.I18NSupport;
@@ -260,21 +258,21 @@ public class DBNodeExpander implements NodeExpander {
     }
 
     private List<DBBrowserNode> createQueryNodesForFolder(String folderPath) throws Exception {
-        ReportPersistence repPersist = ReportPersistenceFactory.createReportPersistence(
-                Globals.getReportPersistenceType());
         String schemaName = Globals.getDBViewer().getUserSchema();
         File root = new File(folderPath);
-        List<File> list = repPersist.getReportFiles(root.getAbsolutePath());
+        // listed from repository index : no disk access for every file
+        List<RepositoryIndex.Entry> list = RepositoryIndex.list(root.getAbsolutePath(), FileReportPersistence.REPORT_FULL_EXTENSION);
         List<DBBrowserNode> childNodes = new ArrayList<DBBrowserNode>();
-        for (File file : list) {            
-            if (file.isDirectory()) {
-                DBObject obj = new DBObject(file.getName(), schemaName, DBObject.FOLDER_QUERY);
+        for (RepositoryIndex.Entry entry : list) {
+            File file = entry.getFile();
+            if (entry.isDirectory()) {
+                DBObject obj = new DBObject(entry.getName(), schemaName, DBObject.FOLDER_QUERY);
                 obj.setAbsolutePath(file.getAbsolutePath());
                 childNodes.add(new DBBrowserNode(obj));
             } else {
-                int index  = file.getName().indexOf(FileReportPersistence.REPORT_EXTENSION_SEPARATOR + FileReportPersistence.REPORT_EXTENSION);
+                int index  = entry.getName().indexOf(FileReportPersistence.REPORT_EXTENSION_SEPARATOR + FileReportPersistence.REPORT_EXTENSION);
                 if (index != -1) {
-                    DBObject obj = new DBObject(file.getName().substring(0, index), schemaName, DBObject.QUERIES);
+                    DBObject obj = new DBObject(entry.getName().substring(0, index), schemaName, DBObject.QUERIES);
                     obj.setAbsolutePath(file.getAbsolutePath());
                     childNodes.add(new DBBrowserNode(obj));
                 }
@@ -291,20 +289,21 @@ public class DBNodeExpander implements NodeExpander {
 
         String schemaName = Globals.getDBViewer().getUserSchema();
         File root = new File(folderPath);
-        List<File> list = FormLoader.getInstance().getFiles(root.getAbsolutePath(), FormSaver.REPORT_FULL_EXTENSION);
+        List<RepositoryIndex.Entry> list = RepositoryIndex.list(root.getAbsolutePath(), FormSaver.REPORT_FULL_EXTENSION);
         List<DBBrowserNode> childNodes = new ArrayList<DBBrowserNode>();
         if (LicenseUtil.maxReportsReached()) {
             return childNodes;
         }
-        for (File file : list) {
-            if (file.isDirectory() && !FileReportPersistence.SUBREPORT_TEMP_DIR.equals(file.getName())) {
-                DBObject obj = new DBObject(file.getName(), schemaName, DBObject.FOLDER_REPORT);
+        for (RepositoryIndex.Entry entry : list) {
+            File file = entry.getFile();
+            if (entry.isDirectory() && !FileReportPersistence.SUBREPORT_TEMP_DIR.equals(entry.getName())) {
+                DBObject obj = new DBObject(entry.getName(), schemaName, DBObject.FOLDER_REPORT);
                 obj.setAbsolutePath(file.getAbsolutePath());
                 childNodes.add(new DBBrowserNode(obj));
             } else {
-                int index  = file.getName().indexOf(FormSaver.REPORT_FULL_EXTENSION);
+                int index  = entry.getName().indexOf(FormSaver.REPORT_FULL_EXTENSION);
                 if (index != -1) {
-                    DBObject obj = new DBObject(file.getName().substring(0, index), schemaName, DBObject.REPORTS);
+                    DBObject obj = new DBObject(entry.getName().substring(0, index), schemaName, DBObject.REPORTS);
                     obj.setAbsolutePath(file.getAbsolutePath());
                     if (childNodes.size() < Globals.getReports()) {
                         childNodes.add(new DBBrowserNode(obj));
@@ -323,20 +322,21 @@ public class DBNodeExpander implements NodeExpander {
 
         String schemaName = Globals.getDBViewer().getUserSchema();
         File root = new File(folderPath);
-        List<File> list = FormLoader.getInstance().getFiles(root.getAbsolutePath(), ChartUtil.CHART_FULL_EXTENSION);
+        List<RepositoryIndex.Entry> list = RepositoryIndex.list(root.getAbsolutePath(), ChartUtil.CHART_FULL_EXTENSION);
         List<DBBrowserNode> childNodes = new ArrayList<DBBrowserNode>();
         if (LicenseUtil.maxReportsReached()) {
             return childNodes;
         }
-        for (File file : list) {
-            if (file.isDirectory() && !FileReportPersistence.SUBREPORT_TEMP_DIR.equals(file.getName())) {
-                DBObject obj = new DBObject(file.getName(), schemaName, DBObject.FOLDER_CHART);
+        for (RepositoryIndex.Entry entry : list) {
+            File file = entry.getFile();
+            if (entry.isDirectory() && !FileReportPersistence.SUBREPORT_TEMP_DIR.equals(entry.getName())) {
+                DBObject obj = new DBObject(entry.getName(), schemaName, DBObject.FOLDER_CHART);
                 obj.setAbsolutePath(file.getAbsolutePath());
                 childNodes.add(new DBBrowserNode(obj));
             } else {
-                int index  = file.getName().indexOf(ChartUtil.CHART_FULL_EXTENSION);
+                int index  = entry.getName().indexOf(ChartUtil.CHART_FULL_EXTENSION);
                 if (index != -1) {
-                    DBObject obj = new DBObject(file.getName().substring(0, index), schemaName, DBObject.CHARTS);
+                    DBObject obj = new DBObject(entry.getName().substring(0, index), schemaName, DBObject.CHARTS);
                     obj.setAbsolutePath(file.getAbsolutePath());
                     if (childNodes.size() < Globals.getReports()) {
                         childNodes.add(new DBBrowserNode(obj));
@@ -18,6 +18,7 @@ package ro.nextreports.designer.ui.sqleditor.syntax;
 
 import java.io.CharArrayReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -27,6 +28,7 @@ import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
 import javax.swing.text.PlainDocument;
 import javax.swing.text.Segment;
 import javax.swing.undo.UndoManager;
@@ -65,20 +67,24 @@ public class SyntaxDocument extends PlainDocument {
     @Override
     public void insertString(int offs, String str, AttributeSet a) throws BadLocationException {
         super.insertString(offs, str, a);
-        parse();
+        if ((str != null) && (str.length() > 0)) {
+            parse(offs, 0, str.length());
+        }
     }
 
     @Override
     public void remove(int offs, int len) throws BadLocationException {
         super.remove(offs, len);
-        parse();
+        if (len > 0) {
+            parse(offs, len, 0);
+        }
     }
     
+    // super.replace calls remove and insertString which already update the tokens
     @Override
     public void replace(int offset, int length, String text, AttributeSet attrs) 
             throws BadLocationException {
         super.replace(offset, length, text, attrs);
-        parse();
     }
 
     /**
@@ -194,6 +200,135 @@ public class SyntaxDocument extends PlainDocument {
         }
     }
     
+    /**
+     * Update the tokens after an edit at offset, where removed chars were replaced by inserted chars.
+     *
+     * Lexing restarts at the start of the line with the edit and stops as soon as a new token
+     * (after the edit) is identical with an old token moved by the edit : from there the text and the lexer
+     * state (the sql lexer has a single state) are the same as before, so the old tokens are only shifted.
+     *
+     * Restarting after the last token before the edit is not enough : chars skipped by the lexer (like
+     * an unmatched quote) may start a token once the edit is done. The sql lexer never looks past the end
+     * of a line (strings and line comments are closed on the same line), so the line start is a safe point.
+     *
+     * @param offset edit offset
+     * @param removed number of removed chars
+     * @param inserted number of inserted chars
+     */
+    private void parse(int offset, int removed, int inserted) {
+        if ((lexer == null) || (tokens == null)) {
+            parse();
+            return;
+        }
+
+        long time = System.nanoTime();
+        int delta = inserted - removed;
+        int editEnd = offset + inserted;
+
+        // start from the line of the edit, or from the token which contains the line start
+        Element root = getDefaultRootElement();
+        int lineStart = root.getElement(root.getElementIndex(offset)).getStartOffset();
+        int from = countTokensEndingBefore(lineStart + 1);
+        int base = (from < tokens.size()) ? Math.min(lineStart, tokens.get(from).start) : lineStart;
+
+        List<Token> fresh = new ArrayList<Token>();
+        int resync = tokens.size();
+        int old = from;
+        try {
+            lexer.yyreset(new DocumentReader(base));
+            Token token;
+            while ((token = lexer.yylex()) != null) {
+                token.start += base;
+                if (token.start >= editEnd) {
+                    int oldStart = token.start - delta;
+                    while ((old < tokens.size()) && (tokens.get(old).start < oldStart)) {
+                        old++;
+                    }
+                    if ((old < tokens.size()) && isSame(tokens.get(old), oldStart, token)) {
+                        resync = old;
+                        break;
+                    }
+                }
+                fresh.add(token);
+            }
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            parse();
+            return;
+        }
+
+        tokens.subList(from, resync).clear();
+        tokens.addAll(from, fresh);
+        if (delta != 0) {
+            for (int i = from + fresh.size(), size = tokens.size(); i < size; i++) {
+                tokens.get(i).start += delta;
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Re-parsed from %d in %d us, replaced %d tokens with %d",
+                    base, (System.nanoTime() - time) / 1000, resync - from, fresh.size()));
+        }
+    }
+
+    // tokens do not overlap, so their ends are sorted like their starts
+    private int countTokensEndingBefore(int pos) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Token t = tokens.get(mid);
+            if (t.start + t.length < pos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean isSame(Token oldToken, int oldStart, Token newToken) {
+        return (oldToken.start == oldStart) && (oldToken.length == newToken.length) &&
+                (oldToken.type == newToken.type);
+    }
+
+    /**
+     * Reads the document text from a position, without copying the whole text.
+     */
+    private class DocumentReader extends Reader {
+
+        private int position;
+        private Segment segment = new Segment();
+
+        private DocumentReader(int position) {
+            this.position = position;
+            segment.setPartialReturn(true);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int remaining = getLength() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            try {
+                getText(position, Math.min(length, remaining), segment);
+            } catch (BadLocationException e) {
+                throw new IOException(e.getMessage());
+            }
+            System.arraycopy(segment.array, segment.offset, buffer, offset, segment.count);
+            position += segment.count;
+            return segment.count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     /**
      * This class is used to iterate over tokens between two positions.
      */
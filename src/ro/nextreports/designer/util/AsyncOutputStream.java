@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream which passes the written chunks to a background thread that writes them to the
+ * wrapped stream. The writer can be blocked on disk while the caller keeps producing data, up to
+ * a bounded number of pending chunks.
+ *
+ * Should be used behind a buffered stream, every write call is a chunk. A write error is thrown
+ * by the next write or by close; close waits until all chunks are written.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream out;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread writer;
+    private volatile IOException error;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param out stream to write to
+     * @param capacity maximum number of chunks waiting to be written
+     */
+    public AsyncOutputStream(OutputStream out, int capacity) {
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<byte[]>(capacity);
+        this.writer = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "NEXT : Async writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        check();
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return;
+        }
+        put(Arrays.copyOfRange(b, off, off + len));
+    }
+
+    public void flush() throws IOException {
+        // chunks are written in order by the writer thread
+        check();
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            put(END);
+            writer.join();
+        } catch (InterruptedIOException e) {
+            writer.interrupt();
+            throw e;
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            out.close();
+        }
+        check();
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void check() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                byte[] chunk = queue.take();
+                if (chunk == END) {
+                    break;
+                }
+                // after an error chunks are discarded, so the caller is not blocked
+                if (error == null) {
+                    try {
+                        out.write(chunk);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+            }
+            if (error == null) {
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            // stream closed after caller was interrupted
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+}
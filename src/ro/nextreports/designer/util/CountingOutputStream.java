@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which keeps the number of written bytes and the time when the first byte was written.
+ * The counters can be read from other threads (for example by a {@link ProgressPublisher}).
+ *
+ * Close can be called more than once.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private long start;
+    private volatile long firstByteTime = -1;
+    private volatile long bytes;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param out stream to write to
+     * @param start time from which time to first byte is computed
+     */
+    public CountingOutputStream(OutputStream out, long start) {
+        super(out);
+        this.start = start;
+    }
+
+    public void write(int b) throws IOException {
+        written(1);
+        out.write(b);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        written(len);
+        out.write(b, off, len);
+    }
+
+    // a single thread writes, so the volatile fields are not updated concurrently
+    private void written(int len) {
+        if (firstByteTime == -1) {
+            firstByteTime = System.currentTimeMillis();
+        }
+        bytes += len;
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        super.close();
+    }
+
+    /**
+     * Time from start until first byte was written
+     *
+     * @return time in milliseconds, -1 if nothing was written
+     */
+    public long getTimeToFirstByte() {
+        long time = firstByteTime;
+        return (time == -1) ? -1 : time - start;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+}
@@ -344,6 +344,15 @@ public class NextReportsUtil {
 				}
 
                 if (error || ((runtimePanel != null) && runtimePanel.isError())) {
+                    // pooled connection taken by the panel must be returned
+                    Connection con = (runtimePanel == null) ? null : runtimePanel.getTemporaryConnection();
+                    if (con != null) {
+                        try {
+                            con.close();
+                        } catch (SQLException e) {
+                            LOG.error(e.getMessage(), e);
+                        }
+                    }
                     if (activator != null) {
                         SwingUtilities.invokeLater(new Runnable() {
                         	
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.designer.util;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Publishes the progress of a long task at a fixed frame rate.
+ *
+ * The worker thread only sets the processed count ({@link #setCount(long)} is a volatile write), a swing
+ * timer samples it on the event dispatch thread every {@link #FRAME_INTERVAL} ms and shows records,
+ * rows per second, remaining time and written bytes in an {@link UIActivator}. Subclasses can sample
+ * other counters or publish somewhere else.
+ */
+public class ProgressPublisher implements ActionListener {
+
+    /** Time between two published frames in milliseconds */
+    public static final int FRAME_INTERVAL = 200;
+
+    private static final String[] UNITS = { "B", "KB", "MB", "GB" };
+
+    private UIActivator activator;
+    private String message;
+    private long total;
+    private volatile long count = -1;
+    private CountingOutputStream stream;
+    private long start;
+    private Timer timer;
+
+    /**
+     * Constructor
+     *
+     * @param activator activator where progress is shown, can be null if publish is overridden
+     * @param message activator message, statistics are shown below it
+     * @param total total number of records, 0 if it is not known
+     */
+    public ProgressPublisher(UIActivator activator, String message, long total) {
+        this.activator = activator;
+        this.message = message;
+        this.total = total;
+        timer = new Timer(FRAME_INTERVAL, this);
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Show also the bytes written to a stream
+     *
+     * @param stream counting stream
+     */
+    public void setStream(CountingOutputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Set the number of processed records. Can be called from any thread
+     *
+     * @param count number of processed records
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Number of processed records
+     *
+     * @return number of processed records, -1 if records are not counted
+     */
+    public long getCount() {
+        return sampleCount();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void start() {
+        start = System.currentTimeMillis();
+        timer.start();
+    }
+
+    /**
+     * Stop sampling and publish the last values
+     */
+    public void stop() {
+        timer.stop();
+        if (SwingUtilities.isEventDispatchThread()) {
+            actionPerformed(null);
+        } else {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    actionPerformed(null);
+                }
+            });
+        }
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        long elapsed = System.currentTimeMillis() - start;
+        long records = sampleCount();
+        long rate = (records > 0) ? getRate(records, elapsed) : -1;
+        publish(records, rate, sampleBytes(), elapsed);
+    }
+
+    /**
+     * Number of processed records
+     *
+     * @return number of processed records, -1 if records are not counted
+     */
+    protected long sampleCount() {
+        return count;
+    }
+
+    /**
+     * Number of written bytes
+     *
+     * @return number of written bytes, -1 if bytes are not counted
+     */
+    protected long sampleBytes() {
+        return (stream == null) ? -1 : stream.getBytes();
+    }
+
+    /**
+     * Show progress. Called on event dispatch thread
+     *
+     * @param records processed records, -1 if not counted
+     * @param rate records per second, -1 if not known
+     * @param bytes written bytes, -1 if not counted
+     * @param elapsed time from start in milliseconds
+     */
+    protected void publish(long records, long rate, long bytes, long elapsed) {
+        if (activator == null) {
+            return;
+        }
+        if ((total > 0) && (records >= 0)) {
+            activator.updateProgress((int) records, getProgressText(records));
+        }
+        activator.updateText(message + "<br>" + getStatistics(records, rate, bytes, elapsed));
+    }
+
+    /**
+     * Text shown over a determinate progress bar
+     *
+     * @param records processed records
+     * @return progress text
+     */
+    protected String getProgressText(long records) {
+        return records + "/" + total;
+    }
+
+    protected String getStatistics(long records, long rate, long bytes, long elapsed) {
+        StringBuilder sb = new StringBuilder();
+        if ((records >= 0) && (total <= 0)) {
+            sb.append(I18NSupport.getString("progress.records", records)).append(", ");
+        }
+        if (rate >= 0) {
+            sb.append(I18NSupport.getString("progress.rate", rate)).append(", ");
+            if ((total > 0) && (rate > 0) && (records < total)) {
+                long remaining = (total - records) * 1000 / rate;
+                sb.append(I18NSupport.getString("progress.remaining", formatTime(remaining))).append(", ");
+            }
+        }
+        if (bytes >= 0) {
+            sb.append(formatBytes(bytes)).append(", ");
+        }
+        sb.append(I18NSupport.getString("progress.elapsed", formatTime(elapsed)));
+        return sb.toString();
+    }
+
+    public static long getRate(long records, long elapsed) {
+        return (elapsed <= 0) ? records : records * 1000 / elapsed;
+    }
+
+    public static String formatBytes(long bytes) {
+        double value = bytes;
+        int unit = 0;
+        while ((value >= 1024) && (unit < UNITS.length - 1)) {
+            value = value / 1024;
+            unit++;
+        }
+        if (unit == 0) {
+            return bytes + " " + UNITS[0];
+        }
+        return String.format("%.1f %s", value, UNITS[unit]);
+    }
+
+    public static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        if (seconds >= 3600) {
+            return String.format("%d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+        }
+        return String.format("%02d:%02d", seconds / 60, seconds % 60);
+    }
+
+}
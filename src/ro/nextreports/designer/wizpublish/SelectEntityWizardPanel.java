@@ -42,6 +42,7 @@ import org.apache.commons.logging.LogFactory;
 import org.jdesktop.swingx.JXList;
 
 import ro.nextreports.designer.Globals;
+import ro.nextreports.designer.persistence.ReportCache;
 import ro.nextreports.designer.querybuilder.DBBrowserNode;
 import ro.nextreports.designer.querybuilder.DBBrowserTree;
 import ro.nextreports.designer.querybuilder.DBObject;
@@ -170,7 +171,7 @@ public class SelectEntityWizardPanel extends WizardPanel {
  						if (!listModel.contains(path)) {
  						    // convert xml if needed before add to list
 							if (selectedNode.getDBObject().getType() == DBObject.REPORTS) {
-								byte result = ConverterUtil.convertIfNeeded(path);
+								byte result = ReportCache.convertIfNeeded(path);
 								if (result != ConverterUtil.TYPE_CONVERSION_EXCEPTION) {
 									listModel.addElement(path);
 								}
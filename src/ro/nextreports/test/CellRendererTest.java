@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import javax.swing.BorderFactory;
+import javax.swing.border.CompoundBorder;
+
+import ro.nextreports.designer.ReportGrid;
+import ro.nextreports.designer.ReportGridModel;
+import ro.nextreports.designer.grid.DefaultGridCellRenderer;
+import ro.nextreports.designer.grid.JGrid;
+import ro.nextreports.designer.property.CustomLineBorder;
+
+import ro.nextreports.engine.band.BandElement;
+import ro.nextreports.engine.band.Border;
+import ro.nextreports.engine.band.Padding;
+
+/**
+ * Paint a report grid and measure the memory allocated for a frame by the report cell renderer
+ * (shared borders and fonts) and by the previous renderer (new borders for every painted cell).
+ */
+public class CellRendererTest {
+
+    private static final int ROWS = 300;
+    private static final int COLUMNS = 20;
+    private static final int PAINTS = 20;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        ReportGridModel model = new ReportGridModel(ROWS, COLUMNS);
+        Font[] fonts = {
+                new Font("Dialog", Font.PLAIN, 10),
+                new Font("Dialog", Font.BOLD, 12),
+                new Font("Serif", Font.ITALIC, 10)
+        };
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                BandElement element = new BandElement("cell " + row + "," + column);
+                element.setPadding(new Padding(1, 1, 1, 1));
+                if ((row % 3) != 0) {
+                    Border border = new Border(1, 1, 1, 1);
+                    border.setLeftColor(Color.BLACK);
+                    border.setRightColor(Color.BLACK);
+                    border.setTopColor(Color.BLACK);
+                    border.setBottomColor((row % 2 == 0) ? Color.BLUE : Color.BLACK);
+                    element.setBorder(border);
+                }
+                // every cell has its own (equal) font instance, like a loaded report
+                Font font = fonts[(row + column) % fonts.length];
+                element.setFont(new Font(font.getName(), font.getStyle(), font.getSize()));
+                model.setValueAt(element, row, column);
+            }
+        }
+
+        ReportGrid grid = new ReportGrid(model);
+        Dimension size = grid.getPreferredSize();
+        grid.setSize(size);
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        System.out.println(ROWS + " x " + COLUMNS + " cells");
+
+        measure("shared borders", grid, image);
+        grid.setCellRenderer(BandElement.class, new PreviousCellRenderer());
+        measure("new borders", grid, image);
+    }
+
+    private static void measure(String name, JGrid grid, BufferedImage image) {
+        // warm up
+        paint(grid, image, 5);
+        long bytes = allocatedBytes();
+        long start = System.currentTimeMillis();
+        paint(grid, image, PAINTS);
+        long time = (System.currentTimeMillis() - start) / PAINTS;
+        bytes = (allocatedBytes() - bytes) / PAINTS;
+        System.out.println(name + " : " + (bytes / 1024) + " KB allocated and " + time + " ms per paint");
+    }
+
+    private static void paint(JGrid grid, BufferedImage image, int count) {
+        for (int i = 0; i < count; i++) {
+            Graphics2D g = image.createGraphics();
+            try {
+                grid.paint(g);
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).
+                getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // the renderer before borders were shared
+    private static class PreviousCellRenderer extends DefaultGridCellRenderer {
+
+        public Component getRendererComponent(int row, int column, Object value,
+                boolean isSelected, boolean hasFocus, JGrid grid) {
+            super.getRendererComponent(row, column, value, isSelected, hasFocus, grid);
+            BandElement element = (BandElement) value;
+            setText(element.getText());
+            setForeground(element.getForeground());
+            setBackground(element.getBackground());
+            Padding padding = element.getPadding();
+            Border border = element.getBorder();
+            if (border != null) {
+                javax.swing.border.Border inner;
+                if (padding != null) {
+                    inner = BorderFactory.createEmptyBorder(padding.getTop(), padding.getLeft(),
+                            padding.getBottom(), padding.getRight());
+                } else {
+                    inner = BorderFactory.createEmptyBorder(0, 0, 0, 0);
+                }
+                setBorder(new CompoundBorder(new CustomLineBorder(border), inner));
+            } else if (padding != null) {
+                setBorder(BorderFactory.createEmptyBorder(padding.getTop(), padding.getLeft(),
+                        padding.getBottom(), padding.getRight()));
+            }
+            setFont(element.getFont());
+            setHorizontalAlignment(element.getHorizontalAlign());
+            setVerticalAlignment(element.getVerticalAlign());
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.querybuilder.ColumnarResultStore;
+
+/**
+ * Compare the memory needed to cache a result as a list of Object[] rows (previous caching table model)
+ * with the memory needed by a columnar result store, against the Derby demo database.
+ */
+public class ColumnarResultStoreTest {
+
+    // 33 x 33 x 33 x 4 = 143748 rows
+    private static final String SQL = "SELECT t1.TIMESHEETID, t1.DATA, t1.HOURSNO, t1.EMPLOYEEID, t1.PROJECTID, " +
+            "t1.WORKCODEID, t1.OBS FROM TIMESHEET t1, TIMESHEET t2, TIMESHEET t3, WORKCODE w";
+
+    public static void main(String[] args) {
+        try {
+            DataSource ds = ReportRunnerTest.createDataSource();
+            Class.forName(ds.getDriver());
+            Connection con = DriverManager.getConnection(ds.getUrl(), ds.getUser(), ds.getPassword());
+            try {
+                long before = usedMemory();
+                long start = System.currentTimeMillis();
+                List<Object[]> rows = loadRows(con);
+                long rowsTime = System.currentTimeMillis() - start;
+                long rowsMemory = usedMemory() - before;
+                long rowsScan = scan(rows);
+                int count = rows.size();
+                rows = null;
+
+                before = usedMemory();
+                start = System.currentTimeMillis();
+                ColumnarResultStore store = loadStore(con);
+                long storeTime = System.currentTimeMillis() - start;
+                long storeMemory = usedMemory() - before;
+                long storeScan = scan(store);
+
+                System.out.println(count + " rows");
+                System.out.println("Object[] rows : " + (rowsMemory / 1024) + " KB, load " + rowsTime +
+                        " ms, read all values " + rowsScan + " ms");
+                System.out.println("columnar store : " + (storeMemory / 1024) + " KB, load " + storeTime +
+                        " ms, read all values " + storeScan + " ms");
+                System.out.println("(store keeps " + store.size() + " rows)");
+            } finally {
+                con.close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<Object[]> loadRows(Connection con) throws Exception {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        Statement stmt = con.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery(SQL);
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                Object[] row = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                rows.add(row);
+            }
+            rs.close();
+        } finally {
+            stmt.close();
+        }
+        return rows;
+    }
+
+    private static ColumnarResultStore loadStore(Connection con) throws Exception {
+        Statement stmt = con.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery(SQL);
+            int columns = rs.getMetaData().getColumnCount();
+            ColumnarResultStore store = new ColumnarResultStore(columns);
+            Object[] row = new Object[columns];
+            while (rs.next()) {
+                for (int i = 0; i < columns; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                store.add(row);
+            }
+            store.seal();
+            rs.close();
+            return store;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private static long scan(List<Object[]> rows) {
+        long start = System.currentTimeMillis();
+        int notNull = 0;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                if (value != null) {
+                    notNull++;
+                }
+            }
+        }
+        return System.currentTimeMillis() - start + (notNull < 0 ? 1 : 0);
+    }
+
+    private static long scan(ColumnarResultStore store) {
+        long start = System.currentTimeMillis();
+        int notNull = 0;
+        for (int i = 0, size = store.size(); i < size; i++) {
+            for (int j = 0; j < store.getColumnCount(); j++) {
+                if (store.get(i, j) != null) {
+                    notNull++;
+                }
+            }
+        }
+        return System.currentTimeMillis() - start + (notNull < 0 ? 1 : 0);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
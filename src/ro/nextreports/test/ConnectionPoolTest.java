@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import ro.nextreports.designer.datasource.ConnectionPool;
+import ro.nextreports.designer.datasource.DataSource;
+import ro.nextreports.designer.datasource.exception.ConnectionException;
+
+/**
+ * Compare the time needed to get a new connection for every request with the time needed to
+ * borrow a connection from a pool, against the Derby demo database.
+ */
+public class ConnectionPoolTest {
+
+    private static final int REQUESTS = 500;
+
+    public static void main(String[] args) {
+        try {
+            final DataSource ds = ReportRunnerTest.createDataSource();
+            Class.forName(ds.getDriver());
+
+            // warm up driver
+            DriverManager.getConnection(ds.getUrl(), ds.getUser(), ds.getPassword()).close();
+
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < REQUESTS; i++) {
+                Connection con = DriverManager.getConnection(ds.getUrl(), ds.getUser(), ds.getPassword());
+                query(con);
+                con.close();
+            }
+            long direct = System.currentTimeMillis() - start;
+
+            ConnectionPool pool = new ConnectionPool(ds, 5, 300, 5) {
+                protected Connection createConnection() throws ConnectionException {
+                    try {
+                        return DriverManager.getConnection(ds.getUrl(), ds.getUser(), ds.getPassword());
+                    } catch (Exception e) {
+                        throw new ConnectionException(e);
+                    }
+                }
+            };
+            start = System.currentTimeMillis();
+            for (int i = 0; i < REQUESTS; i++) {
+                Connection con = pool.getConnection();
+                query(con);
+                con.close();
+            }
+            long pooled = System.currentTimeMillis() - start;
+
+            System.out.println(REQUESTS + " requests");
+            System.out.println("direct connections : " + direct + " ms");
+            System.out.println("pooled connections : " + pooled + " ms");
+            System.out.println(pool.getStatistics());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void query(Connection con) throws Exception {
+        Statement stmt = con.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM SYS.SYSTABLES");
+            rs.next();
+            rs.close();
+        } finally {
+            stmt.close();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.io.File;
+
+import ro.nextreports.designer.persistence.ReportStore;
+import ro.nextreports.designer.persistence.XStreamPool;
+
+/**
+ * Compare read and write times of the xml files with their binary copies for the demo reports and charts.
+ */
+public class ReportStoreTest {
+
+    private static final String[] FILES = {
+            "output/Demo/Reports/Timesheet.report",
+            "output/Demo/Reports/Timesheet_Charts.report",
+            "output/Demo/Reports/New_Timesheet.report",
+            "output/Demo/Charts/DateHours_NP.chart",
+            "output/Demo/Charts/Hours_Code.chart",
+            "output/Demo/Charts/ProjectHours.chart"
+    };
+
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        try {
+            File tmpXml = File.createTempFile("next", ".xml");
+            File tmpBin = File.createTempFile("next", ".bin");
+            try {
+                for (String path : FILES) {
+                    test(new File(path), tmpXml, tmpBin);
+                }
+            } finally {
+                tmpXml.delete();
+                tmpBin.delete();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void test(File file, File tmpXml, File tmpBin) throws Exception {
+        Object object = XStreamPool.ENGINE.fromXML(file);
+        for (int i = 0; i < WARMUP; i++) {
+            XStreamPool.ENGINE.fromXML(file);
+            XStreamPool.ENGINE.toXML(object, tmpXml);
+            ReportStore.write(object, file, tmpBin);
+            ReportStore.read(tmpBin, file, true);
+            ReportStore.read(tmpBin, file, false);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            XStreamPool.ENGINE.fromXML(file);
+        }
+        long xmlRead = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            XStreamPool.ENGINE.toXML(object, tmpXml);
+        }
+        long xmlWrite = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ReportStore.write(object, file, tmpBin);
+        }
+        long binWrite = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ReportStore.read(tmpBin, file, true);
+        }
+        long binRead = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ReportStore.read(tmpBin, file, false);
+        }
+        long headerRead = System.nanoTime() - start;
+
+        System.out.println(file.getName() + " : xml " + (file.length() / 1024) + " KB, binary " +
+                (tmpBin.length() / 1024) + " KB");
+        System.out.println("   xml    read " + avg(xmlRead) + " ms, write " + avg(xmlWrite) + " ms");
+        System.out.println("   binary read " + avg(binRead) + " ms, write " + avg(binWrite) + " ms, read without layout " +
+                avg(headerRead) + " ms");
+    }
+
+    private static String avg(long nanos) {
+        return String.format("%.2f", nanos / 1000000.0 / ITERATIONS);
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+
+import ro.nextreports.designer.grid.CellSpan;
+import ro.nextreports.designer.grid.DefaultGridModel;
+import ro.nextreports.designer.grid.DefaultSpanModel;
+import ro.nextreports.designer.grid.JGrid;
+
+/**
+ * Paint a 500 rows x 50 columns grid with many merged cells, using the indexed span model and
+ * a span model which searches all spans for every cell (as before).
+ * The indexed model is also checked against the search after inserting and removing rows.
+ */
+public class SpanModelTest {
+
+    private static final int ROWS = 500;
+    private static final int COLUMNS = 50;
+    private static final int PAINTS = 20;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        DefaultSpanModel indexed = new DefaultSpanModel();
+        DefaultSpanModel search = new SearchSpanModel();
+        int spans = merge(indexed);
+        merge(search);
+        System.out.println(ROWS + " x " + COLUMNS + " grid with " + spans + " merged cells");
+
+        System.out.println("indexed span model : " + paint(indexed) + " ms per paint");
+        System.out.println("search span model : " + paint(search) + " ms per paint");
+
+        // only rows and columns outside spans (resized spans update the report layout)
+        indexed.insertRows(10, 3);
+        search.insertRows(10, 3);
+        indexed.removeRows(105, 2);
+        search.removeRows(105, 2);
+        indexed.insertColumns(3, 2);
+        search.insertColumns(3, 2);
+        check(indexed, search);
+    }
+
+    // merge 2 x 3 cells on every other band of rows
+    private static int merge(DefaultSpanModel model) {
+        int count = 0;
+        for (int row = 0; row < ROWS - 1; row += 4) {
+            for (int column = 0; column < COLUMNS - 2; column += 3) {
+                model.addSpan(new CellSpan(row, column, 2, 3));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long paint(DefaultSpanModel model) {
+        JGrid grid = new JGrid(new DefaultGridModel(ROWS, COLUMNS), model);
+        Dimension size = grid.getPreferredSize();
+        grid.setSize(size);
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        // warm up
+        paint(grid, image, 3);
+        long start = System.currentTimeMillis();
+        paint(grid, image, PAINTS);
+        return (System.currentTimeMillis() - start) / PAINTS;
+    }
+
+    private static void paint(JGrid grid, BufferedImage image, int count) {
+        for (int i = 0; i < count; i++) {
+            Graphics2D g = image.createGraphics();
+            try {
+                grid.paint(g);
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    private static void check(DefaultSpanModel indexed, DefaultSpanModel search) {
+        for (int row = 0; row < ROWS + 5; row++) {
+            for (int column = 0; column < COLUMNS + 5; column++) {
+                CellSpan expected = search.getSpanOver(row, column);
+                CellSpan actual = indexed.getSpanOver(row, column);
+                if (!toString(expected).equals(toString(actual)) ||
+                        (search.isCellSpan(row, column) != indexed.isCellSpan(row, column))) {
+                    System.out.println("ERROR at (" + row + ", " + column + ") : expected " + expected +
+                            " found " + actual);
+                    return;
+                }
+            }
+        }
+        System.out.println("Indexed spans are the same as searched spans");
+    }
+
+    private static String toString(CellSpan span) {
+        return span.getRow() + "," + span.getColumn() + "," + span.getRowCount() + "," + span.getColumnCount();
+    }
+
+    // searches all spans for every cell, like the previous getSpanOver
+    private static class SearchSpanModel extends DefaultSpanModel {
+
+        public CellSpan getSpanOver(int row, int column) {
+            Iterator<CellSpan> it = getSpanIterator();
+            while (it.hasNext()) {
+                CellSpan span = it.next();
+                if (span.containsCell(row, column)) {
+                    return span;
+                }
+            }
+            return new CellSpan(row, column, 1, 1);
+        }
+
+        public boolean isCellSpan(int row, int column) {
+            return !getSpanOver(row, column).isAtomic();
+        }
+    }
+
+}
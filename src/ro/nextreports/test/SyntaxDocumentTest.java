@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ro.nextreports.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ro.nextreports.designer.ui.sqleditor.syntax.SqlLexer;
+import ro.nextreports.designer.ui.sqleditor.syntax.SyntaxDocument;
+import ro.nextreports.designer.ui.sqleditor.syntax.Token;
+
+/**
+ * Type and delete chars inside a large sql document and compare the time needed by the incremental
+ * re-lexing of SyntaxDocument with the time of a full lexing (what was done before on every keystroke).
+ * At the end the document tokens are checked against a full lexing.
+ */
+public class SyntaxDocumentTest {
+
+    private static final int STATEMENTS = 5000;
+    private static final int EDITS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        String sql = createSql();
+        TestDocument document = new TestDocument();
+        document.insertString(0, sql, null);
+        System.out.println("Document with " + document.getLength() + " chars and " + lex(sql).size() + " tokens");
+
+        // warm up
+        edit(document, new Random(1), 200);
+        fullLex(document, 20);
+
+        Random random = new Random(7);
+        long start = System.nanoTime();
+        edit(document, random, EDITS);
+        long incremental = (System.nanoTime() - start) / EDITS;
+
+        start = System.nanoTime();
+        fullLex(document, 100);
+        long full = (System.nanoTime() - start) / 100;
+
+        System.out.println("incremental re-lex : " + (incremental / 1000) + " us per edit");
+        System.out.println("full lex : " + (full / 1000) + " us per edit");
+
+        check(document);
+
+        checkUnmatchedQuote();
+        checkSmallDocuments(new Random(11), 3000, 10);
+    }
+
+    // a quote skipped by the lexer becomes a string start when the closing quote is typed
+    private static void checkUnmatchedQuote() throws Exception {
+        TestDocument document = new TestDocument();
+        document.insertString(0, "\",a ", null);
+        document.insertString(4, "\"", null);
+        check(document);
+    }
+
+    // many edits on small documents, compared with a full lexing after every edit
+    private static void checkSmallDocuments(Random random, int documents, int edits) throws Exception {
+        String[] texts = {"a", " ", "\"", "'", "-", "--", "/*", "*/", "\n", ",", "\"x\""};
+        int errors = 0;
+        for (int i = 0; i < documents; i++) {
+            TestDocument document = new TestDocument();
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0, n = random.nextInt(20); j < n; j++) {
+                sb.append(texts[random.nextInt(texts.length)]);
+            }
+            document.insertString(0, sb.toString(), null);
+            for (int j = 0; j < edits; j++) {
+                int offset = random.nextInt(document.getLength() + 1);
+                if (random.nextBoolean() || (offset == document.getLength())) {
+                    document.insertString(offset, texts[random.nextInt(texts.length)], null);
+                } else {
+                    document.remove(offset, Math.min(1 + random.nextInt(3), document.getLength() - offset));
+                }
+                if (!lex(document.getText(0, document.getLength())).equals(document.getTokenList())) {
+                    errors++;
+                    break;
+                }
+            }
+        }
+        System.out.println(documents + " small documents edited " + edits + " times : " + errors + " with errors");
+    }
+
+    private static String createSql() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < STATEMENTS; i++) {
+            sb.append("-- statement ").append(i).append("\n");
+            sb.append("SELECT t.TIMESHEETID, t.HOURSNO * 1.5 AS H, 'obs ").append(i).append("' AS OBS\n");
+            sb.append("FROM TIMESHEET t /* projects\n   and work codes */ JOIN PROJECT p ON t.PROJECTID = p.PROJECTID\n");
+            sb.append("WHERE t.WORKCODEID IN (1, 2, 3) AND t.OBS <> 'none';\n\n");
+        }
+        return sb.toString();
+    }
+
+    // insert or delete chars, including quotes and comment markers which change following tokens
+    private static void edit(SyntaxDocument document, Random random, int count) throws Exception {
+        String[] texts = {"a", "1", " ", "'", "\"", "/*", "*/", "--", "\n", "SELECT "};
+        for (int i = 0; i < count; i++) {
+            int offset = random.nextInt(document.getLength());
+            if (random.nextBoolean()) {
+                document.insertString(offset, texts[random.nextInt(texts.length)], null);
+            } else {
+                document.remove(offset, Math.min(1 + random.nextInt(3), document.getLength() - offset));
+            }
+        }
+    }
+
+    private static void fullLex(SyntaxDocument document, int count) throws Exception {
+        String text = document.getText(0, document.getLength());
+        for (int i = 0; i < count; i++) {
+            lex(text);
+        }
+    }
+
+    private static List<Token> lex(String text) throws Exception {
+        List<Token> tokens = new ArrayList<Token>();
+        SqlLexer lexer = new SqlLexer();
+        lexer.yyreset(new StringReader(text));
+        Token token;
+        while ((token = lexer.yylex()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static void check(TestDocument document) throws Exception {
+        List<Token> expected = lex(document.getText(0, document.getLength()));
+        List<Token> actual = document.getTokenList();
+        for (int i = 0, n = Math.max(expected.size(), actual.size()); i < n; i++) {
+            Token e = (i < expected.size()) ? expected.get(i) : null;
+            Token a = (i < actual.size()) ? actual.get(i) : null;
+            if ((e == null) || !e.equals(a)) {
+                System.out.println("ERROR : token " + i + " expected " + e + " found " + a);
+                return;
+            }
+        }
+        System.out.println("Tokens are the same as for a full lexing");
+    }
+
+    private static class TestDocument extends SyntaxDocument {
+
+        TestDocument() {
+            super(new SqlLexer());
+        }
+
+        List<Token> getTokenList() {
+            return tokens;
+        }
+    }
+
+}